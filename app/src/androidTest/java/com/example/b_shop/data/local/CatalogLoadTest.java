@@ -0,0 +1,87 @@
+package com.example.b_shop.data.local;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.b_shop.data.local.metrics.QueryMetrics;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Generates a synthetic shop in an on-disk database and replays a shopper mix against it,
+ * logging latency percentiles per repository method and the slowest statements. Runs the
+ * small shop by default, pass {@code -e loadScale LARGE} (or FULL) and
+ * {@code -e loadSessions 5000} to am instrument for a production sized run.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CatalogLoadTest {
+    private static final String TAG = "CatalogLoadTest";
+    private static final String DATABASE_NAME = "catalog_load_test.db";
+    private static final long SEED = 42L;
+    private static final int LOGGED_STATEMENTS = 20;
+    // Called by every session of their scenario
+    private static final String[] MIX_METHODS = {
+        "ProductRepository.getProductsByCategoryPages",
+        "ProductRepository.getProduct",
+        "ReviewRepository.getNewestReviews",
+        "ProductRepository.filterProducts",
+        "CartRepository.addToCart",
+        "OrderRepository.placeOrderFromCart"
+    };
+
+    private Context context;
+    private AppExecutors executors;
+    private AppDatabase database;
+    private SyntheticDataGenerator.Scale scale;
+    private int sessions;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        scale = SyntheticDataGenerator.Scale.valueOf(arguments.getString("loadScale", "SMALL"));
+        sessions = Integer.parseInt(arguments.getString("loadSessions", "500"));
+
+        context.deleteDatabase(DATABASE_NAME);
+        // The app's configuration, WAL and Room's reads on the executors below
+        executors = new AppExecutors();
+        database = AppDatabase.builder(context, DATABASE_NAME, executors).build();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void replaysShopperMix() throws Exception {
+        SyntheticDataGenerator.Catalog catalog = new SyntheticDataGenerator(database, SEED).generate(scale);
+        assertEquals(scale.products, database.productDao().getProductCount());
+
+        LoadScenarioRunner runner = new LoadScenarioRunner(context, database, executors, catalog, SEED);
+        QueryMetrics.getInstance().reset();
+        runner.run(sessions);
+        Log.i(TAG, scale + " shop, " + sessions + " sessions\n" + runner.report());
+        QueryMetrics.getInstance().logStats(LOGGED_STATEMENTS);
+
+        Map<String, List<Long>> latencies = runner.getLatencies();
+        for (String method : MIX_METHODS) {
+            assertTrue(method + " was never called", latencies.containsKey(method));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.b_shop.data.local;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.b_shop.data.local.dao.InventoryDao;
+import com.example.b_shop.data.local.entities.CartItem;
+import com.example.b_shop.data.local.entities.Category;
+import com.example.b_shop.data.local.entities.Product;
+import com.example.b_shop.data.local.entities.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Flash sale on one product: thousands of buyers add it to their cart at once.
+ * Holds must never exceed the stock, and every unit must be sold.
+ */
+@RunWith(AndroidJUnit4.class)
+public class InventoryContentionTest {
+    private static final String TAG = "InventoryContentionTest";
+    private static final int BUYERS = 2000;
+    private static final int THREADS = 16;
+    private static final int STOCK = 150;
+
+    private AppDatabase database;
+    private int productId;
+    private final List<Integer> userIds = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+            .addCallback(AppDatabase.CALLBACK)
+            .build();
+
+        database.runInTransaction(() -> {
+            int categoryId = (int) database.categoryDao().insert(new Category("Deals", "Flash sale"));
+            productId = (int) database.productDao().insert(
+                new Product("Console", "Limited run", 499.99f, categoryId, null, STOCK));
+            for (int i = 0; i < BUYERS; i++) {
+                userIds.add((int) database.userDao().insert(
+                    new User("Buyer " + i, "buyer" + i + "@example.com", "x")));
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void concurrentAddToCartNeverOversells() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        long expiresAt = System.currentTimeMillis() + InventoryDao.HOLD_DURATION_MS;
+
+        for (int userId : userIds) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    CartItem item = new CartItem(userId, productId, 1, 499.99f);
+                    if (database.cartDao().validateAndAddToCart(item, expiresAt)) {
+                        accepted.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        Log.i(TAG, BUYERS + " add-to-cart calls on " + THREADS + " threads took " + elapsedMs
+            + " ms, " + (BUYERS * 1000L / Math.max(1, elapsedMs)) + " calls/s");
+
+        assertEquals(STOCK, accepted.get());
+        assertEquals(0, database.productDao().getProductSync(productId).getStock());
+    }
+
+    @Test
+    public void expiredHoldsReturnTheirStock() {
+        long expiresAt = System.currentTimeMillis() - 1;
+        for (int i = 0; i < 10; i++) {
+            assertTrue(database.inventoryDao().reserve(userIds.get(i), productId, 3, expiresAt));
+        }
+        assertEquals(STOCK - 30, database.productDao().getProductSync(productId).getStock());
+
+        assertEquals(10, database.inventoryDao().releaseExpired(System.currentTimeMillis(), 100));
+        assertEquals(STOCK, database.productDao().getProductSync(productId).getStock());
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.b_shop.data.local;
+
+import android.content.Context;
+
+import com.example.b_shop.data.local.entities.Product;
+import com.example.b_shop.data.local.entities.Review;
+import com.example.b_shop.data.local.entities.UserRole;
+import com.example.b_shop.data.local.errors.CartError;
+import com.example.b_shop.data.local.errors.CheckoutException;
+import com.example.b_shop.data.repositories.CartRepository;
+import com.example.b_shop.data.repositories.OrderRepository;
+import com.example.b_shop.data.repositories.ProductFilter;
+import com.example.b_shop.data.repositories.ProductFilterResult;
+import com.example.b_shop.data.repositories.ProductRepository;
+import com.example.b_shop.data.repositories.ReviewRepository;
+import com.example.b_shop.utils.UserManager;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays shopper sessions against the repositories and records the latency of every
+ * repository call, keyed by {@code Repository.method}. Sessions are drawn from a fixed mix
+ * of browse, search, add-to-cart and checkout with the catalog's popularity, one after the
+ * other, so the same seed replays the same calls.
+ */
+class LoadScenarioRunner {
+    private static final int PAGE_SIZE = 20;
+    private static final int REVIEW_PAGE_SIZE = 10;
+
+    enum Scenario {
+        BROWSE(50),
+        SEARCH(25),
+        ADD_TO_CART(15),
+        CHECKOUT(10);
+
+        // Share of sessions in percent
+        final int weight;
+
+        Scenario(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private final SyntheticDataGenerator.Catalog catalog;
+    private final Random random;
+    private final UserManager userManager;
+    private final ProductRepository productRepository;
+    private final CartRepository cartRepository;
+    private final ReviewRepository reviewRepository;
+    private final OrderRepository orderRepository;
+    private final Map<String, List<Long>> latencies = new TreeMap<>();
+    private final Map<String, Integer> failures = new TreeMap<>();
+
+    LoadScenarioRunner(Context context, AppDatabase database, AppExecutors executors,
+                       SyntheticDataGenerator.Catalog catalog, long seed) {
+        this.catalog = catalog;
+        this.random = new Random(seed);
+        this.userManager = UserManager.getInstance(context);
+        this.cartRepository = new CartRepository(database.cartDao(), database.productDao(), userManager, executors);
+        this.productRepository = new ProductRepository(database.productDao(),
+            database.getInvalidationTracker(), cartRepository, userManager, executors);
+        this.reviewRepository = new ReviewRepository(database.reviewDao(), database.userDao(), userManager, executors);
+        this.orderRepository = new OrderRepository(database.orderDao(), database.checkoutDao(), executors);
+    }
+
+    void run(int sessions) throws Exception {
+        for (int i = 0; i < sessions; i++) {
+            int userId = catalog.pickUser(random);
+            userManager.loginUser(userId, "shopper" + userId + "@load.bshop.com", "Shopper", UserRole.USER);
+            switch (pickScenario()) {
+                case BROWSE:
+                    browse();
+                    break;
+                case SEARCH:
+                    search();
+                    break;
+                case ADD_TO_CART:
+                    addToCart(catalog.pickProduct(random));
+                    break;
+                case CHECKOUT:
+                    addToCart(catalog.pickProduct(random));
+                    checkout(userId);
+                    break;
+            }
+        }
+        userManager.logoutUser();
+    }
+
+    private Scenario pickScenario() {
+        int roll = random.nextInt(100);
+        for (Scenario scenario : Scenario.values()) {
+            roll -= scenario.weight;
+            if (roll < 0) {
+                return scenario;
+            }
+        }
+        return Scenario.BROWSE;
+    }
+
+    // A category page or two, then a product with its newest reviews
+    private void browse() throws Exception {
+        ProductRepository.PageSource pages = productRepository.getProductsByCategoryPages(catalog.pickCategory(random));
+        List<Product> page = time("ProductRepository.getProductsByCategoryPages",
+            () -> pages.loadAfter(null, PAGE_SIZE));
+        if (page.size() == PAGE_SIZE && random.nextBoolean()) {
+            Product last = page.get(page.size() - 1);
+            time("ProductRepository.getProductsByCategoryPages", () -> pages.loadAfter(last, PAGE_SIZE));
+        }
+        if (random.nextInt(4) == 0) {
+            ProductRepository.PageSource topRated = productRepository.getTopRatedProductsPages();
+            time("ProductRepository.getTopRatedProductsPages", () -> topRated.loadAfter(null, PAGE_SIZE));
+        }
+
+        int productId = catalog.pickProduct(random);
+        time("ProductRepository.getProduct", () -> productRepository.getProduct(productId));
+        List<Review> reviews = time("ReviewRepository.getNewestReviews",
+            () -> reviewRepository.getNewestReviews(productId, null, REVIEW_PAGE_SIZE));
+        if (reviews.size() == REVIEW_PAGE_SIZE && random.nextInt(3) == 0) {
+            Review last = reviews.get(reviews.size() - 1);
+            time("ReviewRepository.getNewestReviews",
+                () -> reviewRepository.getNewestReviews(productId, last, REVIEW_PAGE_SIZE));
+        }
+    }
+
+    // A text query, narrowed by the facets a third of the time, then the next page
+    private void search() throws Exception {
+        ProductFilter.Builder builder = new ProductFilter.Builder().setQuery(catalog.pickSearchTerm(random));
+        if (random.nextInt(3) == 0) {
+            builder.setMinRating(4).setInStockOnly(true);
+        }
+        ProductFilter filter = builder.build();
+        ProductFilterResult result = time("ProductRepository.filterProducts",
+            () -> productRepository.filterProducts(filter, PAGE_SIZE).get());
+        List<Product> page = result.getProducts();
+        if (page.size() == PAGE_SIZE && random.nextBoolean()) {
+            ProductRepository.PageSource pages = productRepository.getFilteredProductsPages(filter);
+            Product last = page.get(page.size() - 1);
+            time("ProductRepository.getFilteredProductsPages", () -> pages.loadAfter(last, PAGE_SIZE));
+        }
+    }
+
+    // Measured until the callback, which is when the user sees the cart change
+    private void addToCart(int productId) throws Exception {
+        time("CartRepository.addToCart", () -> {
+            CountDownLatch done = new CountDownLatch(1);
+            cartRepository.addToCart(productId, 1, new CartRepository.CartOperationCallback() {
+                @Override
+                public void onSuccess() {
+                    done.countDown();
+                }
+
+                @Override
+                public void onError(CartError error) {
+                    recordFailure("CartRepository.addToCart");
+                    done.countDown();
+                }
+            });
+            if (!done.await(30, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("addToCart did not call back");
+            }
+            return null;
+        });
+    }
+
+    private void checkout(int userId) throws Exception {
+        time("OrderRepository.placeOrderFromCart", () -> {
+            try {
+                return orderRepository.placeOrderFromCart(userId);
+            } catch (CheckoutException e) {
+                // Out of stock or nothing added, still a full checkout attempt
+                recordFailure("OrderRepository.placeOrderFromCart");
+                return -1L;
+            }
+        });
+    }
+
+    private <T> T time(String method, Callable<T> call) throws Exception {
+        long startNanos = System.nanoTime();
+        T result = call.call();
+        long elapsed = System.nanoTime() - startNanos;
+        synchronized (latencies) {
+            List<Long> samples = latencies.get(method);
+            if (samples == null) {
+                samples = new ArrayList<>();
+                latencies.put(method, samples);
+            }
+            samples.add(elapsed);
+        }
+        return result;
+    }
+
+    private void recordFailure(String method) {
+        synchronized (failures) {
+            Integer count = failures.get(method);
+            failures.put(method, (count != null ? count : 0) + 1);
+        }
+    }
+
+    Map<String, List<Long>> getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * One line per repository method: calls, failed calls and p50 / p90 / p99 / max in milliseconds.
+     */
+    String report() {
+        StringBuilder report = new StringBuilder(String.format(Locale.US,
+            "%-45s %7s %6s %8s %8s %8s %8s%n", "method", "calls", "failed", "p50", "p90", "p99", "max"));
+        for (Map.Entry<String, List<Long>> entry : latencies.entrySet()) {
+            List<Long> samples = new ArrayList<>(entry.getValue());
+            Collections.sort(samples);
+            Integer failed = failures.get(entry.getKey());
+            report.append(String.format(Locale.US, "%-45s %7d %6d %8.2f %8.2f %8.2f %8.2f%n",
+                entry.getKey(), samples.size(), failed != null ? failed : 0,
+                percentile(samples, 50), percentile(samples, 90), percentile(samples, 99),
+                samples.get(samples.size() - 1) / 1e6));
+        }
+        return report.toString();
+    }
+
+    // Nearest rank, in milliseconds
+    private static double percentile(List<Long> sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, rank - 1)) / 1e6;
+    }
+}
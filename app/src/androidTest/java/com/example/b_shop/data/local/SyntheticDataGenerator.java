@@ -0,0 +1,479 @@
+package com.example.b_shop.data.local;
+
+import android.util.Log;
+import com.example.b_shop.data.local.entities.CartItem;
+import com.example.b_shop.data.local.entities.Category;
+import com.example.b_shop.data.local.entities.Order;
+import com.example.b_shop.data.local.entities.OrderItem;
+import com.example.b_shop.data.local.entities.Product;
+import com.example.b_shop.data.local.entities.Review;
+import com.example.b_shop.data.local.entities.User;
+import com.example.b_shop.data.local.entities.UserFavorite;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills the database with a synthetic shop for load testing: categories, products, users,
+ * reviews, favorites, carts and orders. The same seed and scale always produce the same rows.
+ * Popularity is Zipfian, a few products get most of the reviews, favorites, cart lines and
+ * orders, and a few users do most of the shopping.
+ * Rows go through the bulk inserts, one transaction per chunk, so other writers get the
+ * lock between chunks. Takes minutes at {@link Scale#FULL}, never call it on the main thread.
+ */
+public class SyntheticDataGenerator {
+    private static final String TAG = "SyntheticDataGenerator";
+    private static final int CHUNK_SIZE = 5000;
+    // 2023-01-01 UTC, so the rows do not depend on when they were generated
+    private static final long EPOCH_MILLIS = 1672531200000L;
+    private static final long HISTORY_MILLIS = TimeUnit.DAYS.toMillis(730);
+    private static final long CART_AGE_MILLIS = TimeUnit.DAYS.toMillis(7);
+    private static final int MAX_LINES = 4;
+
+    // Zipf exponents, higher is more skewed
+    private static final double PRODUCT_SKEW = 1.0;
+    private static final double USER_SKEW = 0.6;
+    private static final double CATEGORY_SKEW = 0.7;
+    private static final double TERM_SKEW = 0.9;
+
+    // Cumulative share of 1 to 5 star reviews
+    private static final double[] RATING_CDF = {0.10, 0.18, 0.30, 0.55, 1.0};
+
+    private static final String[] ADJECTIVES = {
+        "Classic", "Compact", "Deluxe", "Eco", "Essential", "Everyday", "Premium", "Pro",
+        "Portable", "Smart", "Slim", "Sport", "Travel", "Ultra", "Vintage", "Wireless"
+    };
+    // Also the search terms of the load scenarios, most popular first
+    static final String[] NOUNS = {
+        "headphones", "jacket", "lamp", "backpack", "sneakers", "watch", "speaker", "mug",
+        "notebook", "chair", "charger", "blanket", "camera", "kettle", "novel", "scarf",
+        "keyboard", "bottle", "desk", "sunglasses", "pillow", "tablet", "wallet", "rug"
+    };
+    private static final String[] COMMENTS = {
+        "Exactly as described, would buy again.",
+        "Good value for the price.",
+        "Arrived quickly and works well.",
+        "Decent quality but the color is off.",
+        "Stopped working after a few weeks.",
+        "Better than I expected, very happy with it."
+    };
+
+    /**
+     * Row counts of a generated shop. Reviews and favorites land slightly below their
+     * targets, since a repeated user and product pair is skipped.
+     */
+    public enum Scale {
+        SMALL(12, 10_000, 1_000, 15_000, 5_000, 500, 3_000),
+        LARGE(40, 200_000, 30_000, 300_000, 150_000, 15_000, 90_000),
+        FULL(200, 2_000_000, 300_000, 3_000_000, 1_500_000, 150_000, 900_000);
+
+        final int categories;
+        final int products;
+        final int users;
+        final int reviews;
+        final int favorites;
+        final int cartItems;
+        final int orders;
+
+        Scale(int categories, int products, int users, int reviews, int favorites,
+              int cartItems, int orders) {
+            this.categories = categories;
+            this.products = products;
+            this.users = users;
+            this.reviews = reviews;
+            this.favorites = favorites;
+            this.cartItems = cartItems;
+            this.orders = orders;
+        }
+    }
+
+    private final AppDatabase database;
+    private final long seed;
+
+    public SyntheticDataGenerator(AppDatabase database, long seed) {
+        this.database = database;
+        this.seed = seed;
+    }
+
+    /**
+     * Adds a shop of the given scale next to whatever the database already holds.
+     * @return the generated ids, with samplers that follow the same popularity
+     */
+    public Catalog generate(Scale scale) {
+        long startMillis = System.currentTimeMillis();
+        int[] categoryIds = insertCategories(scale, random(1));
+        Catalog catalog = insertProducts(scale, categoryIds, random(2));
+        insertUsers(scale, catalog, random(3));
+        insertReviews(scale, catalog, random(4));
+        insertFavorites(scale, catalog, random(5));
+        insertCartItems(scale, catalog, random(6));
+        insertOrders(scale, catalog, random(7));
+        Log.i(TAG, String.format(Locale.US, "Generated %s shop with seed %d in %d ms",
+            scale, seed, System.currentTimeMillis() - startMillis));
+        return catalog;
+    }
+
+    // One stream per table, so changing one table's count leaves the others as they were
+    private Random random(int table) {
+        return new Random(seed * 31 + table);
+    }
+
+    private int[] insertCategories(Scale scale, Random random) {
+        int[] categoryIds = new int[scale.categories];
+        database.runInTransaction(() -> {
+            for (int i = 0; i < categoryIds.length; i++) {
+                String noun = NOUNS[random.nextInt(NOUNS.length)];
+                categoryIds[i] = (int) database.categoryDao().insert(
+                    new Category("Category " + (i + 1), "All things " + noun));
+            }
+        });
+        return categoryIds;
+    }
+
+    private Catalog insertProducts(Scale scale, int[] categoryIds, Random random) {
+        long startMillis = System.currentTimeMillis();
+        ZipfSampler categoryPopularity = new ZipfSampler(categoryIds.length, CATEGORY_SKEW);
+        int[] productIds = new int[scale.products];
+        float[] prices = new float[scale.products];
+
+        for (int from = 0; from < scale.products; from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE, scale.products);
+            List<Product> products = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                String adjective = ADJECTIVES[random.nextInt(ADJECTIVES.length)];
+                String noun = NOUNS[random.nextInt(NOUNS.length)];
+                // Log-normal around 30, the way shop prices spread
+                float price = (float) Math.floor(Math.min(5000, Math.exp(3.4 + random.nextGaussian()))) + 0.99f;
+                int stock = random.nextInt(100) < 8 ? 0 : 1 + random.nextInt(200);
+                int categoryId = categoryIds[categoryPopularity.sample(random) - 1];
+                prices[i] = price;
+                products.add(new Product(adjective + " " + noun + " " + (i + 1),
+                    adjective + " " + noun + ", item " + (i + 1), price, categoryId, null, stock));
+            }
+            List<Long> ids = database.productDao().insertAll(products);
+            for (int i = from; i < to; i++) {
+                productIds[i] = ids.get(i - from).intValue();
+            }
+        }
+        logTable("products", scale.products, startMillis);
+        return new Catalog(categoryIds, productIds, prices, new int[scale.users]);
+    }
+
+    private void insertUsers(Scale scale, Catalog catalog, Random random) {
+        long startMillis = System.currentTimeMillis();
+        String password = DatabaseInitializer.hashPassword("password");
+        for (int from = 0; from < scale.users; from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE, scale.users);
+            List<User> users = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                User user = new User("Shopper " + (i + 1), "shopper" + (i + 1) + "@load.bshop.com", password);
+                long createdAt = timestamp(random);
+                user.setCreatedAt(createdAt / 1000L);
+                user.setLastLogin((createdAt + (long) (random.nextDouble() * (EPOCH_MILLIS + HISTORY_MILLIS - createdAt))) / 1000L);
+                users.add(user);
+            }
+            List<Long> ids = database.userDao().insertAll(users);
+            for (int i = from; i < to; i++) {
+                catalog.userIds[i] = ids.get(i - from).intValue();
+            }
+        }
+        logTable("users", scale.users, startMillis);
+    }
+
+    private void insertReviews(Scale scale, Catalog catalog, Random random) {
+        long startMillis = System.currentTimeMillis();
+        for (int from = 0; from < scale.reviews; from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE, scale.reviews);
+            List<Review> reviews = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                Review review = new Review(catalog.pickUser(random), catalog.pickProduct(random),
+                    pickRating(random), COMMENTS[random.nextInt(COMMENTS.length)]);
+                review.setCreatedAt(new Date(timestamp(random)));
+                // Most reviews are never voted on, a few collect many votes
+                review.setHelpfulCount((int) (-Math.log(1 - random.nextDouble()) * 2));
+                reviews.add(review);
+            }
+            database.reviewDao().insertAll(reviews);
+        }
+
+        // Rating aggregates in productId ranges, the same walk as the rating reconciliation
+        int[] productIds = catalog.productIds;
+        for (int from = 0; from < productIds.length; from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE, productIds.length) - 1;
+            database.reviewDao().rebuildRatingStatsInRange(productIds[from], productIds[to]);
+        }
+        logTable("reviews", scale.reviews, startMillis);
+    }
+
+    private void insertFavorites(Scale scale, Catalog catalog, Random random) {
+        long startMillis = System.currentTimeMillis();
+        for (int from = 0; from < scale.favorites; from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE, scale.favorites);
+            List<UserFavorite> favorites = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                favorites.add(new UserFavorite(catalog.pickUser(random), catalog.pickProduct(random)));
+            }
+            database.userDao().insertFavorites(favorites);
+        }
+        logTable("user_favorites", scale.favorites, startMillis);
+    }
+
+    /**
+     * Open carts of the most active users, written without stock holds like carts from
+     * before holds existed. Checkout takes their stock when the order is placed.
+     */
+    private void insertCartItems(Scale scale, Catalog catalog, Random random) {
+        long startMillis = System.currentTimeMillis();
+        BitSet withCart = new BitSet(catalog.userIds.length);
+        List<CartItem> items = new ArrayList<>(CHUNK_SIZE + MAX_LINES);
+        int written = 0;
+        int carts = 0;
+        while (written < scale.cartItems && carts < catalog.userIds.length) {
+            int user = catalog.pickUserIndex(random);
+            if (withCart.get(user)) {
+                continue;
+            }
+            withCart.set(user);
+            carts++;
+            int lines = Math.min(1 + random.nextInt(MAX_LINES), scale.cartItems - written);
+            for (int product : pickDistinctProducts(catalog, random, lines)) {
+                CartItem item = new CartItem(catalog.userIds[user], catalog.productIds[product],
+                    1 + random.nextInt(3), catalog.prices[product]);
+                item.setAddedAt(EPOCH_MILLIS + HISTORY_MILLIS - (long) (random.nextDouble() * CART_AGE_MILLIS));
+                items.add(item);
+            }
+            written += lines;
+            if (items.size() >= CHUNK_SIZE) {
+                insertCartChunk(items);
+            }
+        }
+        insertCartChunk(items);
+        logTable("cart_items", written, startMillis);
+    }
+
+    private void insertCartChunk(List<CartItem> items) {
+        if (!items.isEmpty()) {
+            database.cartDao().insertCartItems(new ArrayList<>(items));
+            items.clear();
+        }
+    }
+
+    private void insertOrders(Scale scale, Catalog catalog, Random random) {
+        long startMillis = System.currentTimeMillis();
+        for (int from = 0; from < scale.orders; from += CHUNK_SIZE) {
+            int count = Math.min(CHUNK_SIZE, scale.orders - from);
+            database.runInTransaction(() -> {
+                List<OrderItem> orderItems = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    int[] products = pickDistinctProducts(catalog, random, 1 + random.nextInt(MAX_LINES));
+                    int[] quantities = new int[products.length];
+                    float total = 0f;
+                    for (int line = 0; line < products.length; line++) {
+                        quantities[line] = 1 + random.nextInt(3);
+                        total += quantities[line] * catalog.prices[products[line]];
+                    }
+
+                    Order order = new Order(catalog.pickUser(random), total);
+                    order.setItemCount(products.length);
+                    long orderDate = timestamp(random);
+                    order.setOrderDate(new Date(orderDate));
+                    // Everything but the last few days of orders has been delivered
+                    if (EPOCH_MILLIS + HISTORY_MILLIS - orderDate > TimeUnit.DAYS.toMillis(5)) {
+                        order.setStatus("DELIVERED");
+                    } else if (random.nextBoolean()) {
+                        order.setStatus("CONFIRMED");
+                    }
+                    int orderId = (int) database.checkoutDao().insertOrder(order);
+
+                    for (int line = 0; line < products.length; line++) {
+                        orderItems.add(new OrderItem(orderId, catalog.productIds[products[line]],
+                            quantities[line], catalog.prices[products[line]]));
+                    }
+                }
+                database.checkoutDao().insertOrderItems(orderItems);
+            });
+        }
+        logTable("orders", scale.orders, startMillis);
+    }
+
+    // Product indices, not ids
+    private static int[] pickDistinctProducts(Catalog catalog, Random random, int count) {
+        int[] products = new int[count];
+        int picked = 0;
+        while (picked < count) {
+            int product = catalog.pickProductIndex(random);
+            boolean repeated = false;
+            for (int i = 0; i < picked; i++) {
+                repeated |= products[i] == product;
+            }
+            if (!repeated) {
+                products[picked++] = product;
+            }
+        }
+        return products;
+    }
+
+    private static int pickRating(Random random) {
+        double u = random.nextDouble();
+        int stars = 1;
+        while (u > RATING_CDF[stars - 1]) {
+            stars++;
+        }
+        return stars;
+    }
+
+    private static long timestamp(Random random) {
+        return EPOCH_MILLIS + (long) (random.nextDouble() * HISTORY_MILLIS);
+    }
+
+    private static void logTable(String table, int rows, long startMillis) {
+        Log.i(TAG, String.format(Locale.US, "%s: %d rows in %d ms",
+            table, rows, System.currentTimeMillis() - startMillis));
+    }
+
+    /**
+     * Ids of a generated shop. The pick methods draw with the popularity the data was
+     * generated with, so load replayed through them hits the same hot products and users.
+     */
+    public static class Catalog {
+        private final int[] categoryIds;
+        private final int[] productIds;
+        private final float[] prices;
+        private final int[] userIds;
+        private final ZipfSampler productPopularity;
+        private final ZipfSampler userActivity;
+        private final ZipfSampler categoryPopularity;
+        private final ZipfSampler termPopularity;
+        // Spread popularity ranks over the ids, so the hot products are not all the oldest ones
+        private final int productStride;
+        private final int userStride;
+
+        Catalog(int[] categoryIds, int[] productIds, float[] prices, int[] userIds) {
+            this.categoryIds = categoryIds;
+            this.productIds = productIds;
+            this.prices = prices;
+            this.userIds = userIds;
+            this.productPopularity = new ZipfSampler(productIds.length, PRODUCT_SKEW);
+            this.userActivity = new ZipfSampler(userIds.length, USER_SKEW);
+            this.categoryPopularity = new ZipfSampler(categoryIds.length, CATEGORY_SKEW);
+            this.termPopularity = new ZipfSampler(NOUNS.length, TERM_SKEW);
+            this.productStride = coprimeStride(productIds.length);
+            this.userStride = coprimeStride(userIds.length);
+        }
+
+        public int getProductCount() {
+            return productIds.length;
+        }
+
+        public int getUserCount() {
+            return userIds.length;
+        }
+
+        public int pickProduct(Random random) {
+            return productIds[pickProductIndex(random)];
+        }
+
+        public int pickUser(Random random) {
+            return userIds[pickUserIndex(random)];
+        }
+
+        public int pickCategory(Random random) {
+            return categoryIds[categoryPopularity.sample(random) - 1];
+        }
+
+        public String pickSearchTerm(Random random) {
+            return NOUNS[termPopularity.sample(random) - 1];
+        }
+
+        int pickProductIndex(Random random) {
+            return scatter(productPopularity.sample(random), productIds.length, productStride);
+        }
+
+        int pickUserIndex(Random random) {
+            return scatter(userActivity.sample(random), userIds.length, userStride);
+        }
+
+        private static int scatter(int rank, int n, int stride) {
+            return (int) ((rank - 1L) * stride % n);
+        }
+
+        private static int coprimeStride(int n) {
+            int stride = Math.max(1, (int) (n * 0.618));
+            while (gcd(stride, n) != 1) {
+                stride++;
+            }
+            return stride;
+        }
+
+        private static int gcd(int a, int b) {
+            return b == 0 ? a : gcd(b, a % b);
+        }
+    }
+
+    /**
+     * Ranks 1 to n with probability proportional to 1 / rank^exponent, drawn by
+     * rejection-inversion (Hörmann and Derflinger), so it needs no table of n weights.
+     */
+    private static class ZipfSampler {
+        private final int n;
+        private final double exponent;
+        private final double hIntegralX1;
+        private final double hIntegralN;
+        private final double s;
+
+        ZipfSampler(int n, double exponent) {
+            this.n = n;
+            this.exponent = exponent;
+            this.hIntegralX1 = hIntegral(1.5) - 1;
+            this.hIntegralN = hIntegral(n + 0.5);
+            this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+        }
+
+        int sample(Random random) {
+            while (true) {
+                double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+                double x = hIntegralInverse(u);
+                int k = (int) (x + 0.5);
+                if (k < 1) {
+                    k = 1;
+                } else if (k > n) {
+                    k = n;
+                }
+                if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                    return k;
+                }
+            }
+        }
+
+        private double h(double x) {
+            return Math.exp(-exponent * Math.log(x));
+        }
+
+        private double hIntegral(double x) {
+            double logX = Math.log(x);
+            return helper2((1 - exponent) * logX) * logX;
+        }
+
+        private double hIntegralInverse(double x) {
+            double t = x * (1 - exponent);
+            if (t < -1) {
+                t = -1;
+            }
+            return Math.exp(helper1(t) * x);
+        }
+
+        // log(1 + x) / x, accurate near 0
+        private static double helper1(double x) {
+            return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1 / 3.0 - 0.25 * x));
+        }
+
+        // (exp(x) - 1) / x, accurate near 0
+        private static double helper2(double x) {
+            return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x / 3.0 * (1 + 0.25 * x));
+        }
+    }
+}
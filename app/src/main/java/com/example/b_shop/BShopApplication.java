@@ -2,104 +2,179 @@ package com.example.b_shop;
 
 import android.app.Application;
 import android.util.Log;
-import androidx.room.Room;
 import com.example.b_shop.data.local.AppDatabase;
-import com.example.b_shop.data.local.DatabaseInitializer;
 import com.example.b_shop.data.local.entities.UserRole;
+import com.example.b_shop.data.local.metrics.QueryMetrics;
+import com.example.b_shop.data.repositories.AuditLogRetention;
 import com.example.b_shop.data.repositories.CartRepository;
 import com.example.b_shop.data.repositories.CategoryRepository;
+import com.example.b_shop.data.repositories.InventoryRepository;
 import com.example.b_shop.data.repositories.OrderRepository;
 import com.example.b_shop.data.repositories.ProductRepository;
 import com.example.b_shop.data.repositories.ReviewRepository;
 import com.example.b_shop.data.repositories.UserRepository;
 import com.example.b_shop.utils.UserManager;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import com.example.b_shop.utils.concurrent.TaskPriority;
 import com.example.b_shop.utils.security.SecurityInterceptor;
+import com.example.b_shop.utils.startup.StartupGraph;
+import com.example.b_shop.utils.startup.StartupTrace;
+import java.io.File;
 import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.concurrent.Executor;
 
 public class BShopApplication extends Application {
-    private AppDatabase database;
-    private UserRepository userRepository;
-    private ProductRepository productRepository;
-    private CartRepository cartRepository;
-    private CategoryRepository categoryRepository;
-    private ReviewRepository reviewRepository;
-    private OrderRepository orderRepository;
-    private UserManager userManager;
-    private SecurityInterceptor securityInterceptor;
+    private AppExecutors executors;
+    private QueryMetrics queryMetrics;
+    private StartupGraph graph;
+
+    // Built on first use or by the warm-up in onCreate
+    private StartupGraph.Node<AppDatabase> database;
+    private StartupGraph.Node<UserManager> userManager;
+    private StartupGraph.Node<UserRepository> userRepository;
+    private StartupGraph.Node<CategoryRepository> categoryRepository;
+    private StartupGraph.Node<CartRepository> cartRepository;
+    private StartupGraph.Node<ProductRepository> productRepository;
+    private StartupGraph.Node<ReviewRepository> reviewRepository;
+    private StartupGraph.Node<OrderRepository> orderRepository;
+    private StartupGraph.Node<InventoryRepository> inventoryRepository;
+    private StartupGraph.Node<SecurityInterceptor> securityInterceptor;
     
     private static final String DEFAULT_ADMIN_EMAIL = "admin@bshop.com";
     private static final int GENERATED_PASSWORD_LENGTH = 12;
+    private static final String AUDIT_ARCHIVE_DIR = "audit_archive";
     private static final String TAG = "BShopApplication";
+    private static final int LOGGED_STATEMENTS = 10;
 
     @Override
     public void onCreate() {
+        long startNanos = System.nanoTime();
         super.onCreate();
-        initializeComponents();
-        setupAdminUser();
+        // Shared thread pools, everything runs its background work on them.
+        // Their threads start with the first task, so this is cheap.
+        executors = new AppExecutors();
+        queryMetrics = QueryMetrics.getInstance();
+        graph = new StartupGraph(new StartupTrace(startNanos));
+        declareComponents(graph);
+        startBackgroundWork();
+        graph.getTrace().record("Application.onCreate", startNanos, System.nanoTime());
     }
 
-    private void initializeComponents() {
-        // Initialize database
-        database = Room.databaseBuilder(getApplicationContext(),
-                AppDatabase.class, "bshop_db")
-                .addMigrations(AppDatabase.MIGRATION_3_4)
-                .build();
+    /**
+     * Declares every component with what it needs. Nothing is built here, so adding a
+     * repository does not slow down the main thread.
+     */
+    private void declareComponents(StartupGraph graph) {
+        // The one database of the app, every statement is timed into the shared QueryMetrics
+        database = graph.add("AppDatabase", g -> AppDatabase.getInstance(this, executors));
+        userManager = graph.add("UserManager", g -> UserManager.getInstance(this));
 
-        // Initialize repositories and managers
-        // Initialize UserManager first
-        userManager = UserManager.getInstance(this);
+        userRepository = graph.add("UserRepository", g -> new UserRepository(
+            g.get(database).userDao(),
+            executors,
+            new AuditLogRetention(AuditLogRetention.DEFAULT_RETENTION_DAYS,
+                new File(getFilesDir(), AUDIT_ARCHIVE_DIR))
+        ), database);
+        categoryRepository = graph.add("CategoryRepository",
+            g -> new CategoryRepository(g.get(database).categoryDao()), database);
+        cartRepository = graph.add("CartRepository", g -> new CartRepository(
+            g.get(database).cartDao(),
+            g.get(database).productDao(),
+            g.get(userManager),
+            executors
+        ), database, userManager);
+        productRepository = graph.add("ProductRepository", g -> new ProductRepository(
+            g.get(database).productDao(),
+            g.get(database).getInvalidationTracker(),
+            g.get(cartRepository),
+            g.get(userManager),
+            executors
+        ), database, cartRepository, userManager);
+        reviewRepository = graph.add("ReviewRepository", g -> {
+            ReviewRepository reviews = new ReviewRepository(
+                g.get(database).reviewDao(),
+                g.get(database).userDao(),
+                g.get(userManager),
+                executors
+            );
+            // Renamed or blocked reviewers must not keep their cached profile
+            g.get(userRepository).addProfileChangeListener(reviews::evictReviewerProfile);
+            return reviews;
+        }, database, userManager, userRepository);
+        orderRepository = graph.add("OrderRepository", g -> new OrderRepository(
+            g.get(database).orderDao(), g.get(database).checkoutDao(), executors), database);
+        inventoryRepository = graph.add("InventoryRepository",
+            g -> new InventoryRepository(g.get(database).inventoryDao(), executors), database);
 
-        // Initialize repositories in dependency order
-        userRepository = new UserRepository(database.userDao());
-        categoryRepository = new CategoryRepository(database.categoryDao());
-        
-        // Initialize cartRepository before productRepository since product depends on cart
-        cartRepository = new CartRepository(
-            database.cartDao(),
-            database.productDao(),
-            userManager
-        );
-        
-        productRepository = new ProductRepository(
-            database.productDao(),
-            cartRepository,
-            userManager
-        );
-        
-        reviewRepository = new ReviewRepository(
-            database.reviewDao(),
-            database.userDao(),
-            database.productDao(),
-            userManager,
-            cartRepository
-        );
-        
-        orderRepository = new OrderRepository(database.orderDao());
+        securityInterceptor = graph.add("SecurityInterceptor",
+            g -> new SecurityInterceptor(g.get(userManager), g.get(userRepository)),
+            userManager, userRepository);
+    }
 
-        // Initialize security components
-        securityInterceptor = new SecurityInterceptor(userManager, userRepository);
+    private void startBackgroundWork() {
+        Executor io = executors.io();
+        Executor background = task -> executors.dbWrite().execute(task, TaskPriority.BACKGROUND);
+
+        // What the login and home screens ask for first
+        graph.warmUp(io, userManager, userRepository, categoryRepository, productRepository);
+        // Opening runs the migrations, do it before the first screen queries
+        graph.whenReady("OpenDatabase", io,
+            () -> graph.get(database).getOpenHelper().getWritableDatabase(), database);
+        graph.whenReady("AdminUserSetup", background, this::setupAdminUser, database);
+        graph.whenReady("RatingReconcile", io,
+            () -> graph.get(reviewRepository).reconcileRatingStats(), reviewRepository);
+        graph.whenReady("ExpirySweeper", io,
+            () -> graph.get(inventoryRepository).startExpirySweeper(), inventoryRepository);
     }
 
+    // Runs on the write thread
     private void setupAdminUser() {
-        // Run in background thread
-        new Thread(() -> {
-            try {
-                // Check if admin user exists
-                if (database.userDao().getCountByRole(UserRole.ADMIN) == 0) {
-                    // Generate a secure random password
-                    String adminPassword = generateSecurePassword();
-                    
-                    // Create admin user
-                    database.ensureAdminExists(DEFAULT_ADMIN_EMAIL, adminPassword);
-
-                    // Log the admin credentials (in production, send this securely to the system owner)
-                    logAdminCredentials(DEFAULT_ADMIN_EMAIL, adminPassword);
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to setup admin user", e);
+        try {
+            AppDatabase db = graph.get(database);
+            // Check if admin user exists
+            if (db.userDao().getCountByRole(UserRole.ADMIN) == 0) {
+                // Generate a secure random password
+                String adminPassword = generateSecurePassword();
+
+                // Create admin user
+                db.ensureAdminExists(DEFAULT_ADMIN_EMAIL, adminPassword);
+
+                // Log the admin credentials (in production, send this securely to the system owner)
+                logAdminCredentials(DEFAULT_ADMIN_EMAIL, adminPassword);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to setup admin user", e);
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level == TRIM_MEMORY_UI_HIDDEN) {
+            executors.logStats();
+            queryMetrics.logStats(LOGGED_STATEMENTS);
+            graph.getTrace().log();
+            // Only components in use have anything to flush
+            UserManager users = graph.peek(userManager);
+            if (users != null) {
+                users.flushActivity();
+            }
+            CartRepository cart = graph.peek(cartRepository);
+            if (cart != null) {
+                cart.flushQuantities();
+            }
+            UserRepository userRepo = graph.peek(userRepository);
+            if (userRepo != null) {
+                userRepo.flushAuditLog();
+                userRepo.compactAuditLog();
             }
-        }).start();
+            ReviewRepository reviews = graph.peek(reviewRepository);
+            if (reviews != null) {
+                // A no-op while a pass is queued or after a recent one
+                reviews.reconcileRatingStats();
+            }
+        }
     }
 
     private String generateSecurePassword() {
@@ -136,39 +211,61 @@ public class BShopApplication extends Application {
             email, password));
     }
 
+    public AppExecutors getExecutors() {
+        return executors;
+    }
+
     public AppDatabase getDatabase() {
-        return database;
+        return graph.get(database);
+    }
+
+    /**
+     * Query timings per statement and per DAO, for the admin dashboard and tests.
+     */
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
+    /**
+     * When each component was built and on which thread, since the start of onCreate.
+     */
+    public StartupTrace getStartupTrace() {
+        return graph.getTrace();
     }
 
     public UserRepository getUserRepository() {
-        return userRepository;
+        return graph.get(userRepository);
     }
 
     public ProductRepository getProductRepository() {
-        return productRepository;
+        return graph.get(productRepository);
     }
 
     public CartRepository getCartRepository() {
-        return cartRepository;
+        return graph.get(cartRepository);
     }
 
     public CategoryRepository getCategoryRepository() {
-        return categoryRepository;
+        return graph.get(categoryRepository);
     }
 
     public ReviewRepository getReviewRepository() {
-        return reviewRepository;
+        return graph.get(reviewRepository);
     }
 
     public OrderRepository getOrderRepository() {
-        return orderRepository;
+        return graph.get(orderRepository);
+    }
+
+    public InventoryRepository getInventoryRepository() {
+        return graph.get(inventoryRepository);
     }
 
     public UserManager getUserManager() {
-        return userManager;
+        return graph.get(userManager);
     }
 
     public SecurityInterceptor getSecurityInterceptor() {
-        return securityInterceptor;
+        return graph.get(securityInterceptor);
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.example.b_shop.data.local;
 
 import android.content.Context;
+import android.database.Cursor;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
@@ -12,6 +13,11 @@ import com.example.b_shop.data.local.converters.StringListConverter;
 import com.example.b_shop.data.local.converters.UserRoleConverter;
 import com.example.b_shop.data.local.dao.*;
 import com.example.b_shop.data.local.entities.*;
+import com.example.b_shop.data.local.metrics.InstrumentedOpenHelperFactory;
+import com.example.b_shop.data.local.metrics.QueryMetrics;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import java.util.ArrayList;
+import java.util.List;
 
 @Database(
     entities = {
@@ -23,9 +29,14 @@ import com.example.b_shop.data.local.entities.*;
         OrderItem.class,
         UserFavorite.class,
         CartItem.class,
-        UserAuditLog.class
+        UserAuditLog.class,
+        ProductFts.class,
+        ProductRatingStats.class,
+        AuditLogDailySummary.class,
+        InventoryReservation.class,
+        ProductFacetCount.class
     },
-    version = 4,
+    version = 15,
     exportSchema = false
 )
 @TypeConverters({
@@ -44,6 +55,8 @@ public abstract class AppDatabase extends RoomDatabase {
     public abstract ReviewDao reviewDao();
     public abstract OrderDao orderDao();
     public abstract CartDao cartDao();
+    public abstract CheckoutDao checkoutDao();
+    public abstract InventoryDao inventoryDao();
 
     // Migration from version 3 to 4 (adding admin functionality)
     public static final Migration MIGRATION_3_4 = new Migration(3, 4) {
@@ -75,20 +88,485 @@ public abstract class AppDatabase extends RoomDatabase {
         }
     };
 
-    public static synchronized AppDatabase getInstance(Context context) {
+    // Migration from version 4 to 5 (full-text search over products)
+    public static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // External content FTS table, same definition Room generates for ProductFts
+            database.execSQL(
+                "CREATE VIRTUAL TABLE IF NOT EXISTS `products_fts` USING FTS4(" +
+                "`name` TEXT, `description` TEXT, " +
+                "tokenize=unicode61, content=`products`, prefix=`2,3`)"
+            );
+
+            createProductFtsTriggers(database);
+
+            // Index the products that already exist
+            database.execSQL("INSERT INTO `products_fts`(`products_fts`) VALUES ('rebuild')");
+        }
+    };
+
+    // Migration from version 5 to 6 (stored rating aggregates)
+    public static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `product_rating_stats` (" +
+                "`productId` INTEGER NOT NULL, " +
+                "`ratingSum` INTEGER NOT NULL DEFAULT 0, " +
+                "`reviewCount` INTEGER NOT NULL DEFAULT 0, " +
+                "`oneStar` INTEGER NOT NULL DEFAULT 0, " +
+                "`twoStars` INTEGER NOT NULL DEFAULT 0, " +
+                "`threeStars` INTEGER NOT NULL DEFAULT 0, " +
+                "`fourStars` INTEGER NOT NULL DEFAULT 0, " +
+                "`fiveStars` INTEGER NOT NULL DEFAULT 0, " +
+                "PRIMARY KEY(`productId`), " +
+                "FOREIGN KEY(`productId`) REFERENCES `products`(`productId`) " +
+                "ON UPDATE NO ACTION ON DELETE CASCADE)"
+            );
+
+            // Seed the aggregates from the existing reviews
+            database.execSQL(
+                "INSERT INTO `product_rating_stats` " +
+                "(productId, ratingSum, reviewCount, oneStar, twoStars, threeStars, fourStars, fiveStars) " +
+                "SELECT productId, SUM(rating), COUNT(*), " +
+                "COUNT(CASE WHEN rating = 1 THEN 1 END), " +
+                "COUNT(CASE WHEN rating = 2 THEN 1 END), " +
+                "COUNT(CASE WHEN rating = 3 THEN 1 END), " +
+                "COUNT(CASE WHEN rating = 4 THEN 1 END), " +
+                "COUNT(CASE WHEN rating = 5 THEN 1 END) " +
+                "FROM reviews GROUP BY productId"
+            );
+            database.execSQL(
+                "UPDATE products SET " +
+                "rating = IFNULL((SELECT CAST(s.ratingSum AS REAL) / s.reviewCount " +
+                "FROM product_rating_stats s WHERE s.productId = products.productId), 0), " +
+                "reviewCount = IFNULL((SELECT s.reviewCount " +
+                "FROM product_rating_stats s WHERE s.productId = products.productId), 0)"
+            );
+        }
+    };
+
+    // Migration from version 6 to 7 (review feed orders)
+    public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE reviews ADD COLUMN helpfulCount INTEGER NOT NULL DEFAULT 0");
+
+            // The feed indices all lead with productId, so the single column index is redundant
+            database.execSQL("DROP INDEX IF EXISTS `index_reviews_productId`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_reviews_productId_createdAt_reviewId` " +
+                "ON `reviews` (`productId`, `createdAt`, `reviewId`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_reviews_productId_helpfulCount_reviewId` " +
+                "ON `reviews` (`productId`, `helpfulCount`, `reviewId`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_reviews_productId_rating_createdAt_reviewId` " +
+                "ON `reviews` (`productId`, `rating`, `createdAt`, `reviewId`)");
+        }
+    };
+
+    // Migration from version 7 to 8 (audit log retention)
+    public static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `audit_log_daily_summary` (" +
+                "`adminId` INTEGER NOT NULL, " +
+                "`day` INTEGER NOT NULL, " +
+                "`userId` INTEGER NOT NULL, " +
+                "`action` TEXT NOT NULL, " +
+                "`actionCount` INTEGER NOT NULL, " +
+                "PRIMARY KEY(`adminId`, `day`, `userId`, `action`))"
+            );
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_audit_log_daily_summary_userId_day` " +
+                "ON `audit_log_daily_summary` (`userId`, `day`)");
+
+            // Per-user and per-admin audit queries sort by time
+            database.execSQL("DROP INDEX IF EXISTS `index_user_audit_log_userId`");
+            database.execSQL("DROP INDEX IF EXISTS `index_user_audit_log_adminId`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_user_audit_log_userId_timestamp` " +
+                "ON `user_audit_log` (`userId`, `timestamp`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_user_audit_log_adminId_timestamp` " +
+                "ON `user_audit_log` (`adminId`, `timestamp`)");
+        }
+    };
+
+    // Migration from version 8 to 9 (binary image lists)
+    public static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // images changes from TEXT to BLOB, which SQLite can only do by rebuilding the tables.
+            // Row ids are kept, so the FTS index and the foreign keys pointing at them stay valid.
+            database.execSQL(
+                "CREATE TABLE `products_new` (" +
+                "`productId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "`name` TEXT, `description` TEXT, `price` REAL NOT NULL, " +
+                "`categoryId` INTEGER NOT NULL, `imagePath` TEXT, `stock` INTEGER NOT NULL, " +
+                "`rating` REAL NOT NULL, `reviewCount` INTEGER NOT NULL, `images` BLOB, " +
+                "FOREIGN KEY(`categoryId`) REFERENCES `categories`(`categoryId`) " +
+                "ON UPDATE NO ACTION ON DELETE CASCADE)"
+            );
+            database.execSQL(
+                "INSERT INTO `products_new` (productId, name, description, price, categoryId, " +
+                "imagePath, stock, rating, reviewCount, images) " +
+                "SELECT productId, name, description, price, categoryId, " +
+                "imagePath, stock, rating, reviewCount, images FROM `products`"
+            );
+            convertImageLists(database, "products_new", "productId");
+            // Dropping products also drops its FTS sync triggers
+            database.execSQL("DROP TABLE `products`");
+            database.execSQL("ALTER TABLE `products_new` RENAME TO `products`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_products_categoryId` " +
+                "ON `products` (`categoryId`)");
+            createProductFtsTriggers(database);
+
+            database.execSQL(
+                "CREATE TABLE `reviews_new` (" +
+                "`reviewId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "`userId` INTEGER NOT NULL, `productId` INTEGER NOT NULL, `rating` INTEGER NOT NULL, " +
+                "`comment` TEXT, `createdAt` INTEGER, `helpfulCount` INTEGER NOT NULL DEFAULT 0, " +
+                "`reviewerName` TEXT, `reviewerAvatarUrl` TEXT, `images` BLOB, " +
+                "FOREIGN KEY(`userId`) REFERENCES `users`(`userId`) " +
+                "ON UPDATE NO ACTION ON DELETE CASCADE, " +
+                "FOREIGN KEY(`productId`) REFERENCES `products`(`productId`) " +
+                "ON UPDATE NO ACTION ON DELETE CASCADE)"
+            );
+            database.execSQL(
+                "INSERT INTO `reviews_new` (reviewId, userId, productId, rating, comment, createdAt, " +
+                "helpfulCount, reviewerName, reviewerAvatarUrl, images) " +
+                "SELECT reviewId, userId, productId, rating, comment, createdAt, " +
+                "helpfulCount, reviewerName, reviewerAvatarUrl, images FROM `reviews`"
+            );
+            convertImageLists(database, "reviews_new", "reviewId");
+            database.execSQL("DROP TABLE `reviews`");
+            database.execSQL("ALTER TABLE `reviews_new` RENAME TO `reviews`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_reviews_userId` ON `reviews` (`userId`)");
+            database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_reviews_userId_productId` " +
+                "ON `reviews` (`userId`, `productId`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_reviews_productId_createdAt_reviewId` " +
+                "ON `reviews` (`productId`, `createdAt`, `reviewId`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_reviews_productId_helpfulCount_reviewId` " +
+                "ON `reviews` (`productId`, `helpfulCount`, `reviewId`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_reviews_productId_rating_createdAt_reviewId` " +
+                "ON `reviews` (`productId`, `rating`, `createdAt`, `reviewId`)");
+        }
+    };
+
+    // Migration from version 9 to 10 (stock holds)
+    public static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Existing cart lines have no hold, checkout takes their stock when the order is placed
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `inventory_reservations` (" +
+                "`userId` INTEGER NOT NULL, " +
+                "`productId` INTEGER NOT NULL, " +
+                "`quantity` INTEGER NOT NULL, " +
+                "`expiresAt` INTEGER NOT NULL, " +
+                "PRIMARY KEY(`userId`, `productId`), " +
+                "FOREIGN KEY(`userId`) REFERENCES `users`(`userId`) " +
+                "ON UPDATE NO ACTION ON DELETE CASCADE, " +
+                "FOREIGN KEY(`productId`) REFERENCES `products`(`productId`) " +
+                "ON UPDATE NO ACTION ON DELETE CASCADE)"
+            );
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_inventory_reservations_productId` " +
+                "ON `inventory_reservations` (`productId`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_inventory_reservations_expiresAt` " +
+                "ON `inventory_reservations` (`expiresAt`)");
+        }
+    };
+
+    // Migration from version 10 to 11 (per-category product counters)
+    public static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE categories ADD COLUMN productCount INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE categories ADD COLUMN inStockCount INTEGER NOT NULL DEFAULT 0");
+            database.execSQL(
+                "UPDATE categories SET " +
+                "productCount = (SELECT COUNT(*) FROM products p " +
+                "WHERE p.categoryId = categories.categoryId), " +
+                "inStockCount = (SELECT COUNT(*) FROM products p " +
+                "WHERE p.categoryId = categories.categoryId AND p.stock > 0)"
+            );
+            createCategoryCounterTriggers(database);
+        }
+    };
+
+    // Migration from version 11 to 12 (per-category carousels)
+    public static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Also serves the categoryId foreign key, so the single column index goes
+            database.execSQL("DROP INDEX IF EXISTS `index_products_categoryId`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_products_categoryId_rating` " +
+                "ON `products` (`categoryId`, `rating`)");
+        }
+    };
+
+    // Migration from version 12 to 13 (indices for the hot list queries)
+    public static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Each single column index below is the prefix of its replacement
+            database.execSQL("DROP INDEX IF EXISTS `index_cart_items_userId`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_cart_items_userId_addedAt` " +
+                "ON `cart_items` (`userId`, `addedAt`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_cart_items_userId_productId` " +
+                "ON `cart_items` (`userId`, `productId`)");
+
+            database.execSQL("DROP INDEX IF EXISTS `index_orders_userId`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_orders_userId_orderDate` " +
+                "ON `orders` (`userId`, `orderDate`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_orders_status_orderDate` " +
+                "ON `orders` (`status`, `orderDate`)");
+
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_users_role_lastLogin` " +
+                "ON `users` (`role`, `lastLogin`)");
+
+            database.execSQL("DROP INDEX IF EXISTS `index_reviews_userId`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_reviews_userId_createdAt` " +
+                "ON `reviews` (`userId`, `createdAt`)");
+
+            // Keyset pages by category need (categoryId, productId) order, which the
+            // (categoryId, rating) index cannot give
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_products_categoryId` " +
+                "ON `products` (`categoryId`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_products_rating` " +
+                "ON `products` (`rating`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_products_price` " +
+                "ON `products` (`price`)");
+        }
+    };
+
+    // Migration from version 13 to 14 (facet counts for product filtering)
+    public static final Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `product_facet_counts` (" +
+                "`categoryId` INTEGER NOT NULL, " +
+                "`priceBucket` INTEGER NOT NULL, " +
+                "`ratingBucket` INTEGER NOT NULL, " +
+                "`inStock` INTEGER NOT NULL, " +
+                "`productCount` INTEGER NOT NULL, " +
+                "PRIMARY KEY(`categoryId`, `priceBucket`, `ratingBucket`, `inStock`))"
+            );
+            database.execSQL(
+                "INSERT INTO product_facet_counts " +
+                "(categoryId, priceBucket, ratingBucket, inStock, productCount) " +
+                "SELECT categoryId, " + ProductFacetCount.priceBucketSql("price") + ", " +
+                ProductFacetCount.ratingBucketSql("rating") + ", stock > 0, COUNT(*) " +
+                "FROM products GROUP BY 1, 2, 3, 4"
+            );
+            createProductFacetTriggers(database);
+        }
+    };
+
+    // Migration from version 14 to 15 (stored order item counts)
+    public static final Migration MIGRATION_14_15 = new Migration(14, 15) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE orders ADD COLUMN itemCount INTEGER NOT NULL DEFAULT 0");
+            database.execSQL(
+                "UPDATE orders SET itemCount = " +
+                "(SELECT COUNT(*) FROM order_items oi WHERE oi.orderId = orders.orderId)"
+            );
+        }
+    };
+
+    /**
+     * Creates the triggers Room cannot declare on fresh installs.
+     * Every builder of this database must add it.
+     */
+    public static final RoomDatabase.Callback CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onCreate(SupportSQLiteDatabase database) {
+            createCategoryCounterTriggers(database);
+            createProductFacetTriggers(database);
+        }
+    };
+
+    // Keep categories.productCount and inStockCount in step with every product write, in the same
+    // transaction. Stock updates only touch categories when a product runs out or comes back.
+    // Rebuilding the products table drops these, recreate them after any rebuild.
+    private static void createCategoryCounterTriggers(SupportSQLiteDatabase database) {
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS category_counts_product_insert " +
+            "AFTER INSERT ON products BEGIN " +
+            "UPDATE categories SET productCount = productCount + 1, " +
+            "inStockCount = inStockCount + (NEW.stock > 0) " +
+            "WHERE categoryId = NEW.categoryId; END"
+        );
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS category_counts_product_delete " +
+            "AFTER DELETE ON products BEGIN " +
+            "UPDATE categories SET productCount = productCount - 1, " +
+            "inStockCount = inStockCount - (OLD.stock > 0) " +
+            "WHERE categoryId = OLD.categoryId; END"
+        );
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS category_counts_product_update " +
+            "AFTER UPDATE OF categoryId, stock ON products " +
+            "WHEN OLD.categoryId != NEW.categoryId OR (OLD.stock > 0) != (NEW.stock > 0) BEGIN " +
+            "UPDATE categories SET productCount = productCount - 1, " +
+            "inStockCount = inStockCount - (OLD.stock > 0) " +
+            "WHERE categoryId = OLD.categoryId; " +
+            "UPDATE categories SET productCount = productCount + 1, " +
+            "inStockCount = inStockCount + (NEW.stock > 0) " +
+            "WHERE categoryId = NEW.categoryId; END"
+        );
+    }
+
+    // Move each product between product_facet_counts rows as it is added, removed or changes
+    // bucket. Rows that drop to zero are deleted so the table only holds combinations in use.
+    // Rebuilding the products table drops these, recreate them after any rebuild.
+    private static void createProductFacetTriggers(SupportSQLiteDatabase database) {
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS product_facets_product_insert " +
+            "AFTER INSERT ON products BEGIN " +
+            addToFacet("NEW") + "; END"
+        );
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS product_facets_product_delete " +
+            "AFTER DELETE ON products BEGIN " +
+            removeFromFacet("OLD") + "; END"
+        );
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS product_facets_product_update " +
+            "AFTER UPDATE OF categoryId, price, rating, stock ON products " +
+            "WHEN OLD.categoryId != NEW.categoryId " +
+            "OR " + ProductFacetCount.priceBucketSql("OLD.price") + " != " +
+            ProductFacetCount.priceBucketSql("NEW.price") + " " +
+            "OR " + ProductFacetCount.ratingBucketSql("OLD.rating") + " != " +
+            ProductFacetCount.ratingBucketSql("NEW.rating") + " " +
+            "OR (OLD.stock > 0) != (NEW.stock > 0) BEGIN " +
+            removeFromFacet("OLD") + "; " + addToFacet("NEW") + "; END"
+        );
+    }
+
+    // No UPSERT before SQLite 3.24, create the row at zero then add to it
+    private static String addToFacet(String row) {
+        return "INSERT OR IGNORE INTO product_facet_counts " +
+            "(categoryId, priceBucket, ratingBucket, inStock, productCount) VALUES (" +
+            row + ".categoryId, " + ProductFacetCount.priceBucketSql(row + ".price") + ", " +
+            ProductFacetCount.ratingBucketSql(row + ".rating") + ", " + row + ".stock > 0, 0); " +
+            "UPDATE product_facet_counts SET productCount = productCount + 1 WHERE " + facetKey(row);
+    }
+
+    private static String removeFromFacet(String row) {
+        return "UPDATE product_facet_counts SET productCount = productCount - 1 WHERE " +
+            facetKey(row) + "; " +
+            "DELETE FROM product_facet_counts WHERE productCount <= 0 AND " + facetKey(row);
+    }
+
+    private static String facetKey(String row) {
+        return "categoryId = " + row + ".categoryId " +
+            "AND priceBucket = " + ProductFacetCount.priceBucketSql(row + ".price") + " " +
+            "AND ratingBucket = " + ProductFacetCount.ratingBucketSql(row + ".rating") + " " +
+            "AND inStock = (" + row + ".stock > 0)";
+    }
+
+    // Sync triggers, named the way Room names them so fresh installs and migrated ones match
+    private static void createProductFtsTriggers(SupportSQLiteDatabase database) {
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_products_fts_BEFORE_UPDATE " +
+            "BEFORE UPDATE ON `products` BEGIN " +
+            "DELETE FROM `products_fts` WHERE `docid`=OLD.`rowid`; END"
+        );
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_products_fts_BEFORE_DELETE " +
+            "BEFORE DELETE ON `products` BEGIN " +
+            "DELETE FROM `products_fts` WHERE `docid`=OLD.`rowid`; END"
+        );
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_products_fts_AFTER_UPDATE " +
+            "AFTER UPDATE ON `products` BEGIN " +
+            "INSERT INTO `products_fts`(`docid`, `name`, `description`) " +
+            "VALUES (NEW.`rowid`, NEW.`name`, NEW.`description`); END"
+        );
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_products_fts_AFTER_INSERT " +
+            "AFTER INSERT ON `products` BEGIN " +
+            "INSERT INTO `products_fts`(`docid`, `name`, `description`) " +
+            "VALUES (NEW.`rowid`, NEW.`name`, NEW.`description`); END"
+        );
+    }
+
+    // Rewrites JSON text image lists in the binary format, a few hundred rows at a time
+    private static void convertImageLists(SupportSQLiteDatabase database, String table, String idColumn) {
+        final int batchSize = 500;
+        long afterId = 0;
+        while (true) {
+            List<Long> ids = new ArrayList<>(batchSize);
+            List<byte[]> encoded = new ArrayList<>(batchSize);
+            try (Cursor cursor = database.query(
+                    "SELECT `" + idColumn + "`, images FROM `" + table + "` " +
+                    "WHERE `" + idColumn + "` > ? AND images IS NOT NULL " +
+                    "ORDER BY `" + idColumn + "` LIMIT " + batchSize,
+                    new Object[] {afterId})) {
+                while (cursor.moveToNext()) {
+                    ids.add(cursor.getLong(0));
+                    encoded.add(StringListConverter.fromStringList(
+                        StringListConverter.fromJson(cursor.getString(1))));
+                }
+            }
+            for (int i = 0; i < ids.size(); i++) {
+                database.execSQL(
+                    "UPDATE `" + table + "` SET images = ? WHERE `" + idColumn + "` = ?",
+                    new Object[] {encoded.get(i), ids.get(i)});
+            }
+            if (ids.size() < batchSize) {
+                return;
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+
+    public static final Migration[] MIGRATIONS = {
+        MIGRATION_3_4,
+        MIGRATION_4_5,
+        MIGRATION_5_6,
+        MIGRATION_6_7,
+        MIGRATION_7_8,
+        MIGRATION_8_9,
+        MIGRATION_9_10,
+        MIGRATION_10_11,
+        MIGRATION_11_12,
+        MIGRATION_12_13,
+        MIGRATION_13_14,
+        MIGRATION_14_15
+    };
+
+    /**
+     * The app's one database, built on first use. Later calls get the same instance,
+     * whatever executors they pass.
+     */
+    public static synchronized AppDatabase getInstance(Context context, AppExecutors executors) {
         if (instance == null) {
-            instance = create(context);
+            instance = builder(context, DATABASE_NAME, executors).build();
         }
         return instance;
     }
 
-    private static AppDatabase create(Context context) {
+    /**
+     * Builder with everything the app's database needs: migrations, triggers, statement
+     * timing into {@link QueryMetrics}, WAL so reads run next to the writer, and Room's
+     * background work on the app pools. LiveData loads go to {@code dbQuery()}, and so do
+     * {@code @Transaction} LiveData queries, which Room runs on its transaction executor;
+     * on {@code dbWrite()} those screen reads would queue behind every write. The writes the
+     * repositories submit keep the single {@code dbWrite()} thread to themselves.
+     */
+    static RoomDatabase.Builder<AppDatabase> builder(Context context, String name, AppExecutors executors) {
         return Room.databaseBuilder(
             context.getApplicationContext(),
             AppDatabase.class,
-            DATABASE_NAME)
-            .addMigrations(MIGRATION_3_4) // Add migration instead of destructive fallback
-            .build();
+            name)
+            .addMigrations(MIGRATIONS) // Add migrations instead of destructive fallback
+            .addCallback(CALLBACK)
+            .openHelperFactory(new InstrumentedOpenHelperFactory(QueryMetrics.getInstance()))
+            .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+            .setQueryExecutor(executors.dbQuery())
+            .setTransactionExecutor(executors.dbQuery());
     }
 
     // Helper method to clear all tables
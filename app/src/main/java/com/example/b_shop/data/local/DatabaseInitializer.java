@@ -7,24 +7,25 @@ import com.example.b_shop.data.local.entities.Category;
 import com.example.b_shop.data.local.entities.Product;
 import com.example.b_shop.data.local.entities.User;
 import com.example.b_shop.data.local.entities.UserRole;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import com.example.b_shop.utils.SecurityUtils;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import com.example.b_shop.utils.concurrent.SerialExecutor;
+import com.example.b_shop.utils.concurrent.TaskPriority;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class DatabaseInitializer {
     private static final String TAG = "DatabaseInitializer";
     private final AppDatabase database;
     private final Context context;
-    private final ExecutorService executorService;
+    private final SerialExecutor executorService;
 
-    public DatabaseInitializer(Context context, AppDatabase database) {
+    public DatabaseInitializer(Context context, AppDatabase database, AppExecutors executors) {
         this.context = context;
         this.database = database;
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.executorService = executors.newSerialExecutor(executors.dbWrite(), TaskPriority.BACKGROUND);
     }
 
     public void initialize() {
@@ -105,7 +106,7 @@ public class DatabaseInitializer {
     }
 
     public void cleanup() {
-        executorService.shutdown();
+        executorService.clear();
     }
 
     /**
@@ -113,17 +114,7 @@ public class DatabaseInitializer {
      */
     public static String hashPassword(String password) {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(password.getBytes());
-            StringBuilder hexString = new StringBuilder();
-            
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            
-            return hexString.toString();
+            return SecurityUtils.sha256Hex(password);
         } catch (NoSuchAlgorithmException e) {
             Log.e(TAG, "Error hashing password", e);
             throw new RuntimeException("Failed to hash password", e);
@@ -0,0 +1,66 @@
+package com.example.b_shop.data.local.converters;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.RandomAccess;
+
+/**
+ * String list read from the database that keeps the stored bytes
+ * and only decodes them when an element is first accessed.
+ * Mutable like the {@link ArrayList} it replaces, and like it not thread safe.
+ */
+final class LazyStringList extends AbstractList<String> implements RandomAccess {
+    // Cleared on the first modification, the bytes no longer match the list after that
+    private byte[] encoded;
+    private ArrayList<String> decoded;
+
+    LazyStringList(byte[] encoded) {
+        this.encoded = encoded;
+    }
+
+    private ArrayList<String> list() {
+        if (decoded == null) {
+            decoded = StringListConverter.decode(encoded);
+        }
+        return decoded;
+    }
+
+    /**
+     * The stored bytes, or null if the list has been modified since it was read.
+     */
+    byte[] getEncodedIfUnchanged() {
+        return encoded;
+    }
+
+    @Override
+    public String get(int index) {
+        return list().get(index);
+    }
+
+    @Override
+    public int size() {
+        return list().size();
+    }
+
+    @Override
+    public String set(int index, String element) {
+        String previous = list().set(index, element);
+        encoded = null;
+        return previous;
+    }
+
+    @Override
+    public void add(int index, String element) {
+        list().add(index, element);
+        encoded = null;
+        modCount++;
+    }
+
+    @Override
+    public String remove(int index) {
+        String removed = list().remove(index);
+        encoded = null;
+        modCount++;
+        return removed;
+    }
+}
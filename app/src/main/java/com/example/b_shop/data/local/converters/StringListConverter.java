@@ -1,44 +1,158 @@
 package com.example.b_shop.data.local.converters;
 
+import android.util.Log;
 import androidx.room.TypeConverter;
 import org.json.JSONArray;
 import org.json.JSONException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Stores string lists as a compact binary BLOB:
+ * a format byte, the element count, then each element as its UTF-8 length plus one
+ * (0 marks a null element) followed by the bytes. Counts and lengths are varints.
+ *
+ * Reading a row only wraps the bytes in a {@link LazyStringList}; the elements are
+ * decoded the first time the list is accessed, and written back untouched if it never was.
+ */
 public class StringListConverter {
+    private static final String TAG = "StringListConverter";
+    static final byte FORMAT_V1 = 1;
+
     @TypeConverter
-    public static String fromStringList(List<String> list) {
-        if (list == null) {
+    public static byte[] fromStringList(List<String> list) {
+        // Empty lists are stored as NULL, reads turn that back into an empty list
+        if (list == null || list.isEmpty()) {
             return null;
         }
-        try {
-            JSONArray jsonArray = new JSONArray();
-            for (String item : list) {
-                jsonArray.put(item);
+        if (list instanceof LazyStringList) {
+            byte[] unchanged = ((LazyStringList) list).getEncodedIfUnchanged();
+            if (unchanged != null) {
+                return unchanged;
             }
-            return jsonArray.toString();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
         }
+        return encode(list);
     }
 
     @TypeConverter
-    public static List<String> toStringList(String value) {
-        if (value == null) {
+    public static List<String> toStringList(byte[] value) {
+        if (value == null || value.length == 0) {
             return new ArrayList<>();
         }
+        return new LazyStringList(value);
+    }
+
+    static byte[] encode(List<String> list) {
+        int count = list.size();
+        byte[][] elements = new byte[count][];
+        int size = 1 + varintSize(count);
+        for (int i = 0; i < count; i++) {
+            String item = list.get(i);
+            if (item == null) {
+                size += 1;
+                continue;
+            }
+            byte[] bytes = item.getBytes(StandardCharsets.UTF_8);
+            elements[i] = bytes;
+            size += varintSize(bytes.length + 1) + bytes.length;
+        }
+
+        byte[] out = new byte[size];
+        out[0] = FORMAT_V1;
+        int pos = writeVarint(out, 1, count);
+        for (byte[] bytes : elements) {
+            if (bytes == null) {
+                out[pos++] = 0;
+                continue;
+            }
+            pos = writeVarint(out, pos, bytes.length + 1);
+            System.arraycopy(bytes, 0, out, pos, bytes.length);
+            pos += bytes.length;
+        }
+        return out;
+    }
+
+    static ArrayList<String> decode(byte[] data) {
+        if (data[0] != FORMAT_V1) {
+            // Not written by encode, only JSON text from before the binary format is expected here
+            return fromJson(new String(data, StandardCharsets.UTF_8));
+        }
+        try {
+            int[] pos = {1};
+            int count = readVarint(data, pos);
+            ArrayList<String> list = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int length = readVarint(data, pos) - 1;
+                if (length < 0) {
+                    list.add(null);
+                    continue;
+                }
+                if (length > data.length - pos[0]) {
+                    throw new IllegalArgumentException("Element runs past the end of the data");
+                }
+                list.add(new String(data, pos[0], length, StandardCharsets.UTF_8));
+                pos[0] += length;
+            }
+            return list;
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Malformed string list, reading it as empty", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Parses the JSON array text used before the binary format, for migrations and old rows.
+     */
+    public static ArrayList<String> fromJson(String value) {
+        ArrayList<String> list = new ArrayList<>();
+        if (value == null) {
+            return list;
+        }
         try {
-            List<String> list = new ArrayList<>();
             JSONArray jsonArray = new JSONArray(value);
             for (int i = 0; i < jsonArray.length(); i++) {
                 list.add(jsonArray.getString(i));
             }
-            return list;
         } catch (JSONException e) {
-            e.printStackTrace();
-            return new ArrayList<>();
+            Log.w(TAG, "Malformed JSON string list, reading it as empty", e);
+            list.clear();
+        }
+        return list;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarint(byte[] out, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int readVarint(byte[] data, int[] pos) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (pos[0] >= data.length) {
+                throw new IllegalArgumentException("Truncated varint");
+            }
+            byte b = data[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                if (value < 0) {
+                    throw new IllegalArgumentException("Negative varint");
+                }
+                return value;
+            }
         }
+        throw new IllegalArgumentException("Varint too long");
     }
-}
\ No newline at end of file
+}
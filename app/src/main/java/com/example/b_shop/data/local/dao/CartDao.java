@@ -10,13 +10,15 @@ import androidx.room.Transaction;
 import androidx.room.Update;
 
 import com.example.b_shop.data.local.entities.CartItem;
-import com.example.b_shop.data.local.entities.Product;
+import com.example.b_shop.data.local.entities.InventoryReservation;
 import com.example.b_shop.data.local.relations.CartItemWithProduct;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Dao
-public interface CartDao {
+public interface CartDao extends InventoryDao {
     @Query("SELECT * FROM cart_items WHERE userId = :userId ORDER BY addedAt DESC")
     LiveData<List<CartItem>> getCartItems(int userId);
 
@@ -39,6 +41,10 @@ public interface CartDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     long insertCartItem(CartItem item);
 
+    // Bulk load, bypasses the stock holds taken by validateAndAddToCart
+    @Insert
+    void insertCartItems(List<CartItem> items);
+
     @Update
     void updateCartItem(CartItem item);
 
@@ -54,42 +60,93 @@ public interface CartDao {
     @Query("UPDATE cart_items SET quantity = :quantity WHERE cartItemId = :cartItemId AND userId = :userId")
     void updateQuantity(int cartItemId, int userId, int quantity);
 
-    // Transaction to check if adding to cart would exceed available stock
+    @Query("SELECT stock FROM products WHERE productId = :productId")
+    Integer getProductStock(int productId);
+
+    /**
+     * Writes buffered quantities in one transaction, resizing each item's stock hold once.
+     * Items removed from the cart in the meantime are skipped.
+     * @param quantities New quantity by cart item id
+     * @return The updates that were not applied because stock ran short
+     */
     @Transaction
-    default boolean validateAndAddToCart(CartItem cartItem, Product product) {
-        android.util.Log.d("CartDao", "Starting validateAndAddToCart transaction");
-        
-        // Get existing cart item if any
+    default List<StockShortfall> applyQuantities(int userId, Map<Integer, Integer> quantities,
+                                                 long holdExpiresAt) {
+        List<StockShortfall> shortfalls = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+            CartItem item = getCartItemById(entry.getKey());
+            if (item == null || item.getUserId() != userId) {
+                continue;
+            }
+            int requested = entry.getValue();
+            if (!reserve(userId, item.getProductId(), requested, holdExpiresAt)) {
+                // What this user could have: the unheld stock plus their own hold
+                InventoryReservation hold = getReservation(userId, item.getProductId());
+                Integer stock = getProductStock(item.getProductId());
+                int available = (stock != null ? stock : 0) + (hold != null ? hold.getQuantity() : 0);
+                shortfalls.add(new StockShortfall(item.getCartItemId(), item.getProductId(),
+                    requested, available));
+                continue;
+            }
+            updateQuantity(item.getCartItemId(), userId, requested);
+        }
+        return shortfalls;
+    }
+
+    /**
+     * Adds to the user's cart line for the product, holding the stock for it.
+     * @return false, changing nothing, if there is not enough stock left
+     */
+    @Transaction
+    default boolean validateAndAddToCart(CartItem cartItem, long holdExpiresAt) {
         CartItem existingItem = getCartItemByProduct(cartItem.getUserId(), cartItem.getProductId());
         int totalQuantity = cartItem.getQuantity();
-        
         if (existingItem != null) {
-            android.util.Log.d("CartDao", "Found existing cart item, current quantity=" + existingItem.getQuantity());
             totalQuantity += existingItem.getQuantity();
-        } else {
-            android.util.Log.d("CartDao", "No existing cart item found");
         }
 
-        android.util.Log.d("CartDao", "Validating stock: requested=" + totalQuantity + ", available=" + product.getStock());
-        
-        // Check if total quantity would exceed available stock
-        if (totalQuantity > product.getStock()) {
-            android.util.Log.w("CartDao", "Stock validation failed: total quantity would exceed available stock");
+        // The hold re-checks stock inside this transaction, nothing read earlier is trusted
+        if (!reserve(cartItem.getUserId(), cartItem.getProductId(), totalQuantity, holdExpiresAt)) {
+            android.util.Log.w("CartDao", "Not enough stock to hold " + totalQuantity
+                + " of product " + cartItem.getProductId());
             return false;
         }
 
-        // If validation passes, insert or update the cart item
         if (existingItem != null) {
             existingItem.setQuantity(totalQuantity);
-            android.util.Log.d("CartDao", "Updating existing cart item to quantity=" + totalQuantity);
             updateCartItem(existingItem);
         } else {
-            android.util.Log.d("CartDao", "Inserting new cart item with quantity=" + cartItem.getQuantity());
-            long insertedId = insertCartItem(cartItem);
-            android.util.Log.d("CartDao", "New cart item inserted with ID=" + insertedId);
+            insertCartItem(cartItem);
         }
-        
-        android.util.Log.d("CartDao", "Transaction completed successfully");
         return true;
     }
+
+    @Transaction
+    default void removeCartItem(int cartItemId, int userId) {
+        CartItem item = getCartItemById(cartItemId);
+        if (item != null && item.getUserId() == userId) {
+            release(userId, item.getProductId());
+            deleteCartItemById(cartItemId, userId);
+        }
+    }
+
+    @Transaction
+    default void clearCartAndRelease(int userId) {
+        releaseAll(userId);
+        clearCart(userId);
+    }
+
+    class StockShortfall {
+        public final int cartItemId;
+        public final int productId;
+        public final int requested;
+        public final int available;
+
+        public StockShortfall(int cartItemId, int productId, int requested, int available) {
+            this.cartItemId = cartItemId;
+            this.productId = productId;
+            this.requested = requested;
+            this.available = available;
+        }
+    }
 }
\ No newline at end of file
@@ -3,10 +3,8 @@ package com.example.b_shop.data.local.dao;
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
-import androidx.room.Embedded;
 import androidx.room.Insert;
 import androidx.room.Query;
-import androidx.room.Update;
 import com.example.b_shop.data.local.entities.Category;
 import java.util.List;
 
@@ -18,8 +16,15 @@ public interface CategoryDao {
     @Insert
     void insertAll(List<Category> categories);
 
-    @Update
-    void update(Category category);
+    // Not an @Update, which would overwrite the trigger maintained counters with stale values
+    @Query("UPDATE categories SET name = :name, description = :description, imagePath = :imagePath " +
+           "WHERE categoryId = :categoryId")
+    void updateDetails(int categoryId, String name, String description, String imagePath);
+
+    default void update(Category category) {
+        updateDetails(category.getCategoryId(), category.getName(),
+            category.getDescription(), category.getImagePath());
+    }
 
     @Delete
     void delete(Category category);
@@ -36,15 +41,8 @@ public interface CategoryDao {
     @Query("SELECT COUNT(*) FROM categories")
     int getCategoryCount();
 
-    @Query("SELECT c.*, COUNT(p.productId) as productCount " +
-           "FROM categories c LEFT JOIN products p " +
-           "ON c.categoryId = p.categoryId " +
-           "GROUP BY c.categoryId")
-    LiveData<List<CategoryWithProductCount>> getCategoriesWithProductCount();
-
-    static class CategoryWithProductCount {
-        @Embedded
-        public Category category;
-        public int productCount;
-    }
+    // Counts are stored on the category, so this reads only the categories table
+    // and is not re-run when product rows change
+    @Query("SELECT * FROM categories")
+    LiveData<List<Category>> getCategoriesWithProductCount();
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.example.b_shop.data.local.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.b_shop.data.local.entities.CartItem;
+import com.example.b_shop.data.local.entities.InventoryReservation;
+import com.example.b_shop.data.local.entities.Order;
+import com.example.b_shop.data.local.entities.OrderItem;
+import com.example.b_shop.data.local.errors.CheckoutException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checkout spans cart_items, products, orders and order_items,
+ * so it lives in its own DAO where it can run as a single transaction.
+ */
+@Dao
+public interface CheckoutDao extends InventoryDao {
+    // Ordered by product so concurrent checkouts touch rows in the same order
+    @Query("SELECT * FROM cart_items WHERE userId = :userId ORDER BY productId")
+    List<CartItem> getCartItemsSync(int userId);
+
+    @Insert
+    long insertOrder(Order order);
+
+    @Insert
+    void insertOrderItems(List<OrderItem> orderItems);
+
+    @Query("DELETE FROM cart_items WHERE userId = :userId")
+    void clearCart(int userId);
+
+    /**
+     * Turns the user's cart into an order in one transaction:
+     * reads the cart snapshot, converts the stock hold of every line into the sale
+     * (taking any shortfall from unheld stock), inserts the order with all its items
+     * and clears the cart. Any failure rolls everything back.
+     * @return the id of the new order
+     * @throws CheckoutException if the cart is empty or a product is out of stock
+     */
+    @Transaction
+    default long placeOrder(int userId) {
+        List<CartItem> cartItems = getCartItemsSync(userId);
+        if (cartItems.isEmpty()) {
+            throw CheckoutException.emptyCart();
+        }
+
+        float total = 0f;
+        for (CartItem item : cartItems) {
+            // Expired holds not swept yet still have their stock set aside, so they count too
+            InventoryReservation hold = getReservation(userId, item.getProductId());
+            int delta = item.getQuantity() - (hold != null ? hold.getQuantity() : 0);
+            if (delta > 0 && takeStock(item.getProductId(), delta) == 0) {
+                throw CheckoutException.insufficientStock(item.getProductId(), item.getQuantity());
+            }
+            if (delta < 0) {
+                returnStock(item.getProductId(), -delta);
+            }
+            if (hold != null) {
+                deleteReservation(userId, item.getProductId());
+            }
+            total += item.getTotalPrice();
+        }
+        // Holds without a cart line left have nothing to convert into
+        releaseAll(userId);
+
+        Order order = new Order(userId, total);
+        order.setItemCount(cartItems.size());
+        long orderId = insertOrder(order);
+
+        List<OrderItem> orderItems = new ArrayList<>(cartItems.size());
+        for (CartItem item : cartItems) {
+            orderItems.add(new OrderItem(
+                (int) orderId,
+                item.getProductId(),
+                item.getQuantity(),
+                item.getItemPrice()
+            ));
+        }
+        insertOrderItems(orderItems);
+
+        clearCart(userId);
+        return orderId;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.b_shop.data.local.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.b_shop.data.local.entities.InventoryReservation;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stock holds. {@code products.stock} is what is left to sell: a hold takes its quantity out
+ * with a conditional update, so concurrent buyers can never take more than there is, and
+ * releasing or expiring a hold puts it back. Cart and checkout DAOs extend this one so their
+ * transactions can adjust holds together with the cart rows.
+ */
+@Dao
+public interface InventoryDao {
+    long HOLD_DURATION_MS = TimeUnit.MINUTES.toMillis(15);
+
+    @Query("SELECT * FROM inventory_reservations WHERE userId = :userId AND productId = :productId")
+    InventoryReservation getReservation(int userId, int productId);
+
+    @Query("SELECT * FROM inventory_reservations WHERE userId = :userId")
+    List<InventoryReservation> getReservations(int userId);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void saveReservation(InventoryReservation reservation);
+
+    @Query("DELETE FROM inventory_reservations WHERE userId = :userId AND productId = :productId")
+    int deleteReservation(int userId, int productId);
+
+    @Query("SELECT * FROM inventory_reservations WHERE expiresAt <= :now ORDER BY expiresAt LIMIT :limit")
+    List<InventoryReservation> getExpiredReservations(long now, int limit);
+
+    // Conditional decrement, returns 0 when there is not enough stock left
+    @Query("UPDATE products SET stock = stock - :quantity " +
+           "WHERE productId = :productId AND stock >= :quantity")
+    int takeStock(int productId, int quantity);
+
+    @Query("UPDATE products SET stock = stock + :quantity WHERE productId = :productId")
+    void returnStock(int productId, int quantity);
+
+    /**
+     * Sets the user's hold on a product to {@code quantity}, taking or returning only the difference.
+     * @return false, changing nothing, if there is not enough stock for the increase
+     */
+    @Transaction
+    default boolean reserve(int userId, int productId, int quantity, long expiresAt) {
+        InventoryReservation hold = getReservation(userId, productId);
+        int delta = quantity - (hold != null ? hold.getQuantity() : 0);
+        if (delta > 0 && takeStock(productId, delta) == 0) {
+            return false;
+        }
+        if (delta < 0) {
+            returnStock(productId, -delta);
+        }
+        saveReservation(new InventoryReservation(userId, productId, quantity, expiresAt));
+        return true;
+    }
+
+    @Transaction
+    default void release(int userId, int productId) {
+        InventoryReservation hold = getReservation(userId, productId);
+        if (hold != null) {
+            returnStock(productId, hold.getQuantity());
+            deleteReservation(userId, productId);
+        }
+    }
+
+    @Transaction
+    default void releaseAll(int userId) {
+        for (InventoryReservation hold : getReservations(userId)) {
+            returnStock(hold.getProductId(), hold.getQuantity());
+            deleteReservation(userId, hold.getProductId());
+        }
+    }
+
+    /**
+     * Returns the stock of up to {@code limit} expired holds.
+     * @return how many holds were released
+     */
+    @Transaction
+    default int releaseExpired(long now, int limit) {
+        List<InventoryReservation> expired = getExpiredReservations(now, limit);
+        for (InventoryReservation hold : expired) {
+            returnStock(hold.getProductId(), hold.getQuantity());
+            deleteReservation(hold.getUserId(), hold.getProductId());
+        }
+        return expired.size();
+    }
+}
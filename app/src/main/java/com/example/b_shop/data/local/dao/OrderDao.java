@@ -20,6 +20,27 @@ public interface OrderDao {
     @Insert
     long insertOrderItem(OrderItem orderItem);
 
+    // One compiled INSERT, bound once per item
+    @Insert
+    void insertOrderItems(List<OrderItem> orderItems);
+
+    /**
+     * Inserts the order and all its items in one transaction, so a large order costs
+     * one commit instead of one per row and is never left without some of its items.
+     * Sets the order's itemCount and the orderId of every item.
+     * @return the id of the new order
+     */
+    @Transaction
+    default long insertOrderWithItems(Order order, List<OrderItem> items) {
+        order.setItemCount(items.size());
+        long orderId = insertOrder(order);
+        for (OrderItem item : items) {
+            item.setOrderId((int) orderId);
+        }
+        insertOrderItems(items);
+        return orderId;
+    }
+
     @Update
     void updateOrder(Order order);
 
@@ -31,8 +52,7 @@ public interface OrderDao {
 
     @Transaction
     @Query("SELECT o.*, " +
-           "u.name as userName, " +
-           "(SELECT COUNT(*) FROM order_items WHERE orderId = o.orderId) as itemCount " +
+           "u.name as userName " +
            "FROM orders o " +
            "INNER JOIN users u ON o.userId = u.userId " +
            "WHERE o.orderId = :orderId")
@@ -51,7 +71,30 @@ public interface OrderDao {
     @Query("SELECT * FROM orders WHERE userId = :userId ORDER BY orderDate DESC")
     LiveData<List<Order>> getUserOrders(int userId);
 
-    @Query("SELECT * FROM orders WHERE status = :status")
+    // Order history - keyset pages on index_orders_userId_orderDate read backwards, orderId
+    // breaks ties. The row value comparison lets SQLite seek straight to the cursor. The first
+    // page starts from Long.MAX_VALUE / Integer.MAX_VALUE cursors
+    @Query("SELECT * FROM orders WHERE userId = :userId " +
+           "AND (orderDate, orderId) < (:orderDate, :orderId) " +
+           "ORDER BY orderDate DESC, orderId DESC LIMIT :limit")
+    List<Order> getUserOrdersAfter(int userId, long orderDate, int orderId, int limit);
+
+    @Query("SELECT * FROM orders WHERE userId = :userId " +
+           "AND (orderDate, orderId) > (:orderDate, :orderId) " +
+           "ORDER BY orderDate, orderId LIMIT :limit")
+    List<Order> getUserOrdersBefore(int userId, long orderDate, int orderId, int limit);
+
+    @Query("SELECT userId FROM orders WHERE orderId = :orderId")
+    Integer getOrderUserId(int orderId);
+
+    @Query("UPDATE orders SET status = :status WHERE orderId = :orderId")
+    int updateOrderStatus(int orderId, String status);
+
+    // 0 if the order is gone or no longer PENDING
+    @Query("UPDATE orders SET status = 'CONFIRMED' WHERE orderId = :orderId AND status = 'PENDING'")
+    int confirmPendingOrder(int orderId);
+
+    @Query("SELECT * FROM orders WHERE status = :status ORDER BY orderDate DESC")
     LiveData<List<Order>> getOrdersByStatus(String status);
 
     // Cart operations
@@ -75,10 +118,12 @@ public interface OrderDao {
         updateOrderTotal(cartId);
     }
 
+    // Recomputes itemCount too, for orders whose items change after creation like carts
     @Query("UPDATE orders " +
            "SET totalAmount = (SELECT SUM(quantity * priceAtTime) " +
            "                   FROM order_items " +
-           "                   WHERE orderId = :orderId) " +
+           "                   WHERE orderId = :orderId), " +
+           "    itemCount = (SELECT COUNT(*) FROM order_items WHERE orderId = :orderId) " +
            "WHERE orderId = :orderId")
     void updateOrderTotal(int orderId);
 
@@ -87,7 +132,6 @@ public interface OrderDao {
         @Embedded
         public Order order;
         public String userName;
-        public int itemCount;
     }
 
     static class OrderItemWithProduct {
@@ -6,9 +6,12 @@ import androidx.room.Delete;
 import androidx.room.Embedded;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.RawQuery;
 import androidx.room.Transaction;
 import androidx.room.Update;
+import androidx.sqlite.db.SupportSQLiteQuery;
 import com.example.b_shop.data.local.entities.Product;
+import com.example.b_shop.data.local.entities.ProductFacetCount;
 import java.util.List;
 
 @Dao
@@ -16,8 +19,9 @@ public interface ProductDao {
     @Insert
     long insert(Product product);
 
+    // Runs as a single transaction, returns the new ids in list order
     @Insert
-    void insertAll(List<Product> products);
+    List<Long> insertAll(List<Product> products);
 
     @Query("SELECT COUNT(*) FROM products")
     int getProductCount();
@@ -41,10 +45,29 @@ public interface ProductDao {
     @Query("SELECT * FROM products WHERE categoryId = :categoryId")
     LiveData<List<Product>> getProductsByCategory(int categoryId);
 
-    @Query("SELECT * FROM products WHERE " +
-           "name LIKE '%' || :query || '%' OR " +
-           "description LIKE '%' || :query || '%'")
-    LiveData<List<Product>> searchProducts(String query);
+    // Best rated products of every category in one cursor, grouped by category.
+    // No window functions before SQLite 3.25, so each category takes its top rows through a
+    // correlated subquery that reads only perCategory entries of index_products_categoryId_rating.
+    @Query("SELECT p.* FROM categories c " +
+           "INNER JOIN products p ON p.productId IN (" +
+           "SELECT top.productId FROM products top WHERE top.categoryId = c.categoryId " +
+           "ORDER BY top.rating DESC, top.productId DESC LIMIT :perCategory) " +
+           "ORDER BY c.categoryId, p.rating DESC, p.productId DESC")
+    LiveData<List<Product>> getTopProductsPerCategory(int perCategory);
+
+    // Full-text search through products_fts, matchQuery is an FTS4 MATCH expression.
+    // Name hits rank above description-only hits, then by rating. prefix must be escaped for
+    // LIKE with SearchUtils.escapeLike.
+    @Query("SELECT p.* FROM products p " +
+           "INNER JOIN products_fts ON p.productId = products_fts.rowid " +
+           "WHERE products_fts MATCH :matchQuery " +
+           "ORDER BY CASE " +
+           "WHEN p.name LIKE :prefix || '%' ESCAPE '\\' THEN 0 " +
+           "WHEN p.name LIKE '%' || :prefix || '%' ESCAPE '\\' THEN 1 " +
+           "ELSE 2 END, " +
+           "p.rating DESC, p.productId " +
+           "LIMIT :limit")
+    LiveData<List<Product>> searchProducts(String matchQuery, String prefix, int limit);
 
     @Query("SELECT * FROM products WHERE price BETWEEN :minPrice AND :maxPrice")
     LiveData<List<Product>> getProductsByPriceRange(float minPrice, float maxPrice);
@@ -60,25 +83,77 @@ public interface ProductDao {
            "WHERE f.userId = :userId")
     LiveData<List<Product>> getFavoriteProducts(int userId);
 
-    @Query("UPDATE products SET stock = stock - :quantity WHERE productId = :productId")
-    void decreaseStock(int productId, int quantity);
+    // Keyset pagination, pages are addressed by the boundary row instead of an OFFSET
+    // so each page costs the same no matter how deep the user scrolls.
+    @Query("SELECT * FROM products WHERE productId > :afterId ORDER BY productId LIMIT :limit")
+    List<Product> getProductsAfter(int afterId, int limit);
+
+    @Query("SELECT * FROM products WHERE productId < :beforeId ORDER BY productId DESC LIMIT :limit")
+    List<Product> getProductsBefore(int beforeId, int limit);
+
+    @Query("SELECT * FROM products WHERE categoryId = :categoryId AND productId > :afterId " +
+           "ORDER BY productId LIMIT :limit")
+    List<Product> getProductsByCategoryAfter(int categoryId, int afterId, int limit);
 
-    @Query("UPDATE products " +
-           "SET rating = (SELECT AVG(CAST(rating AS FLOAT)) FROM reviews WHERE productId = :productId) " +
-           "WHERE productId = :productId")
-    void updateProductRating(int productId);
+    @Query("SELECT * FROM products WHERE categoryId = :categoryId AND productId < :beforeId " +
+           "ORDER BY productId DESC LIMIT :limit")
+    List<Product> getProductsByCategoryBefore(int categoryId, int beforeId, int limit);
 
-    // New method to update review count
-    @Query("UPDATE products " +
-           "SET reviewCount = (SELECT COUNT(*) FROM reviews WHERE productId = :productId) " +
-           "WHERE productId = :productId")
-    void updateReviewCount(int productId);
+    @Query("SELECT * FROM products WHERE stock > 0 AND productId > :afterId " +
+           "ORDER BY productId LIMIT :limit")
+    List<Product> getAvailableProductsAfter(int afterId, int limit);
 
-    // Transaction to update both rating and review count
+    @Query("SELECT * FROM products WHERE stock > 0 AND productId < :beforeId " +
+           "ORDER BY productId DESC LIMIT :limit")
+    List<Product> getAvailableProductsBefore(int beforeId, int limit);
+
+    @Query("SELECT p.* FROM products p " +
+           "INNER JOIN user_favorites f ON p.productId = f.productId " +
+           "WHERE f.userId = :userId AND f.productId > :afterId " +
+           "ORDER BY f.productId LIMIT :limit")
+    List<Product> getFavoriteProductsAfter(int userId, int afterId, int limit);
+
+    @Query("SELECT p.* FROM products p " +
+           "INNER JOIN user_favorites f ON p.productId = f.productId " +
+           "WHERE f.userId = :userId AND f.productId < :beforeId " +
+           "ORDER BY f.productId DESC LIMIT :limit")
+    List<Product> getFavoriteProductsBefore(int userId, int beforeId, int limit);
+
+    // Ties go newest first so the order matches index_products_rating read backwards,
+    // and the row value comparison lets SQLite seek straight to the boundary
+    @Query("SELECT * FROM products " +
+           "WHERE (rating, productId) < (:rating, :afterId) " +
+           "ORDER BY rating DESC, productId DESC LIMIT :limit")
+    List<Product> getTopRatedProductsAfter(float rating, int afterId, int limit);
+
+    @Query("SELECT * FROM products " +
+           "WHERE (rating, productId) > (:rating, :beforeId) " +
+           "ORDER BY rating, productId LIMIT :limit")
+    List<Product> getTopRatedProductsBefore(float rating, int beforeId, int limit);
+
+    // Guarded so stock cannot go negative, returns 0 when the change was refused
+    @Query("UPDATE products SET stock = stock - :quantity " +
+           "WHERE productId = :productId AND stock >= :quantity")
+    int decreaseStock(int productId, int quantity);
+
+    // Faceted filtering, the queries are built by ProductFilterQueries
+    @RawQuery
+    List<Product> getFilteredProducts(SupportSQLiteQuery query);
+
+    @RawQuery
+    List<ProductFacetCount> getFacetCounts(SupportSQLiteQuery query);
+
+    /**
+     * Runs a page query and its facet query against the same snapshot,
+     * so the counts always agree with the products shown.
+     */
     @Transaction
-    default void updateProductReviewStats(int productId) {
-        updateProductRating(productId);
-        updateReviewCount(productId);
+    default FilteredProducts getFilteredProductsWithFacets(SupportSQLiteQuery pageQuery,
+                                                           SupportSQLiteQuery facetQuery) {
+        FilteredProducts result = new FilteredProducts();
+        result.products = getFilteredProducts(pageQuery);
+        result.facetCounts = getFacetCounts(facetQuery);
+        return result;
     }
 
     @Transaction
@@ -93,4 +168,9 @@ public interface ProductDao {
         public Product product;
         public String categoryName;
     }
+
+    static class FilteredProducts {
+        public List<Product> products;
+        public List<ProductFacetCount> facetCounts;
+    }
 }
\ No newline at end of file
@@ -5,9 +5,11 @@ import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Embedded;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.Transaction;
 import androidx.room.Update;
+import com.example.b_shop.data.local.entities.ProductRatingStats;
 import com.example.b_shop.data.local.entities.Review;
 import com.example.b_shop.data.local.entities.User;
 import java.util.List;
@@ -17,26 +19,180 @@ public interface ReviewDao {
     @Insert
     long insert(Review review);
 
+    /**
+     * Bulk load that leaves product_rating_stats alone, follow it with
+     * {@link #rebuildRatingStatsInRange(int, int)}. A second review of the same
+     * product by the same user is skipped.
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertAll(List<Review> reviews);
+
     @Update
     void update(Review review);
 
     @Delete
     void delete(Review review);
 
+    // Review writes that keep product_rating_stats and the product rating in step
+
+    @Transaction
+    default long insertWithStats(Review review) {
+        long reviewId = insert(review);
+        applyRating(review.getProductId(), review.getRating(), 1);
+        return reviewId;
+    }
+
+    @Transaction
+    default void updateWithStats(Review review) {
+        Review previous = getReviewSync(review.getReviewId());
+        if (previous == null) {
+            return;
+        }
+        update(review);
+        if (previous.getRating() != review.getRating() || previous.getProductId() != review.getProductId()) {
+            applyRating(previous.getProductId(), previous.getRating(), -1);
+            applyRating(review.getProductId(), review.getRating(), 1);
+        }
+    }
+
+    @Transaction
+    default void deleteWithStats(Review review) {
+        // Use the stored rating, the caller's copy may be stale
+        Review previous = getReviewSync(review.getReviewId());
+        if (previous == null) {
+            return;
+        }
+        delete(previous);
+        applyRating(previous.getProductId(), previous.getRating(), -1);
+    }
+
+    /**
+     * Adds ({@code delta} = 1) or removes ({@code delta} = -1) one rating from the product's
+     * aggregates. Constant time, only primary key lookups.
+     */
+    default void applyRating(int productId, int rating, int delta) {
+        ensureRatingStats(productId);
+        adjustRatingStats(productId, rating, delta);
+        syncProductRating(productId);
+    }
+
+    /**
+     * Recomputes the product's aggregates from its reviews. Used to repair drift.
+     */
+    @Transaction
+    default void rebuildRatingStats(int productId) {
+        recountRatingStats(productId);
+        syncProductRating(productId);
+    }
+
+    @Query("SELECT * FROM reviews WHERE reviewId = :reviewId")
+    Review getReviewSync(int reviewId);
+
+    @Query("INSERT OR IGNORE INTO product_rating_stats (productId) VALUES (:productId)")
+    void ensureRatingStats(int productId);
+
+    @Query("UPDATE product_rating_stats SET " +
+           "ratingSum = ratingSum + :rating * :delta, " +
+           "reviewCount = reviewCount + :delta, " +
+           "oneStar = oneStar + (CASE WHEN :rating = 1 THEN :delta ELSE 0 END), " +
+           "twoStars = twoStars + (CASE WHEN :rating = 2 THEN :delta ELSE 0 END), " +
+           "threeStars = threeStars + (CASE WHEN :rating = 3 THEN :delta ELSE 0 END), " +
+           "fourStars = fourStars + (CASE WHEN :rating = 4 THEN :delta ELSE 0 END), " +
+           "fiveStars = fiveStars + (CASE WHEN :rating = 5 THEN :delta ELSE 0 END) " +
+           "WHERE productId = :productId")
+    void adjustRatingStats(int productId, int rating, int delta);
+
+    // Copies the aggregates onto the denormalized products.rating / reviewCount columns
+    @Query("UPDATE products SET " +
+           "rating = IFNULL((SELECT CASE WHEN s.reviewCount = 0 THEN 0 " +
+           "ELSE CAST(s.ratingSum AS REAL) / s.reviewCount END " +
+           "FROM product_rating_stats s WHERE s.productId = :productId), 0), " +
+           "reviewCount = IFNULL((SELECT s.reviewCount FROM product_rating_stats s " +
+           "WHERE s.productId = :productId), 0) " +
+           "WHERE productId = :productId")
+    void syncProductRating(int productId);
+
+    @Query("INSERT OR REPLACE INTO product_rating_stats " +
+           "(productId, ratingSum, reviewCount, oneStar, twoStars, threeStars, fourStars, fiveStars) " +
+           "SELECT :productId, IFNULL(SUM(rating), 0), COUNT(*), " +
+           "COUNT(CASE WHEN rating = 1 THEN 1 END), " +
+           "COUNT(CASE WHEN rating = 2 THEN 1 END), " +
+           "COUNT(CASE WHEN rating = 3 THEN 1 END), " +
+           "COUNT(CASE WHEN rating = 4 THEN 1 END), " +
+           "COUNT(CASE WHEN rating = 5 THEN 1 END) " +
+           "FROM reviews WHERE productId = :productId")
+    void recountRatingStats(int productId);
+
+    // Reconciliation, walks the catalog in productId ranges
+
+    @Query("SELECT productId FROM products WHERE productId > :afterId ORDER BY productId LIMIT :limit")
+    List<Integer> getProductIdsAfter(int afterId, int limit);
+
+    @Query("SELECT * FROM product_rating_stats WHERE productId BETWEEN :fromId AND :toId")
+    List<ProductRatingStats> getRatingStatsInRange(int fromId, int toId);
+
+    @Query("SELECT productId, IFNULL(SUM(rating), 0) AS ratingSum, COUNT(*) AS reviewCount, " +
+           "COUNT(CASE WHEN rating = 1 THEN 1 END) AS oneStar, " +
+           "COUNT(CASE WHEN rating = 2 THEN 1 END) AS twoStars, " +
+           "COUNT(CASE WHEN rating = 3 THEN 1 END) AS threeStars, " +
+           "COUNT(CASE WHEN rating = 4 THEN 1 END) AS fourStars, " +
+           "COUNT(CASE WHEN rating = 5 THEN 1 END) AS fiveStars " +
+           "FROM reviews WHERE productId BETWEEN :fromId AND :toId GROUP BY productId")
+    List<ProductRatingStats> tallyRatingsInRange(int fromId, int toId);
+
+    // Products whose denormalized columns disagree with their aggregates
+    @Query("SELECT p.productId FROM products p " +
+           "LEFT JOIN product_rating_stats s ON s.productId = p.productId " +
+           "WHERE p.productId BETWEEN :fromId AND :toId " +
+           "AND (p.reviewCount != IFNULL(s.reviewCount, 0) " +
+           "OR ABS(p.rating - IFNULL(CAST(s.ratingSum AS REAL) / NULLIF(s.reviewCount, 0), 0)) > 0.0001)")
+    List<Integer> getProductsWithStaleRatingInRange(int fromId, int toId);
+
+    // Bulk rebuild after insertAll, one productId range per transaction
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertRatingStats(List<ProductRatingStats> stats);
+
+    @Query("UPDATE products SET " +
+           "rating = IFNULL((SELECT CASE WHEN s.reviewCount = 0 THEN 0 " +
+           "ELSE CAST(s.ratingSum AS REAL) / s.reviewCount END " +
+           "FROM product_rating_stats s WHERE s.productId = products.productId), 0), " +
+           "reviewCount = IFNULL((SELECT s.reviewCount FROM product_rating_stats s " +
+           "WHERE s.productId = products.productId), 0) " +
+           "WHERE productId IN (SELECT productId FROM product_rating_stats " +
+           "WHERE productId BETWEEN :fromId AND :toId)")
+    void syncProductRatingsInRange(int fromId, int toId);
+
+    @Transaction
+    default void rebuildRatingStatsInRange(int fromId, int toId) {
+        insertRatingStats(tallyRatingsInRange(fromId, toId));
+        syncProductRatingsInRange(fromId, toId);
+    }
+
     @Query("SELECT * FROM reviews WHERE reviewId = :reviewId")
     LiveData<Review> getReviewById(int reviewId);
 
     @Query("SELECT * FROM reviews WHERE productId = :productId ORDER BY createdAt DESC")
     LiveData<List<Review>> getReviewsForProduct(int productId);
 
-    // New synchronous method with user information
-    @Transaction
-    @Query("SELECT r.*, u.name as reviewerName, u.avatarUrl as reviewerAvatarUrl " +
-           "FROM reviews r " +
-           "INNER JOIN users u ON r.userId = u.userId " +
-           "WHERE r.productId = :productId " +
-           "ORDER BY r.createdAt DESC")
-    List<Review> getProductReviewsSync(int productId);
+    // Review feed - keyset pages, the first page starts from Long.MAX_VALUE / Integer.MAX_VALUE cursors
+    @Query("SELECT * FROM reviews WHERE productId = :productId " +
+           "AND (createdAt < :createdAt OR (createdAt = :createdAt AND reviewId < :reviewId)) " +
+           "ORDER BY createdAt DESC, reviewId DESC LIMIT :limit")
+    List<Review> getNewestReviewsAfter(int productId, long createdAt, int reviewId, int limit);
+
+    @Query("SELECT * FROM reviews WHERE productId = :productId " +
+           "AND (helpfulCount < :helpfulCount OR (helpfulCount = :helpfulCount AND reviewId < :reviewId)) " +
+           "ORDER BY helpfulCount DESC, reviewId DESC LIMIT :limit")
+    List<Review> getMostHelpfulReviewsAfter(int productId, int helpfulCount, int reviewId, int limit);
+
+    @Query("SELECT * FROM reviews WHERE productId = :productId AND rating = :rating " +
+           "AND (createdAt < :createdAt OR (createdAt = :createdAt AND reviewId < :reviewId)) " +
+           "ORDER BY createdAt DESC, reviewId DESC LIMIT :limit")
+    List<Review> getReviewsWithRatingAfter(int productId, int rating, long createdAt, int reviewId, int limit);
+
+    @Query("UPDATE reviews SET helpfulCount = helpfulCount + 1 WHERE reviewId = :reviewId")
+    void incrementHelpfulCount(int reviewId);
 
     @Transaction
     @Query("SELECT r.*, p.name as productName " +
@@ -46,22 +202,25 @@ public interface ReviewDao {
            "ORDER BY r.createdAt DESC")
     LiveData<List<ReviewWithProduct>> getReviewsWithUserForProduct(int productId);
 
-    @Query("SELECT AVG(CAST(rating AS FLOAT)) FROM reviews WHERE productId = :productId")
+    // Null when the product has no reviews
+    @Query("SELECT CAST(ratingSum AS REAL) / NULLIF(reviewCount, 0) " +
+           "FROM product_rating_stats WHERE productId = :productId")
     LiveData<Float> getAverageRatingForProduct(int productId);
 
     @Query("SELECT " +
-           "COUNT(CASE WHEN rating = 5 THEN 1 END) as fiveStars, " +
-           "COUNT(CASE WHEN rating = 4 THEN 1 END) as fourStars, " +
-           "COUNT(CASE WHEN rating = 3 THEN 1 END) as threeStars, " +
-           "COUNT(CASE WHEN rating = 2 THEN 1 END) as twoStars, " +
-           "COUNT(CASE WHEN rating = 1 THEN 1 END) as oneStar " +
-           "FROM reviews WHERE productId = :productId")
+           "IFNULL(s.fiveStars, 0) as fiveStars, " +
+           "IFNULL(s.fourStars, 0) as fourStars, " +
+           "IFNULL(s.threeStars, 0) as threeStars, " +
+           "IFNULL(s.twoStars, 0) as twoStars, " +
+           "IFNULL(s.oneStar, 0) as oneStar " +
+           "FROM products p LEFT JOIN product_rating_stats s ON s.productId = p.productId " +
+           "WHERE p.productId = :productId")
     LiveData<RatingDistribution> getRatingDistributionForProduct(int productId);
 
     @Query("SELECT EXISTS(SELECT 1 FROM reviews WHERE userId = :userId AND productId = :productId)")
     boolean hasUserReviewedProduct(int userId, int productId);
 
-    @Query("SELECT COUNT(*) FROM reviews WHERE productId = :productId")
+    @Query("SELECT IFNULL((SELECT reviewCount FROM product_rating_stats WHERE productId = :productId), 0)")
     LiveData<Integer> getReviewCountForProduct(int productId);
 
     // Static classes for complex queries
@@ -10,21 +10,32 @@ import androidx.room.Query;
 import androidx.room.Transaction;
 import androidx.room.Update;
 import com.example.b_shop.data.local.entities.User;
-import com.example.b_shop.data.local.entities.Order;
 import com.example.b_shop.data.local.entities.Review;
 import com.example.b_shop.data.local.entities.Product;
 import com.example.b_shop.data.local.entities.UserRole;
 import com.example.b_shop.data.local.entities.UserAuditLog;
+import com.example.b_shop.data.local.entities.UserFavorite;
+import com.example.b_shop.data.local.entities.AuditLogDailySummary;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.List;
 
 @Dao
 public interface UserDao {
+    // Audit timestamps are in seconds
+    long SECONDS_PER_DAY = 24 * 60 * 60;
+
     @Insert
     long insert(User user);
 
     @Insert(onConflict = OnConflictStrategy.IGNORE)
     long insertIfNotExists(User user);
 
+    // Runs as a single transaction, returns the new ids in list order
+    @Insert
+    List<Long> insertAll(List<User> users);
+
     @Update
     void update(User user);
 
@@ -66,6 +77,10 @@ public interface UserDao {
     @Insert
     void insertAuditLog(UserAuditLog auditLog);
 
+    // Runs as a single transaction
+    @Insert
+    void insertAuditLogs(List<UserAuditLog> auditLogs);
+
     @Query("SELECT * FROM user_audit_log WHERE userId = :userId ORDER BY timestamp DESC")
     LiveData<List<UserAuditLog>> getUserAuditLogs(int userId);
 
@@ -75,16 +90,62 @@ public interface UserDao {
     @Query("SELECT * FROM user_audit_log ORDER BY timestamp DESC LIMIT :limit")
     LiveData<List<UserAuditLog>> getRecentAuditLogs(int limit);
 
+    @Query("SELECT * FROM audit_log_daily_summary WHERE adminId = :adminId ORDER BY day DESC")
+    LiveData<List<AuditLogDailySummary>> getAdminAuditSummary(int adminId);
+
+    // Audit log retention
+    @Query("SELECT * FROM user_audit_log WHERE timestamp < :before " +
+           "ORDER BY timestamp, logId LIMIT :limit")
+    List<UserAuditLog> getAuditLogsBefore(long before, int limit);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertAuditSummaryIfAbsent(AuditLogDailySummary summary);
+
+    @Query("UPDATE audit_log_daily_summary SET actionCount = actionCount + :count " +
+           "WHERE adminId = :adminId AND day = :day AND userId = :userId AND action = :action")
+    void addToAuditSummary(int adminId, long day, int userId, String action, int count);
+
+    @Query("DELETE FROM user_audit_log WHERE logId IN (:logIds)")
+    int deleteAuditLogs(List<Integer> logIds);
+
+    /**
+     * Folds the given detailed entries into the daily summary and deletes them,
+     * in one transaction so every action is counted exactly once.
+     * @param logs At most a few hundred rows, their ids are bound as query parameters
+     */
+    @Transaction
+    default void compactAuditLogs(List<UserAuditLog> logs) {
+        Map<String, AuditLogDailySummary> rollUp = new LinkedHashMap<>();
+        List<Integer> logIds = new ArrayList<>(logs.size());
+        for (UserAuditLog log : logs) {
+            long day = log.getTimestamp() / SECONDS_PER_DAY;
+            String action = log.getAction() != null ? log.getAction() : "";
+            String key = log.getAdminId() + "|" + day + "|" + log.getUserId() + "|" + action;
+            AuditLogDailySummary summary = rollUp.get(key);
+            if (summary == null) {
+                summary = new AuditLogDailySummary(log.getAdminId(), day, log.getUserId(), action);
+                rollUp.put(key, summary);
+            }
+            summary.incrementActionCount();
+            logIds.add(log.getLogId());
+        }
+
+        // No UPSERT before SQLite 3.24, create the row at zero then add to it
+        for (AuditLogDailySummary summary : rollUp.values()) {
+            int count = summary.getActionCount();
+            summary.setActionCount(0);
+            insertAuditSummaryIfAbsent(summary);
+            addToAuditSummary(summary.getAdminId(), summary.getDay(), summary.getUserId(),
+                summary.getAction(), count);
+        }
+        deleteAuditLogs(logIds);
+    }
+
     // User activity tracking
     @Transaction
     @Query("SELECT * FROM users WHERE role = :role AND lastLogin >= :since")
     LiveData<List<User>> getActiveUsersByRole(UserRole role, long since);
 
-    // Get user's orders
-    @Transaction
-    @Query("SELECT * FROM orders WHERE userId = :userId ORDER BY orderDate DESC")
-    LiveData<List<Order>> getUserOrders(int userId);
-
     // Get user's reviews
     @Transaction
     @Query("SELECT r.*, p.name as productName " +
@@ -99,7 +160,9 @@ public interface UserDao {
     @Query("SELECT u.*, " +
            "(SELECT COUNT(*) FROM orders WHERE userId = u.userId) as orderCount, " +
            "(SELECT COUNT(*) FROM reviews WHERE userId = u.userId) as reviewCount, " +
-           "(SELECT COUNT(*) FROM user_audit_log WHERE adminId = u.userId) as adminActionCount " +
+           "(SELECT COUNT(*) FROM user_audit_log WHERE adminId = u.userId) + " +
+           "IFNULL((SELECT SUM(actionCount) FROM audit_log_daily_summary WHERE adminId = u.userId), 0) " +
+           "as adminActionCount " +
            "FROM users u " +
            "WHERE u.userId = :userId")
     LiveData<UserActivity> getUserActivity(int userId);
@@ -111,6 +174,10 @@ public interface UserDao {
     @Query("INSERT INTO user_favorites (userId, productId) VALUES (:userId, :productId)")
     void addToFavorites(int userId, int productId);
 
+    // Bulk load, favorites that already exist are skipped
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertFavorites(List<UserFavorite> favorites);
+
     @Query("DELETE FROM user_favorites WHERE userId = :userId AND productId = :productId")
     void removeFromFavorites(int userId, int productId);
 
@@ -126,7 +193,16 @@ public interface UserDao {
     @Query("SELECT avatarUrl FROM users WHERE userId = :userId")
     String getUserAvatarUrlSync(int userId);
 
+    @Query("SELECT userId, name, avatarUrl FROM users WHERE userId IN (:userIds)")
+    List<ReviewerProfile> getReviewerProfiles(List<Integer> userIds);
+
     // Static classes for complex queries
+    static class ReviewerProfile {
+        public int userId;
+        public String name;
+        public String avatarUrl;
+    }
+
     static class UserReviewWithProduct {
         @Embedded
         public Review review;
@@ -0,0 +1,82 @@
+package com.example.b_shop.data.local.entities;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+
+/**
+ * Roll-up of audit log entries older than the retention window.
+ * One row per day, admin, affected user and action, so counts survive
+ * after the detailed rows in {@code user_audit_log} are pruned.
+ */
+@Entity(
+    tableName = "audit_log_daily_summary",
+    primaryKeys = {"adminId", "day", "userId", "action"},
+    indices = {
+        @Index({"userId", "day"})
+    }
+)
+public class AuditLogDailySummary {
+    private int adminId;
+    private long day;        // Days since epoch, UTC
+    private int userId;
+    @NonNull
+    private String action = "";
+    private int actionCount;
+
+    public AuditLogDailySummary() {
+    }
+
+    @androidx.room.Ignore
+    public AuditLogDailySummary(int adminId, long day, int userId, @NonNull String action) {
+        this.adminId = adminId;
+        this.day = day;
+        this.userId = userId;
+        this.action = action;
+    }
+
+    public int getAdminId() {
+        return adminId;
+    }
+
+    public long getDay() {
+        return day;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    @NonNull
+    public String getAction() {
+        return action;
+    }
+
+    public int getActionCount() {
+        return actionCount;
+    }
+
+    public void setAdminId(int adminId) {
+        this.adminId = adminId;
+    }
+
+    public void setDay(long day) {
+        this.day = day;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public void setAction(@NonNull String action) {
+        this.action = action;
+    }
+
+    public void setActionCount(int actionCount) {
+        this.actionCount = actionCount;
+    }
+
+    public void incrementActionCount() {
+        actionCount++;
+    }
+}
@@ -23,7 +23,9 @@ import androidx.room.PrimaryKey;
         )
     },
     indices = {
-        @Index("userId"),
+        // Cart screen order, and checkout which walks the cart by productId
+        @Index({"userId", "addedAt"}),
+        @Index({"userId", "productId"}),
         @Index("productId")
     }
 )
@@ -1,5 +1,6 @@
 package com.example.b_shop.data.local.entities;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.Ignore;
 import androidx.room.PrimaryKey;
@@ -12,6 +13,12 @@ public class Category {
     private String description;
     private String imagePath;
 
+    // Maintained by triggers on products, see AppDatabase.createCategoryCounterTriggers
+    @ColumnInfo(defaultValue = "0")
+    private int productCount;
+    @ColumnInfo(defaultValue = "0")
+    private int inStockCount;
+
     @Ignore
     public Category(String name, String description) {
         this.name = name;
@@ -42,6 +49,14 @@ public class Category {
         return imagePath;
     }
 
+    public int getProductCount() {
+        return productCount;
+    }
+
+    public int getInStockCount() {
+        return inStockCount;
+    }
+
     // Setters
     public void setCategoryId(int categoryId) {
         this.categoryId = categoryId;
@@ -58,4 +73,12 @@ public class Category {
     public void setImagePath(String imagePath) {
         this.imagePath = imagePath;
     }
+
+    public void setProductCount(int productCount) {
+        this.productCount = productCount;
+    }
+
+    public void setInStockCount(int inStockCount) {
+        this.inStockCount = inStockCount;
+    }
 }
\ No newline at end of file
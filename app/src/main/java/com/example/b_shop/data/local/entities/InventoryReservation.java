@@ -0,0 +1,81 @@
+package com.example.b_shop.data.local.entities;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+/**
+ * Stock set aside for one user's cart line until it is checked out or the hold expires.
+ * The held quantity has already been taken out of {@code products.stock}.
+ */
+@Entity(
+    tableName = "inventory_reservations",
+    primaryKeys = {"userId", "productId"},
+    foreignKeys = {
+        @ForeignKey(
+            entity = User.class,
+            parentColumns = "userId",
+            childColumns = "userId",
+            onDelete = ForeignKey.CASCADE
+        ),
+        @ForeignKey(
+            entity = Product.class,
+            parentColumns = "productId",
+            childColumns = "productId",
+            onDelete = ForeignKey.CASCADE
+        )
+    },
+    indices = {
+        @Index("productId"),
+        @Index("expiresAt")
+    }
+)
+public class InventoryReservation {
+    private int userId;
+    private int productId;
+    private int quantity;
+    private long expiresAt;  // Timestamp in milliseconds
+
+    // Required by Room
+    public InventoryReservation() {}
+
+    @androidx.room.Ignore
+    public InventoryReservation(int userId, int productId, int quantity, long expiresAt) {
+        this.userId = userId;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public void setProductId(int productId) {
+        this.productId = productId;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
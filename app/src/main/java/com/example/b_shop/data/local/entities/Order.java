@@ -1,5 +1,6 @@
 package com.example.b_shop.data.local.entities;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
 import androidx.room.Index;
@@ -14,7 +15,10 @@ import java.util.Date;
         childColumns = "userId",
         onDelete = ForeignKey.CASCADE
     ),
-    indices = {@Index("userId")}
+    indices = {
+        @Index({"userId", "orderDate"}),
+        @Index({"status", "orderDate"})
+    }
 )
 public class Order {
     @PrimaryKey(autoGenerate = true)
@@ -23,6 +27,9 @@ public class Order {
     private Date orderDate;
     private String status; // PENDING, CONFIRMED, DELIVERED
     private float totalAmount;
+    // Number of order_items rows, set when the order is written with its items
+    @ColumnInfo(defaultValue = "0")
+    private int itemCount;
 
     public Order(int userId, float totalAmount) {
         this.userId = userId;
@@ -52,6 +59,10 @@ public class Order {
         return totalAmount;
     }
 
+    public int getItemCount() {
+        return itemCount;
+    }
+
     // Setters
     public void setOrderId(int orderId) {
         this.orderId = orderId;
@@ -72,4 +83,8 @@ public class Order {
     public void setTotalAmount(float totalAmount) {
         this.totalAmount = totalAmount;
     }
+
+    public void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+    }
 }
\ No newline at end of file
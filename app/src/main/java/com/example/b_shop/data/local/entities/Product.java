@@ -18,7 +18,13 @@ import java.util.List;
         childColumns = "categoryId",
         onDelete = ForeignKey.CASCADE
     ),
-    indices = {@Index("categoryId")}
+    indices = {
+        // Category listings page by productId, carousels rank by rating
+        @Index("categoryId"),
+        @Index({"categoryId", "rating"}),
+        @Index("rating"),
+        @Index("price")
+    }
 )
 public class Product {
     @PrimaryKey(autoGenerate = true)
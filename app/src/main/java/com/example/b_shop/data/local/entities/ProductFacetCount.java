@@ -0,0 +1,97 @@
+package com.example.b_shop.data.local.entities;
+
+import androidx.room.Entity;
+
+/**
+ * Number of products sharing one combination of facet values. Kept up to date by triggers on
+ * products (see AppDatabase.createProductFacetTriggers), so facet counts for any mix of
+ * filters are sums over this small table instead of scans of the catalog.
+ */
+@Entity(
+    tableName = "product_facet_counts",
+    primaryKeys = {"categoryId", "priceBucket", "ratingBucket", "inStock"}
+)
+public class ProductFacetCount {
+    /**
+     * Upper bounds of the price buckets, exclusive. Bucket i holds prices below
+     * {@code PRICE_BUCKET_BOUNDS[i]}, the last bucket everything from the last bound up.
+     * Changing these needs a migration that rebuilds product_facet_counts.
+     */
+    public static final float[] PRICE_BUCKET_BOUNDS = {10f, 25f, 50f, 100f, 250f, 500f};
+    public static final int PRICE_BUCKETS = PRICE_BUCKET_BOUNDS.length + 1;
+    // Whole stars, 0 to 5
+    public static final int RATING_BUCKETS = 6;
+
+    private int categoryId;
+    private int priceBucket;
+    private int ratingBucket;
+    private boolean inStock;
+    private int productCount;
+
+    public ProductFacetCount(int categoryId, int priceBucket, int ratingBucket, boolean inStock) {
+        this.categoryId = categoryId;
+        this.priceBucket = priceBucket;
+        this.ratingBucket = ratingBucket;
+        this.inStock = inStock;
+    }
+
+    /**
+     * SQL expression giving the price bucket of {@code price}, e.g. "NEW.price".
+     */
+    public static String priceBucketSql(String price) {
+        StringBuilder sql = new StringBuilder("(CASE");
+        for (int i = 0; i < PRICE_BUCKET_BOUNDS.length; i++) {
+            sql.append(" WHEN ").append(price).append(" < ").append(PRICE_BUCKET_BOUNDS[i])
+                .append(" THEN ").append(i);
+        }
+        return sql.append(" ELSE ").append(PRICE_BUCKET_BOUNDS.length).append(" END)").toString();
+    }
+
+    /**
+     * SQL expression giving the rating bucket of {@code rating}, its whole stars.
+     */
+    public static String ratingBucketSql(String rating) {
+        return "CAST(" + rating + " AS INTEGER)";
+    }
+
+    // Getters and Setters
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(int categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public int getPriceBucket() {
+        return priceBucket;
+    }
+
+    public void setPriceBucket(int priceBucket) {
+        this.priceBucket = priceBucket;
+    }
+
+    public int getRatingBucket() {
+        return ratingBucket;
+    }
+
+    public void setRatingBucket(int ratingBucket) {
+        this.ratingBucket = ratingBucket;
+    }
+
+    public boolean isInStock() {
+        return inStock;
+    }
+
+    public void setInStock(boolean inStock) {
+        this.inStock = inStock;
+    }
+
+    public int getProductCount() {
+        return productCount;
+    }
+
+    public void setProductCount(int productCount) {
+        this.productCount = productCount;
+    }
+}
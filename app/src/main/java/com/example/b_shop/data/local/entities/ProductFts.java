@@ -0,0 +1,44 @@
+package com.example.b_shop.data.local.entities;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * Full-text index over product name and description.
+ * Backed by the products table (external content), Room keeps it in sync via triggers.
+ * Prefix indexes for 2 and 3 characters keep search-as-you-type queries cheap.
+ */
+@Fts4(
+    contentEntity = Product.class,
+    tokenizer = FtsOptions.TOKENIZER_UNICODE61,
+    prefix = {2, 3}
+)
+@Entity(tableName = "products_fts")
+public class ProductFts {
+    private String name;
+    private String description;
+
+    public ProductFts(String name, String description) {
+        this.name = name;
+        this.description = description;
+    }
+
+    // Getters
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    // Setters
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.b_shop.data.local.entities;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.PrimaryKey;
+
+/**
+ * Running review aggregates for one product, kept up to date by the review write methods
+ * in {@link com.example.b_shop.data.local.dao.ReviewDao} so nothing has to scan the reviews table.
+ */
+@Entity(
+    tableName = "product_rating_stats",
+    foreignKeys = {
+        @ForeignKey(
+            entity = Product.class,
+            parentColumns = "productId",
+            childColumns = "productId",
+            onDelete = ForeignKey.CASCADE
+        )
+    }
+)
+public class ProductRatingStats {
+    @PrimaryKey
+    private int productId;
+
+    @ColumnInfo(defaultValue = "0")
+    private long ratingSum;
+
+    @ColumnInfo(defaultValue = "0")
+    private int reviewCount;
+
+    @ColumnInfo(defaultValue = "0")
+    private int oneStar;
+
+    @ColumnInfo(defaultValue = "0")
+    private int twoStars;
+
+    @ColumnInfo(defaultValue = "0")
+    private int threeStars;
+
+    @ColumnInfo(defaultValue = "0")
+    private int fourStars;
+
+    @ColumnInfo(defaultValue = "0")
+    private int fiveStars;
+
+    public ProductRatingStats(int productId) {
+        this.productId = productId;
+    }
+
+    public float getAverageRating() {
+        return reviewCount == 0 ? 0f : (float) ratingSum / reviewCount;
+    }
+
+    public boolean hasSameTotals(ProductRatingStats other) {
+        return ratingSum == other.ratingSum
+            && reviewCount == other.reviewCount
+            && oneStar == other.oneStar
+            && twoStars == other.twoStars
+            && threeStars == other.threeStars
+            && fourStars == other.fourStars
+            && fiveStars == other.fiveStars;
+    }
+
+    // Getters
+    public int getProductId() {
+        return productId;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public int getReviewCount() {
+        return reviewCount;
+    }
+
+    public int getOneStar() {
+        return oneStar;
+    }
+
+    public int getTwoStars() {
+        return twoStars;
+    }
+
+    public int getThreeStars() {
+        return threeStars;
+    }
+
+    public int getFourStars() {
+        return fourStars;
+    }
+
+    public int getFiveStars() {
+        return fiveStars;
+    }
+
+    // Setters
+    public void setProductId(int productId) {
+        this.productId = productId;
+    }
+
+    public void setRatingSum(long ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public void setReviewCount(int reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+
+    public void setOneStar(int oneStar) {
+        this.oneStar = oneStar;
+    }
+
+    public void setTwoStars(int twoStars) {
+        this.twoStars = twoStars;
+    }
+
+    public void setThreeStars(int threeStars) {
+        this.threeStars = threeStars;
+    }
+
+    public void setFourStars(int fourStars) {
+        this.fourStars = fourStars;
+    }
+
+    public void setFiveStars(int fiveStars) {
+        this.fiveStars = fiveStars;
+    }
+}
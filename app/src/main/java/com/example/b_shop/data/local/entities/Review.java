@@ -1,5 +1,6 @@
 package com.example.b_shop.data.local.entities;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
 import androidx.room.Index;
@@ -27,9 +28,12 @@ import java.util.List;
         )
     },
     indices = {
-        @Index("userId"),
-        @Index("productId"),
-        @Index(value = {"userId", "productId"}, unique = true)
+        @Index(value = {"userId", "productId"}, unique = true),
+        @Index(value = {"userId", "createdAt"}),
+        // Review feed orders, see ReviewDao
+        @Index(value = {"productId", "createdAt", "reviewId"}),
+        @Index(value = {"productId", "helpfulCount", "reviewId"}),
+        @Index(value = {"productId", "rating", "createdAt", "reviewId"})
     }
 )
 public class Review {
@@ -40,6 +44,8 @@ public class Review {
     private int rating;
     private String comment;
     private Date createdAt;
+    @ColumnInfo(defaultValue = "0")
+    private int helpfulCount;
     private String reviewerName;
     private String reviewerAvatarUrl;
     
@@ -84,6 +90,10 @@ public class Review {
         return createdAt;
     }
 
+    public int getHelpfulCount() {
+        return helpfulCount;
+    }
+
     public String getReviewerName() {
         return reviewerName;
     }
@@ -121,6 +131,10 @@ public class Review {
         this.createdAt = createdAt;
     }
 
+    public void setHelpfulCount(int helpfulCount) {
+        this.helpfulCount = helpfulCount;
+    }
+
     public void setReviewerName(String reviewerName) {
         this.reviewerName = reviewerName;
     }
@@ -8,7 +8,10 @@ import com.example.b_shop.data.local.converters.UserRoleConverter;
 
 @Entity(
     tableName = "users",
-    indices = {@Index(value = {"email"}, unique = true)}
+    indices = {
+        @Index(value = {"email"}, unique = true),
+        @Index({"role", "lastLogin"})
+    }
 )
 @TypeConverters(UserRoleConverter.class)
 public class User {
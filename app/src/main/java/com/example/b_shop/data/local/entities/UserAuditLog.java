@@ -25,9 +25,10 @@ import androidx.room.PrimaryKey;
             onDelete = ForeignKey.CASCADE
         )
     },
+    // Per-user and per-admin lookups sort by time, so the index carries it
     indices = {
-        @Index("userId"),
-        @Index("adminId"),
+        @Index({"userId", "timestamp"}),
+        @Index({"adminId", "timestamp"}),
         @Index("timestamp")
     }
 )
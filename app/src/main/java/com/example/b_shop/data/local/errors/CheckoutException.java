@@ -0,0 +1,51 @@
+package com.example.b_shop.data.local.errors;
+
+/**
+ * Thrown from inside the checkout transaction to abort it.
+ * Unchecked so that Room rolls the transaction back when it propagates.
+ */
+public class CheckoutException extends RuntimeException {
+
+    private final CheckoutErrorType type;
+    private final int productId;
+
+    private CheckoutException(CheckoutErrorType type, String message, int productId) {
+        super(message);
+        this.type = type;
+        this.productId = productId;
+    }
+
+    public CheckoutErrorType getType() {
+        return type;
+    }
+
+    /**
+     * @return the product that could not be fulfilled, or -1 if not product specific
+     */
+    public int getProductId() {
+        return productId;
+    }
+
+    /**
+     * Different reasons a checkout can be rejected
+     */
+    public enum CheckoutErrorType {
+        EMPTY_CART,
+        INSUFFICIENT_STOCK
+    }
+
+    /**
+     * Factory methods for creating common checkout errors
+     */
+    public static CheckoutException emptyCart() {
+        return new CheckoutException(CheckoutErrorType.EMPTY_CART, "Cart is empty", -1);
+    }
+
+    public static CheckoutException insufficientStock(int productId, int requested) {
+        return new CheckoutException(
+            CheckoutErrorType.INSUFFICIENT_STOCK,
+            String.format("Insufficient stock for product %d. Requested: %d", productId, requested),
+            productId
+        );
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.b_shop.data.local.metrics;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+
+/**
+ * Cursor that records its query when it is closed. Rows are the furthest row the
+ * reader moved to, which is every row for Room's generated code.
+ */
+class InstrumentedCursor extends CursorWrapper {
+    private final QueryMetrics.StatementRecorder recorder;
+    private final long startNanos;
+    private int rows;
+    private boolean recorded;
+
+    InstrumentedCursor(Cursor cursor, QueryMetrics.StatementRecorder recorder, long startNanos) {
+        super(cursor);
+        this.recorder = recorder;
+        this.startNanos = startNanos;
+    }
+
+    @Override
+    public boolean moveToNext() {
+        return reached(super.moveToNext());
+    }
+
+    @Override
+    public boolean moveToFirst() {
+        return reached(super.moveToFirst());
+    }
+
+    @Override
+    public boolean moveToLast() {
+        return reached(super.moveToLast());
+    }
+
+    @Override
+    public boolean moveToPosition(int position) {
+        return reached(super.moveToPosition(position));
+    }
+
+    @Override
+    public boolean move(int offset) {
+        return reached(super.move(offset));
+    }
+
+    private boolean reached(boolean moved) {
+        if (moved) {
+            rows = Math.max(rows, getPosition() + 1);
+        }
+        return moved;
+    }
+
+    @Override
+    public void close() {
+        if (!recorded) {
+            recorded = true;
+            recorder.record(System.nanoTime() - startNanos, rows);
+        }
+        super.close();
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.b_shop.data.local.metrics;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteTransactionListener;
+import android.os.CancellationSignal;
+import android.util.Pair;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Database that times its queries, compiled statements and outermost transactions.
+ * Everything else goes straight to the wrapped database.
+ */
+class InstrumentedDatabase implements SupportSQLiteDatabase {
+    final SupportSQLiteDatabase delegate;
+    private final QueryMetrics metrics;
+    // Per thread: [0] wait for the outermost transaction, [1] when it began, 0 when not timed
+    private final ThreadLocal<long[]> transaction = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[2];
+        }
+    };
+
+    InstrumentedDatabase(SupportSQLiteDatabase delegate, QueryMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    // Queries, timed until their cursor is closed
+
+    @NonNull
+    @Override
+    public Cursor query(@NonNull String query) {
+        return query(new SimpleSQLiteQuery(query));
+    }
+
+    @NonNull
+    @Override
+    public Cursor query(@NonNull String query, @NonNull Object[] bindArgs) {
+        return query(new SimpleSQLiteQuery(query, bindArgs));
+    }
+
+    @NonNull
+    @Override
+    public Cursor query(@NonNull SupportSQLiteQuery query) {
+        if (!metrics.isEnabled()) {
+            return delegate.query(query);
+        }
+        QueryMetrics.StatementRecorder recorder = metrics.statement(query.getSql());
+        recordConcurrency();
+        long startNanos = System.nanoTime();
+        return new InstrumentedCursor(delegate.query(query), recorder, startNanos);
+    }
+
+    @NonNull
+    @Override
+    public Cursor query(@NonNull SupportSQLiteQuery query, @Nullable CancellationSignal cancellationSignal) {
+        if (!metrics.isEnabled()) {
+            return delegate.query(query, cancellationSignal);
+        }
+        QueryMetrics.StatementRecorder recorder = metrics.statement(query.getSql());
+        recordConcurrency();
+        long startNanos = System.nanoTime();
+        return new InstrumentedCursor(delegate.query(query, cancellationSignal), recorder, startNanos);
+    }
+
+    private void recordConcurrency() {
+        if (metrics.hasOpenTransaction() && !delegate.inTransaction()) {
+            metrics.recordConcurrentRead();
+        }
+    }
+
+    // Writes
+
+    @NonNull
+    @Override
+    public SupportSQLiteStatement compileStatement(@NonNull String sql) {
+        SupportSQLiteStatement statement = delegate.compileStatement(sql);
+        if (!metrics.isEnabled()) {
+            return statement;
+        }
+        return new InstrumentedStatement(statement, metrics, metrics.statement(sql));
+    }
+
+    @Override
+    public void execSQL(@NonNull String sql) throws SQLException {
+        if (!metrics.isEnabled()) {
+            delegate.execSQL(sql);
+            return;
+        }
+        long startNanos = System.nanoTime();
+        delegate.execSQL(sql);
+        metrics.statement(sql).record(System.nanoTime() - startNanos, 0);
+    }
+
+    @Override
+    public void execSQL(@NonNull String sql, @NonNull Object[] bindArgs) throws SQLException {
+        if (!metrics.isEnabled()) {
+            delegate.execSQL(sql, bindArgs);
+            return;
+        }
+        long startNanos = System.nanoTime();
+        delegate.execSQL(sql, bindArgs);
+        metrics.statement(sql).record(System.nanoTime() - startNanos, 0);
+    }
+
+    // Not used by Room, timed under a synthetic statement per table
+    @Override
+    public long insert(@NonNull String table, int conflictAlgorithm, @NonNull ContentValues values)
+            throws SQLException {
+        long startNanos = System.nanoTime();
+        long rowId = delegate.insert(table, conflictAlgorithm, values);
+        if (metrics.isEnabled()) {
+            metrics.statement("INSERT INTO " + table).record(System.nanoTime() - startNanos, rowId >= 0 ? 1 : 0);
+        }
+        return rowId;
+    }
+
+    @Override
+    public int delete(@NonNull String table, @Nullable String whereClause, @Nullable Object[] whereArgs) {
+        long startNanos = System.nanoTime();
+        int rows = delegate.delete(table, whereClause, whereArgs);
+        if (metrics.isEnabled()) {
+            metrics.statement("DELETE FROM " + table).record(System.nanoTime() - startNanos, rows);
+        }
+        return rows;
+    }
+
+    @Override
+    public int update(@NonNull String table, int conflictAlgorithm, @NonNull ContentValues values,
+                      @Nullable String whereClause, @Nullable Object[] whereArgs) {
+        long startNanos = System.nanoTime();
+        int rows = delegate.update(table, conflictAlgorithm, values, whereClause, whereArgs);
+        if (metrics.isEnabled()) {
+            metrics.statement("UPDATE " + table).record(System.nanoTime() - startNanos, rows);
+        }
+        return rows;
+    }
+
+    // Transactions, only the outermost one on a thread is timed
+
+    @Override
+    public void beginTransaction() {
+        long requestedNanos = beforeBegin();
+        delegate.beginTransaction();
+        afterBegin(requestedNanos);
+    }
+
+    @Override
+    public void beginTransactionNonExclusive() {
+        long requestedNanos = beforeBegin();
+        delegate.beginTransactionNonExclusive();
+        afterBegin(requestedNanos);
+    }
+
+    @Override
+    public void beginTransactionWithListener(@NonNull SQLiteTransactionListener transactionListener) {
+        long requestedNanos = beforeBegin();
+        delegate.beginTransactionWithListener(transactionListener);
+        afterBegin(requestedNanos);
+    }
+
+    @Override
+    public void beginTransactionWithListenerNonExclusive(@NonNull SQLiteTransactionListener transactionListener) {
+        long requestedNanos = beforeBegin();
+        delegate.beginTransactionWithListenerNonExclusive(transactionListener);
+        afterBegin(requestedNanos);
+    }
+
+    // 0 when the transaction is nested or metrics are off
+    private long beforeBegin() {
+        return metrics.isEnabled() && !delegate.inTransaction() ? System.nanoTime() : 0;
+    }
+
+    private void afterBegin(long requestedNanos) {
+        if (requestedNanos != 0) {
+            long[] timing = transaction.get();
+            timing[1] = System.nanoTime();
+            timing[0] = timing[1] - requestedNanos;
+            metrics.transactionBegan();
+        }
+    }
+
+    @Override
+    public void endTransaction() {
+        delegate.endTransaction();
+        if (!delegate.inTransaction()) {
+            long[] timing = transaction.get();
+            if (timing[1] != 0) {
+                metrics.recordTransaction(timing[0], System.nanoTime() - timing[1]);
+                timing[1] = 0;
+            }
+        }
+    }
+
+    @Override
+    public void setTransactionSuccessful() {
+        delegate.setTransactionSuccessful();
+    }
+
+    @Override
+    public boolean inTransaction() {
+        return delegate.inTransaction();
+    }
+
+    @Override
+    public boolean isDbLockedByCurrentThread() {
+        return delegate.isDbLockedByCurrentThread();
+    }
+
+    @Override
+    public boolean yieldIfContendedSafely() {
+        return delegate.yieldIfContendedSafely();
+    }
+
+    @Override
+    public boolean yieldIfContendedSafely(long sleepAfterYieldDelayMillis) {
+        return delegate.yieldIfContendedSafely(sleepAfterYieldDelayMillis);
+    }
+
+    // Everything else as is
+
+    @Override
+    public int getVersion() {
+        return delegate.getVersion();
+    }
+
+    @Override
+    public void setVersion(int version) {
+        delegate.setVersion(version);
+    }
+
+    @Override
+    public long getMaximumSize() {
+        return delegate.getMaximumSize();
+    }
+
+    @Override
+    public long setMaximumSize(long numBytes) {
+        return delegate.setMaximumSize(numBytes);
+    }
+
+    @Override
+    public long getPageSize() {
+        return delegate.getPageSize();
+    }
+
+    @Override
+    public void setPageSize(long numBytes) {
+        delegate.setPageSize(numBytes);
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return delegate.isReadOnly();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return delegate.isOpen();
+    }
+
+    @Override
+    public boolean needUpgrade(int newVersion) {
+        return delegate.needUpgrade(newVersion);
+    }
+
+    @Nullable
+    @Override
+    public String getPath() {
+        return delegate.getPath();
+    }
+
+    @Override
+    public void setLocale(@NonNull Locale locale) {
+        delegate.setLocale(locale);
+    }
+
+    @Override
+    public void setMaxSqlCacheSize(int cacheSize) {
+        delegate.setMaxSqlCacheSize(cacheSize);
+    }
+
+    @Override
+    public void setForeignKeyConstraintsEnabled(boolean enabled) {
+        delegate.setForeignKeyConstraintsEnabled(enabled);
+    }
+
+    @Override
+    public boolean enableWriteAheadLogging() {
+        return delegate.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void disableWriteAheadLogging() {
+        delegate.disableWriteAheadLogging();
+    }
+
+    @Override
+    public boolean isWriteAheadLoggingEnabled() {
+        return delegate.isWriteAheadLoggingEnabled();
+    }
+
+    @Nullable
+    @Override
+    public List<Pair<String, String>> getAttachedDbs() {
+        return delegate.getAttachedDbs();
+    }
+
+    @Override
+    public boolean isDatabaseIntegrityOk() {
+        return delegate.isDatabaseIntegrityOk();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
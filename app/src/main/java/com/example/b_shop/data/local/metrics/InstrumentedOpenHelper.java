@@ -0,0 +1,55 @@
+package com.example.b_shop.data.local.metrics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+
+class InstrumentedOpenHelper implements SupportSQLiteOpenHelper {
+    private final SupportSQLiteOpenHelper delegate;
+    private final QueryMetrics metrics;
+    private volatile InstrumentedDatabase database;
+
+    InstrumentedOpenHelper(SupportSQLiteOpenHelper delegate, QueryMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Nullable
+    @Override
+    public String getDatabaseName() {
+        return delegate.getDatabaseName();
+    }
+
+    @Override
+    public void setWriteAheadLoggingEnabled(boolean enabled) {
+        delegate.setWriteAheadLoggingEnabled(enabled);
+    }
+
+    @NonNull
+    @Override
+    public SupportSQLiteDatabase getWritableDatabase() {
+        return wrap(delegate.getWritableDatabase());
+    }
+
+    @NonNull
+    @Override
+    public SupportSQLiteDatabase getReadableDatabase() {
+        return wrap(delegate.getReadableDatabase());
+    }
+
+    // The framework helper hands out the same database until it is reopened
+    private SupportSQLiteDatabase wrap(SupportSQLiteDatabase opened) {
+        InstrumentedDatabase current = database;
+        if (current == null || current.delegate != opened) {
+            current = new InstrumentedDatabase(opened, metrics);
+            database = current;
+        }
+        return current;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
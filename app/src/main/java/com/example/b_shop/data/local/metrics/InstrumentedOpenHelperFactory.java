@@ -0,0 +1,32 @@
+package com.example.b_shop.data.local.metrics;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+
+/**
+ * Open helper factory that times every statement of the database it opens into a
+ * {@link QueryMetrics}. Pass it to {@code Room.databaseBuilder(...).openHelperFactory(...)}.
+ * Room's QueryCallback only reports a statement as it starts, so the timing is done by
+ * wrapping the database, its compiled statements and its cursors instead.
+ */
+public class InstrumentedOpenHelperFactory implements SupportSQLiteOpenHelper.Factory {
+    private final SupportSQLiteOpenHelper.Factory delegate;
+    private final QueryMetrics metrics;
+
+    public InstrumentedOpenHelperFactory(@NonNull QueryMetrics metrics) {
+        this(new FrameworkSQLiteOpenHelperFactory(), metrics);
+    }
+
+    public InstrumentedOpenHelperFactory(@NonNull SupportSQLiteOpenHelper.Factory delegate,
+                                         @NonNull QueryMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @NonNull
+    @Override
+    public SupportSQLiteOpenHelper create(@NonNull SupportSQLiteOpenHelper.Configuration configuration) {
+        return new InstrumentedOpenHelper(delegate.create(configuration), metrics);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.b_shop.data.local.metrics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.io.IOException;
+
+/**
+ * Compiled statement that times every execution. Room keeps its insert and update
+ * statements compiled and reuses them, so the recorder is looked up once at compile time.
+ */
+class InstrumentedStatement implements SupportSQLiteStatement {
+    private final SupportSQLiteStatement delegate;
+    private final QueryMetrics metrics;
+    private final QueryMetrics.StatementRecorder recorder;
+
+    InstrumentedStatement(SupportSQLiteStatement delegate, QueryMetrics metrics,
+                          QueryMetrics.StatementRecorder recorder) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.recorder = recorder;
+    }
+
+    @Override
+    public void execute() {
+        long startNanos = System.nanoTime();
+        delegate.execute();
+        record(startNanos, 0);
+    }
+
+    @Override
+    public int executeUpdateDelete() {
+        long startNanos = System.nanoTime();
+        int rows = delegate.executeUpdateDelete();
+        record(startNanos, rows);
+        return rows;
+    }
+
+    @Override
+    public long executeInsert() {
+        long startNanos = System.nanoTime();
+        long rowId = delegate.executeInsert();
+        // -1 when an IGNORE conflict skipped the row
+        record(startNanos, rowId >= 0 ? 1 : 0);
+        return rowId;
+    }
+
+    @Override
+    public long simpleQueryForLong() {
+        long startNanos = System.nanoTime();
+        long value = delegate.simpleQueryForLong();
+        record(startNanos, 1);
+        return value;
+    }
+
+    @Nullable
+    @Override
+    public String simpleQueryForString() {
+        long startNanos = System.nanoTime();
+        String value = delegate.simpleQueryForString();
+        record(startNanos, 1);
+        return value;
+    }
+
+    private void record(long startNanos, long rows) {
+        if (metrics.isEnabled()) {
+            recorder.record(System.nanoTime() - startNanos, rows);
+        }
+    }
+
+    @Override
+    public void bindNull(int index) {
+        delegate.bindNull(index);
+    }
+
+    @Override
+    public void bindLong(int index, long value) {
+        delegate.bindLong(index, value);
+    }
+
+    @Override
+    public void bindDouble(int index, double value) {
+        delegate.bindDouble(index, value);
+    }
+
+    @Override
+    public void bindString(int index, @NonNull String value) {
+        delegate.bindString(index, value);
+    }
+
+    @Override
+    public void bindBlob(int index, @NonNull byte[] value) {
+        delegate.bindBlob(index, value);
+    }
+
+    @Override
+    public void clearBindings() {
+        delegate.clearBindings();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
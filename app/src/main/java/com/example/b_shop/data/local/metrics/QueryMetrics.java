@@ -0,0 +1,272 @@
+package com.example.b_shop.data.local.metrics;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings of the SQL that goes through {@link InstrumentedOpenHelperFactory}, kept for the
+ * life of the process and cheap enough to leave on in release builds.
+ * <ul>
+ *   <li>per statement - latency histogram and rows returned or changed, attributed to the
+ *       DAO method that first ran it</li>
+ *   <li>per DAO - one latency histogram over all of its statements</li>
+ *   <li>LiveData loads - executions of statements that back a LiveData. After the first
+ *       load of each observer these are re-queries after an invalidation of one of its tables</li>
+ *   <li>transactions - time spent waiting for the write lock and time holding it</li>
+ *   <li>concurrent reads - queries that ran while another thread held a transaction, which
+ *       only WAL allows</li>
+ * </ul>
+ * A query's time runs from the call until its cursor is closed, since SQLite steps through the
+ * rows while the cursor is read.
+ */
+public class QueryMetrics {
+    private static final String TAG = "QueryMetrics";
+    // Dynamic SQL, like the product filter, could otherwise grow the map without bound
+    private static final int MAX_STATEMENTS = 256;
+    private static final String DAO_PACKAGE = "com.example.b_shop.data.local.dao.";
+    private static final String LIVE_DATA_CLASS = "androidx.room.RoomTrackingLiveData";
+    static final String UNATTRIBUTED = "(none)";
+    static final String OVERFLOW_SQL = "(other statements)";
+
+    private static final QueryMetrics INSTANCE = new QueryMetrics();
+
+    private final Map<String, StatementRecorder> statements = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> daoLatencies = new ConcurrentHashMap<>();
+    private final StatementRecorder overflow;
+    private final LatencyHistogram transactionWait = new LatencyHistogram();
+    private final LatencyHistogram transactionHold = new LatencyHistogram();
+    private final AtomicInteger openTransactions = new AtomicInteger();
+    private final LongAdder concurrentReads = new LongAdder();
+    private volatile boolean enabled = true;
+
+    /**
+     * The metrics every database of the app records into.
+     */
+    public static QueryMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public QueryMetrics() {
+        overflow = new StatementRecorder(OVERFLOW_SQL, UNATTRIBUTED, UNATTRIBUTED, false,
+            daoLatency(UNATTRIBUTED));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns recording off or on. Statements keep going through the wrappers either way.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    // Looked up once per query or compiled statement. The caller's stack is only walked
+    // the first time a statement is seen.
+    StatementRecorder statement(String sql) {
+        StatementRecorder recorder = statements.get(sql);
+        if (recorder != null) {
+            return recorder;
+        }
+        if (statements.size() >= MAX_STATEMENTS) {
+            return overflow;
+        }
+        return statements.computeIfAbsent(sql, this::newRecorder);
+    }
+
+    private StatementRecorder newRecorder(String sql) {
+        String dao = UNATTRIBUTED;
+        String method = UNATTRIBUTED;
+        boolean liveData = false;
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            String className = frame.getClassName();
+            if (dao.equals(UNATTRIBUTED) && className.startsWith(DAO_PACKAGE) && className.contains("_Impl")) {
+                dao = className.substring(DAO_PACKAGE.length(), className.indexOf("_Impl"));
+                // LiveData and other async queries run in a Callable, their method name is call()
+                if (className.indexOf('$') < 0) {
+                    method = frame.getMethodName();
+                }
+            } else if (className.startsWith(LIVE_DATA_CLASS)) {
+                liveData = true;
+            }
+        }
+        return new StatementRecorder(sql, dao, method, liveData, daoLatency(dao));
+    }
+
+    private LatencyHistogram daoLatency(String dao) {
+        return daoLatencies.computeIfAbsent(dao, key -> new LatencyHistogram());
+    }
+
+    void transactionBegan() {
+        openTransactions.incrementAndGet();
+    }
+
+    void recordTransaction(long waitNanos, long holdNanos) {
+        openTransactions.decrementAndGet();
+        transactionWait.record(waitNanos);
+        transactionHold.record(holdNanos);
+    }
+
+    boolean hasOpenTransaction() {
+        return openTransactions.get() > 0;
+    }
+
+    void recordConcurrentRead() {
+        concurrentReads.increment();
+    }
+
+    /**
+     * Every statement run since the last reset, the one with the most total time first.
+     */
+    public List<StatementStats> getStatementStats() {
+        List<StatementRecorder> recorders = new ArrayList<>(statements.values());
+        recorders.add(overflow);
+        List<StatementStats> stats = new ArrayList<>();
+        for (StatementRecorder recorder : recorders) {
+            StatementStats statement = recorder.stats();
+            if (statement.getExecutions() > 0) {
+                stats.add(statement);
+            }
+        }
+        Collections.sort(stats, (a, b) -> Long.compare(b.latency.totalNanos, a.latency.totalNanos));
+        return stats;
+    }
+
+    /**
+     * Latency over all statements of each DAO, keyed by DAO name.
+     * Room's own statements, like the invalidation checks, are under {@code (none)}.
+     */
+    public Map<String, LatencyHistogram.Snapshot> getDaoLatencies() {
+        Map<String, LatencyHistogram.Snapshot> latencies = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : daoLatencies.entrySet()) {
+            latencies.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return latencies;
+    }
+
+    /**
+     * Time from asking for a transaction until it began, the wait for the write lock.
+     */
+    public LatencyHistogram.Snapshot getTransactionWaitTime() {
+        return transactionWait.snapshot();
+    }
+
+    /**
+     * Time from the start of an outermost transaction until it ended.
+     */
+    public LatencyHistogram.Snapshot getTransactionHoldTime() {
+        return transactionHold.snapshot();
+    }
+
+    /**
+     * Queries that ran while another thread held a transaction. Without WAL they would
+     * have waited for it to end.
+     */
+    public long getConcurrentReads() {
+        return concurrentReads.sum();
+    }
+
+    // Keeps the recorders, compiled statements hold on to theirs
+    public void reset() {
+        for (StatementRecorder recorder : statements.values()) {
+            recorder.reset();
+        }
+        overflow.reset();
+        for (LatencyHistogram latency : daoLatencies.values()) {
+            latency.reset();
+        }
+        transactionWait.reset();
+        transactionHold.reset();
+        concurrentReads.reset();
+    }
+
+    /**
+     * Logs the transactions, every DAO and the {@code limit} statements with the most total time.
+     */
+    public void logStats(int limit) {
+        Log.d(TAG, "transactions wait " + transactionWait.snapshot() + ", hold " + transactionHold.snapshot()
+            + ", concurrent reads " + concurrentReads.sum());
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : getDaoLatencies().entrySet()) {
+            Log.d(TAG, entry.getKey() + ": " + entry.getValue());
+        }
+        List<StatementStats> stats = getStatementStats();
+        for (int i = 0; i < Math.min(limit, stats.size()); i++) {
+            Log.d(TAG, stats.get(i).toString());
+        }
+    }
+
+    static final class StatementRecorder {
+        final String sql;
+        final String dao;
+        final String method;
+        final boolean liveData;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder rows = new LongAdder();
+        private final LatencyHistogram daoLatency;
+
+        StatementRecorder(String sql, String dao, String method, boolean liveData, LatencyHistogram daoLatency) {
+            this.sql = sql;
+            this.dao = dao;
+            this.method = method;
+            this.liveData = liveData;
+            this.daoLatency = daoLatency;
+        }
+
+        void record(long nanos, long rowCount) {
+            latency.record(nanos);
+            daoLatency.record(nanos);
+            rows.add(rowCount);
+        }
+
+        void reset() {
+            latency.reset();
+            rows.reset();
+        }
+
+        StatementStats stats() {
+            return new StatementStats(sql, dao, method, liveData, latency.snapshot(), rows.sum());
+        }
+    }
+
+    public static class StatementStats {
+        public final String sql;
+        // DAO and method that first ran the statement, (none) for Room's own statements
+        public final String dao;
+        public final String method;
+        // Backs a LiveData, executions are its loads and re-queries
+        public final boolean liveData;
+        public final LatencyHistogram.Snapshot latency;
+        // Rows read, or changed by writes
+        public final long rows;
+
+        StatementStats(String sql, String dao, String method, boolean liveData,
+                       LatencyHistogram.Snapshot latency, long rows) {
+            this.sql = sql;
+            this.dao = dao;
+            this.method = method;
+            this.liveData = liveData;
+            this.latency = latency;
+            this.rows = rows;
+        }
+
+        public long getExecutions() {
+            return latency.count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s.%s%s: %s, total=%.2fms, rows=%d, sql=%s",
+                dao, method, liveData ? " (LiveData)" : "", latency, latency.totalNanos / 1e6, rows, sql);
+        }
+    }
+}
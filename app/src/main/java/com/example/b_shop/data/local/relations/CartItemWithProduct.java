@@ -21,4 +21,22 @@ public class CartItemWithProduct {
     public float getTotalPrice() {
         return cartItem.getQuantity() * cartItem.getItemPrice();
     }
+
+    /**
+     * Copy showing a quantity that has not been written to the database yet.
+     */
+    public CartItemWithProduct withQuantity(int quantity) {
+        CartItem copy = new CartItem();
+        copy.setCartItemId(cartItem.getCartItemId());
+        copy.setUserId(cartItem.getUserId());
+        copy.setProductId(cartItem.getProductId());
+        copy.setQuantity(quantity);
+        copy.setItemPrice(cartItem.getItemPrice());
+        copy.setAddedAt(cartItem.getAddedAt());
+
+        CartItemWithProduct result = new CartItemWithProduct();
+        result.cartItem = copy;
+        result.product = product;
+        return result;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,124 @@
+package com.example.b_shop.data.repositories;
+
+import android.util.Log;
+import com.example.b_shop.data.local.dao.UserDao;
+import com.example.b_shop.data.local.entities.UserAuditLog;
+import com.example.b_shop.utils.concurrent.PriorityExecutorService;
+import com.example.b_shop.utils.concurrent.TaskPriority;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Rolls audit log entries older than the retention window into daily summaries
+ * and prunes them. Each batch is its own low priority task on the write executor,
+ * so user facing writes get in between batches.
+ */
+class AuditLogCompactor {
+    private static final String TAG = "AuditLogCompactor";
+    private static final int BATCH_SIZE = 200;
+    private static final long COMPACT_INTERVAL_MS = TimeUnit.HOURS.toMillis(24);
+
+    private final UserDao userDao;
+    private final PriorityExecutorService writeExecutor;
+    private final AuditLogRetention retention;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile long lastCompactMillis;
+
+    AuditLogCompactor(UserDao userDao, PriorityExecutorService writeExecutor, AuditLogRetention retention) {
+        this.userDao = userDao;
+        this.writeExecutor = writeExecutor;
+        this.retention = retention;
+    }
+
+    /**
+     * Starts a compaction pass unless one is running or one finished recently.
+     */
+    void compact() {
+        if (System.currentTimeMillis() - lastCompactMillis < COMPACT_INTERVAL_MS
+                || !running.compareAndSet(false, true)) {
+            return;
+        }
+        long cutoff = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis())
+            - TimeUnit.DAYS.toSeconds(retention.getRetentionDays());
+        scheduleBatch(cutoff, 0);
+    }
+
+    private void scheduleBatch(long cutoff, int compactedSoFar) {
+        try {
+            writeExecutor.execute(() -> runBatch(cutoff, compactedSoFar), TaskPriority.BACKGROUND);
+        } catch (RejectedExecutionException e) {
+            // Picked up again by the next call, the rows left are still older than the cutoff
+            Log.w(TAG, "Audit log compaction stopped, write queue is full");
+            running.set(false);
+        }
+    }
+
+    private void runBatch(long cutoff, int compactedSoFar) {
+        boolean more = false;
+        int compacted = compactedSoFar;
+        try {
+            List<UserAuditLog> batch = userDao.getAuditLogsBefore(cutoff, BATCH_SIZE);
+            if (!batch.isEmpty()) {
+                // Archive first, a crash before the delete only archives rows twice
+                if (retention.getArchiveDir() != null) {
+                    archive(batch, retention.getArchiveDir());
+                }
+                userDao.compactAuditLogs(batch);
+                compacted += batch.size();
+                more = batch.size() == BATCH_SIZE;
+            }
+        } catch (Exception e) {
+            // Rows that failed to archive stay in the table for the next pass
+            Log.e(TAG, "Audit log compaction stopped", e);
+        }
+
+        if (more) {
+            scheduleBatch(cutoff, compacted);
+        } else {
+            lastCompactMillis = System.currentTimeMillis();
+            running.set(false);
+            Log.d(TAG, "Compacted " + compacted + " audit log entries");
+        }
+    }
+
+    private static void archive(List<UserAuditLog> logs, File dir) throws IOException, JSONException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create audit archive directory " + dir);
+        }
+        SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        File file = new File(dir, "audit-log-" + format.format(new Date()) + ".jsonl.gz");
+
+        // Appending starts a new gzip member, readers treat the file as one stream
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(new FileOutputStream(file, true)), StandardCharsets.UTF_8))) {
+            for (UserAuditLog log : logs) {
+                JSONObject line = new JSONObject()
+                    .put("logId", log.getLogId())
+                    .put("timestamp", log.getTimestamp())
+                    .put("adminId", log.getAdminId())
+                    .put("userId", log.getUserId())
+                    .put("action", log.getAction())
+                    .put("details", log.getDetails());
+                writer.write(line.toString());
+                writer.write('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.b_shop.data.repositories;
+
+import androidx.annotation.Nullable;
+import java.io.File;
+
+/**
+ * How long detailed audit log entries are kept before being rolled up into daily summaries.
+ */
+public final class AuditLogRetention {
+    public static final int DEFAULT_RETENTION_DAYS = 90;
+
+    private final int retentionDays;
+    @Nullable
+    private final File archiveDir;
+
+    /**
+     * @param retentionDays Days of detailed entries to keep, at least 1
+     * @param archiveDir Where pruned entries are written as gzipped JSON lines, or null to not archive them
+     */
+    public AuditLogRetention(int retentionDays, @Nullable File archiveDir) {
+        if (retentionDays < 1) {
+            throw new IllegalArgumentException("Retention must be at least one day");
+        }
+        this.retentionDays = retentionDays;
+        this.archiveDir = archiveDir;
+    }
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    @Nullable
+    public File getArchiveDir() {
+        return archiveDir;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.b_shop.data.repositories;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import com.example.b_shop.data.local.dao.UserDao;
+import com.example.b_shop.data.local.entities.UserAuditLog;
+import com.example.b_shop.utils.concurrent.PriorityExecutorService;
+import com.example.b_shop.utils.concurrent.TaskPriority;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers audit log entries in memory and writes them in batches,
+ * so logging an admin action costs no database work on the caller's path.
+ *
+ * Entries are flushed in one transaction once {@link #BATCH_SIZE} are waiting,
+ * or {@link #FLUSH_DELAY_MS} after the first one arrived, whichever comes first.
+ * Overflow policy: when the buffer is full the oldest pending entry is dropped
+ * and counted, since blocking the admin action would be worse than losing a row.
+ */
+class AuditLogWriter {
+    private static final String TAG = "AuditLogWriter";
+    private static final int CAPACITY = 512;
+    private static final int BATCH_SIZE = 50;
+    private static final long FLUSH_DELAY_MS = 2000L;
+
+    private final UserDao userDao;
+    private final PriorityExecutorService writeExecutor;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable scheduledFlush = this::flush;
+
+    // Ring buffer, guarded by this
+    private final UserAuditLog[] buffer = new UserAuditLog[CAPACITY];
+    private int head;
+    private int size;
+
+    private final AtomicBoolean flushQueued = new AtomicBoolean(false);
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+
+    AuditLogWriter(UserDao userDao, PriorityExecutorService writeExecutor) {
+        this.userDao = userDao;
+        this.writeExecutor = writeExecutor;
+    }
+
+    void enqueue(UserAuditLog entry) {
+        int pending;
+        synchronized (this) {
+            if (size == CAPACITY) {
+                buffer[head] = null;
+                head = (head + 1) % CAPACITY;
+                size--;
+                droppedCount.increment();
+            }
+            buffer[(head + size) % CAPACITY] = entry;
+            pending = ++size;
+        }
+
+        if (pending >= BATCH_SIZE) {
+            flush();
+        } else if (pending == 1) {
+            handler.postDelayed(scheduledFlush, FLUSH_DELAY_MS);
+        }
+    }
+
+    /**
+     * Queues a write of everything pending. Safe to call from any thread.
+     */
+    void flush() {
+        handler.removeCallbacks(scheduledFlush);
+        if (!flushQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            writeExecutor.execute(this::writePending, TaskPriority.BACKGROUND);
+        } catch (RejectedExecutionException e) {
+            // Entries stay buffered, try again later instead of waiting for more entries
+            flushQueued.set(false);
+            handler.postDelayed(scheduledFlush, FLUSH_DELAY_MS);
+            Log.w(TAG, "Audit log flush rejected, retrying in " + FLUSH_DELAY_MS + " ms", e);
+        }
+    }
+
+    private void writePending() {
+        flushQueued.set(false);
+        List<UserAuditLog> batch = drain();
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            userDao.insertAuditLogs(batch);
+            writtenCount.add(batch.size());
+        } catch (Exception e) {
+            // One bad row fails the whole transaction, write the rest one by one
+            Log.w(TAG, "Batch insert of " + batch.size() + " audit entries failed, retrying per row", e);
+            for (UserAuditLog entry : batch) {
+                try {
+                    userDao.insertAuditLog(entry);
+                    writtenCount.increment();
+                } catch (Exception rowError) {
+                    droppedCount.increment();
+                    Log.e(TAG, "Dropped audit entry " + entry.getAction(), rowError);
+                }
+            }
+        }
+
+        long dropped = droppedCount.sum();
+        if (dropped > 0) {
+            Log.w(TAG, "Audit entries written: " + writtenCount.sum() + ", dropped: " + dropped);
+        }
+    }
+
+    private synchronized List<UserAuditLog> drain() {
+        List<UserAuditLog> batch = new ArrayList<>(size);
+        while (size > 0) {
+            batch.add(buffer[head]);
+            buffer[head] = null;
+            head = (head + 1) % CAPACITY;
+            size--;
+        }
+        return batch;
+    }
+
+    long getDroppedCount() {
+        return droppedCount.sum();
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.b_shop.data.repositories;
 
+import android.os.Handler;
+import android.os.Looper;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import com.example.b_shop.data.local.dao.CartDao;
+import com.example.b_shop.data.local.dao.InventoryDao;
 import com.example.b_shop.data.local.relations.CartItemWithProduct;
 import com.example.b_shop.data.local.dao.ProductDao;
 import com.example.b_shop.data.local.entities.CartItem;
@@ -10,34 +13,44 @@ import com.example.b_shop.data.local.entities.Product;
 import com.example.b_shop.data.local.errors.CartError;
 import com.example.b_shop.data.local.models.CartOperationResult;
 import com.example.b_shop.utils.UserManager;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import com.example.b_shop.utils.concurrent.TaskPriority;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 public class CartRepository {
+    private static final long QUANTITY_FLUSH_DELAY_MS = 500;
+
     private final CartDao cartDao;
     private final ProductDao productDao;
     private final UserManager userManager;
-    private final ExecutorService executorService;
+    private final Executor executorService;
     private final MutableLiveData<CartError> cartError;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable flushQuantitiesTask = this::flushQuantities;
+
+    // Write-behind quantities, main thread only. Pending ones are not written yet,
+    // written ones are kept until Room emits a list that has them.
+    private final Map<Integer, Integer> pendingQuantities = new HashMap<>();
+    private final Map<Integer, CartOperationCallback> pendingCallbacks = new HashMap<>();
+    private final Map<Integer, Integer> writtenQuantities = new HashMap<>();
+    private final MutableLiveData<Map<Integer, Integer>> quantityOverrides =
+        new MutableLiveData<>(Collections.emptyMap());
+    private int pendingUserId = -1;
 
-    public CartRepository(CartDao cartDao, ProductDao productDao, UserManager userManager) {
+    public CartRepository(CartDao cartDao, ProductDao productDao, UserManager userManager,
+                          AppExecutors executors) {
         this.cartDao = cartDao;
         this.productDao = productDao;
         this.userManager = userManager;
         this.cartError = new MutableLiveData<>();
-        
-        // Create executor with custom error handling
-        this.executorService = Executors.newSingleThreadExecutor(r -> {
-            Thread thread = new Thread(r);
-            thread.setUncaughtExceptionHandler((t, e) -> {
-                android.util.Log.e("CartRepository", "Uncaught exception in cart operation", e);
-                CartError error = CartError.databaseError("Unexpected error in cart operation", e);
-                cartError.postValue(error);
-            });
-            return thread;
-        });
+
+        // Cart edits must apply in the order the user made them
+        this.executorService = executors.newSerialExecutor(executors.dbWrite(), TaskPriority.UI_CRITICAL);
         
         android.util.Log.d("CartRepository", "CartRepository initialized");
     }
@@ -87,6 +100,9 @@ public class CartRepository {
 
     public void addToCart(int productId, int quantity, CartOperationCallback callback) {
         android.util.Log.d("CartRepository", "Queuing addToCart operation");
+        // Adding reads the stored quantity, buffered taps go first. The cart screen
+        // flushes when it stops, so from other screens there is normally nothing left.
+        flushQuantities();
         executorService.execute(() -> {
             try {
                 android.util.Log.d("CartRepository", "Starting addToCart: productId=" + productId + ", quantity=" + quantity);
@@ -117,7 +133,8 @@ public class CartRepository {
                 );
 
                 android.util.Log.d("CartRepository", "Attempting to validate and add to cart");
-                boolean success = cartDao.validateAndAddToCart(cartItem, product);
+                boolean success = cartDao.validateAndAddToCart(
+                    cartItem, System.currentTimeMillis() + InventoryDao.HOLD_DURATION_MS);
                 
                 if (success) {
                     android.util.Log.d("CartRepository", "Successfully added to cart");
@@ -141,58 +158,161 @@ public class CartRepository {
         });
     }
 
+    /**
+     * Shows the new quantity right away and writes it back after a short delay,
+     * so a burst of taps on one item costs a single database write.
+     * Stock is checked when the write happens. Main thread only.
+     */
     public void updateQuantity(int cartItemId, int quantity, CartOperationCallback callback) {
-        executorService.execute(() -> {
-            try {
-                userManager.validateUserSession();
+        if (quantity <= 0) {
+            CartError error = CartError.invalidQuantity(quantity);
+            cartError.setValue(error);
+            callback.onError(error);
+            return;
+        }
 
-                if (quantity <= 0) {
-                    CartError error = CartError.invalidQuantity(quantity);
-                    cartError.postValue(error);
-                    callback.onError(error);
-                    return;
-                }
+        int userId = userManager.getCurrentUserId();
+        if (userId != pendingUserId) {
+            // Another user logged in, whatever was buffered is not theirs
+            discardPendingQuantities();
+            pendingUserId = userId;
+        }
+        pendingQuantities.put(cartItemId, quantity);
+        pendingCallbacks.put(cartItemId, callback);
+        publishQuantityOverrides();
 
-                CartItem cartItem = cartDao.getCartItemById(cartItemId);
-                if (cartItem == null) {
-                    CartError error = CartError.productNotFound(cartItemId);
-                    cartError.postValue(error);
-                    callback.onError(error);
-                    return;
-                }
+        mainHandler.removeCallbacks(flushQuantitiesTask);
+        mainHandler.postDelayed(flushQuantitiesTask, QUANTITY_FLUSH_DELAY_MS);
+    }
 
-                if (!validateStock(cartItem.getProductId(), quantity)) {
-                    Product product = productDao.getProductSync(cartItem.getProductId());
-                    CartError error = CartError.insufficientStock(
-                        cartItem.getProductId(), 
-                        quantity, 
-                        product.getStock()
-                    );
-                    cartError.postValue(error);
-                    callback.onError(error);
-                    return;
-                }
+    /**
+     * Writes buffered quantities now, in one transaction.
+     * Called when the cart screen stops and before anything that reads the cart from the database.
+     */
+    public void flushQuantities() {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(flushQuantitiesTask);
+            return;
+        }
+        mainHandler.removeCallbacks(flushQuantitiesTask);
+        if (pendingQuantities.isEmpty()) {
+            return;
+        }
 
-                cartDao.updateQuantity(cartItemId, userManager.getCurrentUserId(), quantity);
-                callback.onSuccess();
+        Map<Integer, Integer> batch = new HashMap<>(pendingQuantities);
+        Map<Integer, CartOperationCallback> callbacks = new HashMap<>(pendingCallbacks);
+        pendingQuantities.clear();
+        pendingCallbacks.clear();
+        // Keep showing the written values until Room re-emits them, see confirmQuantities
+        writtenQuantities.putAll(batch);
+        int userId = pendingUserId;
 
+        executorService.execute(() -> {
+            List<CartDao.StockShortfall> shortfalls = Collections.emptyList();
+            CartError failure = null;
+            try {
+                userManager.validateUserSession();
+                shortfalls = cartDao.applyQuantities(
+                    userId, batch, System.currentTimeMillis() + InventoryDao.HOLD_DURATION_MS);
             } catch (IllegalStateException e) {
-                CartError error = CartError.sessionExpired();
-                cartError.postValue(error);
-                callback.onError(error);
+                failure = CartError.sessionExpired();
             } catch (Exception e) {
-                CartError error = CartError.databaseError("Failed to update quantity", e);
-                cartError.postValue(error);
-                callback.onError(error);
+                failure = CartError.databaseError("Failed to update quantity", e);
             }
+            List<CartDao.StockShortfall> rejected = shortfalls;
+            CartError error = failure;
+            mainHandler.post(() -> onQuantitiesWritten(batch, callbacks, rejected, error));
         });
     }
 
+    /**
+     * Writes buffered quantities, then posts {@code afterWrites} to the main thread once they
+     * and every cart write queued before them have committed, whether or not they succeeded.
+     * Use it to start anything that reads the cart from the database. Main thread only.
+     */
+    public void flushQuantities(Runnable afterWrites) {
+        flushQuantities();
+        executorService.execute(() -> mainHandler.post(afterWrites));
+    }
+
+    private void onQuantitiesWritten(Map<Integer, Integer> batch,
+                                     Map<Integer, CartOperationCallback> callbacks,
+                                     List<CartDao.StockShortfall> shortfalls,
+                                     CartError failure) {
+        if (failure != null) {
+            for (Map.Entry<Integer, Integer> entry : batch.entrySet()) {
+                writtenQuantities.remove(entry.getKey(), entry.getValue());
+                callbacks.get(entry.getKey()).onError(failure);
+            }
+            cartError.setValue(failure);
+            publishQuantityOverrides();
+            return;
+        }
+
+        for (CartDao.StockShortfall shortfall : shortfalls) {
+            // Not written, fall back to what the database has
+            writtenQuantities.remove(shortfall.cartItemId, batch.get(shortfall.cartItemId));
+            CartError error = CartError.insufficientStock(
+                shortfall.productId, shortfall.requested, shortfall.available);
+            cartError.setValue(error);
+            callbacks.remove(shortfall.cartItemId).onError(error);
+        }
+        for (CartOperationCallback callback : callbacks.values()) {
+            callback.onSuccess();
+        }
+        if (!shortfalls.isEmpty()) {
+            publishQuantityOverrides();
+        }
+    }
+
+    /**
+     * Quantities shown ahead of the database, by cart item id.
+     */
+    public LiveData<Map<Integer, Integer>> getQuantityOverrides() {
+        return quantityOverrides;
+    }
+
+    /**
+     * Drops overrides the database has caught up with. Called with every list Room emits.
+     */
+    public void confirmQuantities(List<CartItemWithProduct> items) {
+        if (writtenQuantities.isEmpty()) {
+            return;
+        }
+        Map<Integer, Integer> stored = new HashMap<>();
+        for (CartItemWithProduct item : items) {
+            stored.put(item.cartItem.getCartItemId(), item.cartItem.getQuantity());
+        }
+        // Entries whose item is gone were removed from the cart, they have nothing left to show
+        boolean changed = writtenQuantities.entrySet().removeIf(entry ->
+            !stored.containsKey(entry.getKey()) || stored.get(entry.getKey()).equals(entry.getValue()));
+        if (changed) {
+            publishQuantityOverrides();
+        }
+    }
+
+    private void publishQuantityOverrides() {
+        Map<Integer, Integer> overrides = new HashMap<>(writtenQuantities);
+        overrides.putAll(pendingQuantities);
+        quantityOverrides.setValue(Collections.unmodifiableMap(overrides));
+    }
+
+    private void discardPendingQuantities() {
+        mainHandler.removeCallbacks(flushQuantitiesTask);
+        pendingQuantities.clear();
+        pendingCallbacks.clear();
+        writtenQuantities.clear();
+        publishQuantityOverrides();
+    }
+
     public void removeFromCart(int cartItemId, CartOperationCallback callback) {
+        pendingQuantities.remove(cartItemId);
+        pendingCallbacks.remove(cartItemId);
+        publishQuantityOverrides();
         executorService.execute(() -> {
             try {
                 userManager.validateUserSession();
-                cartDao.deleteCartItemById(cartItemId, userManager.getCurrentUserId());
+                cartDao.removeCartItem(cartItemId, userManager.getCurrentUserId());
                 callback.onSuccess();
             } catch (IllegalStateException e) {
                 CartError error = CartError.sessionExpired();
@@ -207,10 +327,11 @@ public class CartRepository {
     }
 
     public void clearCart(CartOperationCallback callback) {
+        discardPendingQuantities();
         executorService.execute(() -> {
             try {
                 userManager.validateUserSession();
-                cartDao.clearCart(userManager.getCurrentUserId());
+                cartDao.clearCartAndRelease(userManager.getCurrentUserId());
                 callback.onSuccess();
             } catch (IllegalStateException e) {
                 CartError error = CartError.sessionExpired();
@@ -224,32 +345,6 @@ public class CartRepository {
         });
     }
 
-    public boolean validateStock(int productId, int quantity) {
-        try {
-            Product product = productDao.getProductSync(productId);
-            if (product == null) return false;
-
-            CartItem existingItem = cartDao.getCartItemByProduct(
-                userManager.getCurrentUserId(),
-                productId
-            );
-
-            int totalQuantity = quantity;
-            if (existingItem != null) {
-                totalQuantity += existingItem.getQuantity();
-            }
-
-            return totalQuantity <= product.getStock();
-        } catch (Exception e) {
-            cartError.postValue(CartError.databaseError("Failed to validate stock", e));
-            return false;
-        }
-    }
-
-    public void cleanup() {
-        executorService.shutdown();
-    }
-
     /**
      * Callback interface for cart operations
      */
@@ -2,19 +2,14 @@ package com.example.b_shop.data.repositories;
 
 import androidx.lifecycle.LiveData;
 import com.example.b_shop.data.local.dao.CategoryDao;
-import com.example.b_shop.data.local.dao.CategoryDao.CategoryWithProductCount;
 import com.example.b_shop.data.local.entities.Category;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class CategoryRepository {
     private final CategoryDao categoryDao;
-    private final ExecutorService executorService;
 
     public CategoryRepository(CategoryDao categoryDao) {
         this.categoryDao = categoryDao;
-        this.executorService = Executors.newSingleThreadExecutor();
     }
 
     public LiveData<List<Category>> getAllCategories() {
@@ -29,11 +24,10 @@ public class CategoryRepository {
         return categoryDao.searchCategories(query);
     }
 
-    public LiveData<List<CategoryWithProductCount>> getCategoriesWithProductCount() {
+    /**
+     * Categories with their productCount and inStockCount filled in.
+     */
+    public LiveData<List<Category>> getCategoriesWithProductCount() {
         return categoryDao.getCategoriesWithProductCount();
     }
-
-    public void cleanup() {
-        executorService.shutdown();
-    }
 }
\ No newline at end of file
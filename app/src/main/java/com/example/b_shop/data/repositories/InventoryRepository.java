@@ -0,0 +1,90 @@
+package com.example.b_shop.data.repositories;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import com.example.b_shop.data.local.dao.InventoryDao;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import com.example.b_shop.utils.concurrent.PriorityExecutorService;
+import com.example.b_shop.utils.concurrent.TaskPriority;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Owns the stock hold lifecycle outside of cart and checkout transactions:
+ * expired holds are swept periodically and their stock returned.
+ */
+public class InventoryRepository {
+    private static final String TAG = "InventoryRepository";
+    private static final long SWEEP_INTERVAL_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final int SWEEP_BATCH_SIZE = 100;
+
+    private final InventoryDao inventoryDao;
+    private final PriorityExecutorService executorService;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean sweepQueued = new AtomicBoolean(false);
+    private final Runnable periodicSweep = new Runnable() {
+        @Override
+        public void run() {
+            releaseExpiredHolds();
+            mainHandler.postDelayed(this, SWEEP_INTERVAL_MS);
+        }
+    };
+
+    public InventoryRepository(InventoryDao inventoryDao, AppExecutors executors) {
+        this.inventoryDao = inventoryDao;
+        this.executorService = executors.dbWrite();
+    }
+
+    public void startExpirySweeper() {
+        mainHandler.removeCallbacks(periodicSweep);
+        mainHandler.post(periodicSweep);
+    }
+
+    public void stopExpirySweeper() {
+        mainHandler.removeCallbacks(periodicSweep);
+    }
+
+    /**
+     * Returns the stock of every hold that has expired, in the background.
+     * Each batch is its own task so cart writes get in between.
+     */
+    public void releaseExpiredHolds() {
+        if (!sweepQueued.compareAndSet(false, true)) {
+            return;
+        }
+        scheduleSweepBatch(System.currentTimeMillis(), 0);
+    }
+
+    private void scheduleSweepBatch(long now, int releasedSoFar) {
+        try {
+            executorService.execute(() -> runSweepBatch(now, releasedSoFar), TaskPriority.BACKGROUND);
+        } catch (RejectedExecutionException e) {
+            // The next periodic sweep tries again
+            Log.w(TAG, "Releasing expired holds stopped, write queue is full");
+            sweepQueued.set(false);
+        }
+    }
+
+    private void runSweepBatch(long now, int releasedSoFar) {
+        int released = releasedSoFar;
+        boolean more = false;
+        try {
+            int batch = inventoryDao.releaseExpired(now, SWEEP_BATCH_SIZE);
+            released += batch;
+            more = batch == SWEEP_BATCH_SIZE;
+        } catch (Exception e) {
+            Log.e(TAG, "Releasing expired holds failed", e);
+        }
+
+        if (more) {
+            scheduleSweepBatch(now, released);
+        } else {
+            sweepQueued.set(false);
+            if (released > 0) {
+                Log.d(TAG, "Released " + released + " expired stock holds");
+            }
+        }
+    }
+}
@@ -1,32 +1,51 @@
 package com.example.b_shop.data.repositories;
 
+import android.util.LruCache;
 import androidx.lifecycle.LiveData;
+import com.example.b_shop.data.local.dao.CheckoutDao;
 import com.example.b_shop.data.local.dao.OrderDao;
 import com.example.b_shop.data.local.entities.Order;
 import com.example.b_shop.data.local.entities.OrderItem;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import com.example.b_shop.utils.concurrent.PriorityExecutorService;
+import com.example.b_shop.utils.concurrent.TaskPriority;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 public class OrderRepository {
+    // Orders kept per user, enough for the profile summary and the first history page
+    private static final int RECENT_ORDERS = 20;
+    private static final int RECENT_ORDERS_CACHE_SIZE = 64;
+
     private final OrderDao orderDao;
-    private final ExecutorService executorService;
+    private final CheckoutDao checkoutDao;
+    private final PriorityExecutorService executorService;
+    private final PriorityExecutorService readExecutor;
+    // Newest orders per user, dropped after every order write through this repository.
+    // Guarded by itself together with orderWrites, which tells a load that raced with a
+    // write not to cache what it read.
+    private final LruCache<Integer, List<Order>> recentOrders = new LruCache<>(RECENT_ORDERS_CACHE_SIZE);
+    private long orderWrites;
 
-    public OrderRepository(OrderDao orderDao) {
+    public OrderRepository(OrderDao orderDao, CheckoutDao checkoutDao, AppExecutors executors) {
         this.orderDao = orderDao;
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.checkoutDao = checkoutDao;
+        this.executorService = executors.dbWrite();
+        this.readExecutor = executors.io();
     }
 
     // Cart operations
     public void addToCart(int userId, int productId, int quantity, float price) {
         executorService.execute(() -> {
             orderDao.addToCart(userId, productId, quantity, price);
+            ordersChanged(userId);
         });
     }
 
     public Future<Integer> getActiveCartId(int userId) {
-        return executorService.submit(() -> orderDao.getUserActiveCartId(userId));
+        return readExecutor.submit(() -> orderDao.getUserActiveCartId(userId));
     }
 
     public LiveData<OrderDao.OrderWithDetails> getCartWithDetails(int cartId) {
@@ -38,34 +57,70 @@ public class OrderRepository {
     }
 
     // Order management
+
+    /**
+     * Writes the order with its items in one transaction and waits for it.
+     * Blocks, so call it off the main thread and never from the write thread itself.
+     * @return the id of the new order
+     */
     public long createOrder(Order order, List<OrderItem> items) throws Exception {
         try {
-            return executorService.submit(() -> {
-                // Insert order first to get the orderId
-                long orderId = orderDao.insertOrder(order);
-                
-                // Update orderId in all items
-                for (OrderItem item : items) {
-                    item.setOrderId((int) orderId);
-                    orderDao.insertOrderItem(item);
-                }
-                
-                return orderId;
-            }).get();
+            return executorService.submit(() -> insertOrderWithItems(order, items),
+                TaskPriority.UI_CRITICAL).get();
         } catch (Exception e) {
             throw new Exception("Failed to create order: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Writes the order with its items in one transaction without waiting for it.
+     * The callback runs on the write thread once the transaction has committed or
+     * rolled back; nothing of the order is written when it gets an error.
+     */
+    public void createOrder(Order order, List<OrderItem> items, OrderCallback callback) {
+        executorService.execute(() -> {
+            long orderId;
+            try {
+                orderId = insertOrderWithItems(order, items);
+            } catch (Exception e) {
+                android.util.Log.e("OrderRepository", "Failed to create order", e);
+                callback.onError(e);
+                return;
+            }
+            callback.onOrderCreated(orderId);
+        }, TaskPriority.UI_CRITICAL);
+    }
+
+    private long insertOrderWithItems(Order order, List<OrderItem> items) {
+        long orderId = orderDao.insertOrderWithItems(order, items);
+        ordersChanged(order.getUserId());
+        return orderId;
+    }
+
+    /**
+     * Places an order for everything in the user's cart as a single transaction.
+     * Runs on the calling thread, so it must not be called from the main thread.
+     * @return the id of the new order
+     * @throws com.example.b_shop.data.local.errors.CheckoutException if the cart is empty
+     *         or a product does not have enough stock; nothing is written in that case
+     */
+    public long placeOrderFromCart(int userId) {
+        long orderId = checkoutDao.placeOrder(userId);
+        ordersChanged(userId);
+        return orderId;
+    }
+
     public void updateOrder(Order order) {
         executorService.execute(() -> {
             orderDao.updateOrder(order);
+            ordersChanged(order.getUserId());
         });
     }
 
     public void deleteOrder(Order order) {
         executorService.execute(() -> {
             orderDao.deleteOrder(order);
+            ordersChanged(order.getUserId());
         });
     }
 
@@ -86,10 +141,81 @@ public class OrderRepository {
         return orderDao.getOrderItemsWithProducts(orderId);
     }
 
+    /**
+     * Every order of the user, newest first. Long-lived customers can have thousands,
+     * lists should page through {@link #getOrderHistory} instead.
+     */
     public LiveData<List<Order>> getUserOrders(int userId) {
         return orderDao.getUserOrders(userId);
     }
 
+    /**
+     * The user's order history, newest first.
+     * Loads the page following {@code after}, or the first page if it is null. First pages
+     * of up to {@value #RECENT_ORDERS} orders come from {@link #getRecentOrders}.
+     * Blocks, so call it off the main thread.
+     */
+    public List<Order> getOrderHistory(int userId, Order after, int pageSize) {
+        if (after == null && pageSize <= RECENT_ORDERS) {
+            List<Order> recent = getRecentOrders(userId);
+            return new ArrayList<>(recent.subList(0, Math.min(pageSize, recent.size())));
+        }
+        return after == null
+            ? orderDao.getUserOrdersAfter(userId, Long.MAX_VALUE, Integer.MAX_VALUE, pageSize)
+            : orderDao.getUserOrdersAfter(userId, after.getOrderDate().getTime(),
+                after.getOrderId(), pageSize);
+    }
+
+    /**
+     * The page of order history preceding {@code first}, newest first.
+     */
+    public List<Order> getOrderHistoryBefore(int userId, Order first, int pageSize) {
+        List<Order> orders = orderDao.getUserOrdersBefore(userId, first.getOrderDate().getTime(),
+            first.getOrderId(), pageSize);
+        Collections.reverse(orders);
+        return orders;
+    }
+
+    /**
+     * The user's {@value #RECENT_ORDERS} newest orders, cached until the next order write.
+     * The orders are shared with other callers and must not be changed.
+     * Blocks on a cache miss, so call it off the main thread.
+     */
+    public List<Order> getRecentOrders(int userId) {
+        long writes;
+        synchronized (recentOrders) {
+            List<Order> cached = recentOrders.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+            writes = orderWrites;
+        }
+        List<Order> orders = Collections.unmodifiableList(
+            orderDao.getUserOrdersAfter(userId, Long.MAX_VALUE, Integer.MAX_VALUE, RECENT_ORDERS));
+        synchronized (recentOrders) {
+            // A write committed during the load may be missing from it
+            if (orderWrites == writes) {
+                recentOrders.put(userId, orders);
+            }
+        }
+        return orders;
+    }
+
+    // Call after the write has committed
+    private void ordersChanged(int userId) {
+        synchronized (recentOrders) {
+            orderWrites++;
+            recentOrders.remove(userId);
+        }
+    }
+
+    private void orderChanged(int orderId) {
+        Integer userId = orderDao.getOrderUserId(orderId);
+        if (userId != null) {
+            ordersChanged(userId);
+        }
+    }
+
     public LiveData<List<Order>> getOrdersByStatus(String status) {
         return orderDao.getOrdersByStatus(status);
     }
@@ -97,10 +223,8 @@ public class OrderRepository {
     // Order processing
     public void updateOrderStatus(int orderId, String newStatus) {
         executorService.execute(() -> {
-            Order order = orderDao.getOrderById(orderId).getValue();
-            if (order != null) {
-                order.setStatus(newStatus);
-                orderDao.updateOrder(order);
+            if (orderDao.updateOrderStatus(orderId, newStatus) > 0) {
+                orderChanged(orderId);
             }
         });
     }
@@ -108,24 +232,26 @@ public class OrderRepository {
     public void updateOrderTotal(int orderId) {
         executorService.execute(() -> {
             orderDao.updateOrderTotal(orderId);
+            orderChanged(orderId);
         });
     }
 
     // Checkout process
     public Future<Boolean> processCheckout(int cartId) {
         return executorService.submit(() -> {
-            Order cart = orderDao.getOrderById(cartId).getValue();
-            if (cart != null && "PENDING".equals(cart.getStatus())) {
-                cart.setStatus("CONFIRMED");
-                orderDao.updateOrder(cart);
+            if (orderDao.confirmPendingOrder(cartId) > 0) {
+                orderChanged(cartId);
                 return true;
             }
             return false;
         });
     }
 
-    // Cleanup
-    public void cleanup() {
-        executorService.shutdown();
+    /**
+     * Completion of an asynchronous {@link #createOrder(Order, List, OrderCallback)}.
+     */
+    public interface OrderCallback {
+        void onOrderCreated(long orderId);
+        void onError(Exception error);
     }
 }
\ No newline at end of file
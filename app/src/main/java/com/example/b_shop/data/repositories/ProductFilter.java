@@ -0,0 +1,122 @@
+package com.example.b_shop.data.repositories;
+
+import androidx.annotation.Nullable;
+import com.example.b_shop.data.local.entities.ProductFacetCount;
+import com.example.b_shop.utils.SearchUtils;
+
+/**
+ * Combination of product filters. Every filter is optional, an empty filter matches the
+ * whole catalog. Immutable, use {@link Builder} and {@link #toBuilder()} to derive one.
+ */
+public class ProductFilter {
+    private final Integer categoryId;
+    private final Integer priceBucket;
+    private final int minRating;
+    private final boolean inStockOnly;
+    private final String query;
+
+    private ProductFilter(@Nullable Integer categoryId, @Nullable Integer priceBucket, int minRating,
+                          boolean inStockOnly, @Nullable String query) {
+        this.categoryId = categoryId;
+        this.priceBucket = priceBucket;
+        this.minRating = minRating;
+        this.inStockOnly = inStockOnly;
+        this.query = query;
+    }
+
+    public static ProductFilter none() {
+        return new Builder().build();
+    }
+
+    @Nullable
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    /**
+     * Index into the price buckets of {@link ProductFacetCount#PRICE_BUCKET_BOUNDS}.
+     */
+    @Nullable
+    public Integer getPriceBucket() {
+        return priceBucket;
+    }
+
+    /**
+     * Lowest rating in whole stars, 0 for no minimum.
+     */
+    public int getMinRating() {
+        return minRating;
+    }
+
+    public boolean isInStockOnly() {
+        return inStockOnly;
+    }
+
+    @Nullable
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * FTS MATCH expression for the text query, or null if there is nothing to search for.
+     */
+    @Nullable
+    String getMatchQuery() {
+        return SearchUtils.toPrefixMatchQuery(query);
+    }
+
+    public Builder toBuilder() {
+        return new Builder()
+            .setCategoryId(categoryId)
+            .setPriceBucket(priceBucket)
+            .setMinRating(minRating)
+            .setInStockOnly(inStockOnly)
+            .setQuery(query);
+    }
+
+    /**
+     * Builder class for ProductFilter
+     */
+    public static class Builder {
+        private Integer categoryId = null;
+        private Integer priceBucket = null;
+        private int minRating = 0;
+        private boolean inStockOnly = false;
+        private String query = null;
+
+        public Builder setCategoryId(@Nullable Integer categoryId) {
+            this.categoryId = categoryId;
+            return this;
+        }
+
+        public Builder setPriceBucket(@Nullable Integer priceBucket) {
+            if (priceBucket != null && (priceBucket < 0 || priceBucket >= ProductFacetCount.PRICE_BUCKETS)) {
+                throw new IllegalArgumentException("Unknown price bucket: " + priceBucket);
+            }
+            this.priceBucket = priceBucket;
+            return this;
+        }
+
+        public Builder setMinRating(int minRating) {
+            if (minRating < 0 || minRating >= ProductFacetCount.RATING_BUCKETS) {
+                throw new IllegalArgumentException("Minimum rating must be 0 to 5 stars: " + minRating);
+            }
+            this.minRating = minRating;
+            return this;
+        }
+
+        public Builder setInStockOnly(boolean inStockOnly) {
+            this.inStockOnly = inStockOnly;
+            return this;
+        }
+
+        public Builder setQuery(@Nullable String query) {
+            this.query = query;
+            return this;
+        }
+
+        public ProductFilter build() {
+            return new ProductFilter(categoryId, priceBucket, minRating, inStockOnly, query);
+        }
+    }
+}
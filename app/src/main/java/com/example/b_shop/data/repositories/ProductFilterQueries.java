@@ -0,0 +1,118 @@
+package com.example.b_shop.data.repositories;
+
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import com.example.b_shop.data.local.entities.Product;
+import com.example.b_shop.data.local.entities.ProductFacetCount;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the raw queries behind {@link ProductFilter}. Only the filters that are set
+ * become conditions, so every combination can still use the products indices.
+ */
+final class ProductFilterQueries {
+    private ProductFilterQueries() {
+    }
+
+    /**
+     * One page of matching products, best rated first with ties newest first.
+     * @param boundary Product the page starts after (or before), null for the first page
+     * @param after true to load the page following {@code boundary}, false for the one preceding it,
+     *              which comes back in reverse order
+     */
+    static SupportSQLiteQuery page(ProductFilter filter, @Nullable Product boundary, boolean after, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT p.* FROM products p ");
+        String matchQuery = filter.getMatchQuery();
+        if (matchQuery != null) {
+            sql.append("INNER JOIN products_fts ON p.productId = products_fts.rowid ");
+        }
+        sql.append("WHERE 1 = 1");
+        if (matchQuery != null) {
+            sql.append(" AND products_fts MATCH ?");
+            args.add(matchQuery);
+        }
+        if (filter.getCategoryId() != null) {
+            sql.append(" AND p.categoryId = ?");
+            args.add(filter.getCategoryId());
+        }
+        if (filter.getPriceBucket() != null) {
+            // Plain bounds rather than the bucket expression, so the price index can be used
+            int bucket = filter.getPriceBucket();
+            if (bucket > 0) {
+                sql.append(" AND p.price >= ?");
+                args.add(ProductFacetCount.PRICE_BUCKET_BOUNDS[bucket - 1]);
+            }
+            if (bucket < ProductFacetCount.PRICE_BUCKET_BOUNDS.length) {
+                sql.append(" AND p.price < ?");
+                args.add(ProductFacetCount.PRICE_BUCKET_BOUNDS[bucket]);
+            }
+        }
+        if (filter.getMinRating() > 0) {
+            sql.append(" AND p.rating >= ?");
+            args.add(filter.getMinRating());
+        }
+        if (filter.isInStockOnly()) {
+            sql.append(" AND p.stock > 0");
+        }
+        if (boundary != null) {
+            sql.append(after ? " AND (p.rating, p.productId) < (?, ?)" : " AND (p.rating, p.productId) > (?, ?)");
+            args.add(boundary.getRating());
+            args.add(boundary.getProductId());
+        }
+        sql.append(after
+            ? " ORDER BY p.rating DESC, p.productId DESC LIMIT ?"
+            : " ORDER BY p.rating, p.productId LIMIT ?");
+        args.add(limit);
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    /**
+     * Facet count rows for the filter, in the shape of product_facet_counts.
+     * Without a text query these come straight from the summary table. With one they are
+     * grouped from the text matches, which the FTS index keeps to a small set.
+     * Rows failing more than one filter cannot count towards any facet and are left out.
+     */
+    static SupportSQLiteQuery facetCounts(ProductFilter filter) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder();
+        String matchQuery = filter.getMatchQuery();
+        if (matchQuery == null) {
+            sql.append("SELECT * FROM product_facet_counts");
+        } else {
+            sql.append("SELECT * FROM (SELECT p.categoryId AS categoryId, ")
+                .append(ProductFacetCount.priceBucketSql("p.price")).append(" AS priceBucket, ")
+                .append(ProductFacetCount.ratingBucketSql("p.rating")).append(" AS ratingBucket, ")
+                .append("p.stock > 0 AS inStock, COUNT(*) AS productCount ")
+                .append("FROM products p INNER JOIN products_fts ON p.productId = products_fts.rowid ")
+                .append("WHERE products_fts MATCH ? GROUP BY 1, 2, 3, 4)");
+            args.add(matchQuery);
+        }
+
+        List<String> misses = new ArrayList<>();
+        List<Object> missArgs = new ArrayList<>();
+        if (filter.getCategoryId() != null) {
+            misses.add("(categoryId != ?)");
+            missArgs.add(filter.getCategoryId());
+        }
+        if (filter.getPriceBucket() != null) {
+            misses.add("(priceBucket != ?)");
+            missArgs.add(filter.getPriceBucket());
+        }
+        if (filter.getMinRating() > 0) {
+            misses.add("(ratingBucket < ?)");
+            missArgs.add(filter.getMinRating());
+        }
+        if (filter.isInStockOnly()) {
+            misses.add("(inStock = 0)");
+        }
+        // With a single filter every row counts towards some facet
+        if (misses.size() > 1) {
+            sql.append(" WHERE ").append(String.join(" + ", misses)).append(" <= 1");
+            args.addAll(missArgs);
+        }
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.b_shop.data.repositories;
+
+import com.example.b_shop.data.local.entities.Product;
+import com.example.b_shop.data.local.entities.ProductFacetCount;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * First page of a filtered product list together with its facet counts.
+ * Each facet is counted with every other filter applied but not its own, so the counts
+ * say how many products a tap on that value would show.
+ */
+public class ProductFilterResult {
+    private final ProductFilter filter;
+    private final List<Product> products;
+    private final int totalCount;
+    private final Map<Integer, Integer> categoryCounts;
+    private final int[] priceBucketCounts;
+    private final int[] ratingBucketCounts;
+    private final int inStockCount;
+
+    private ProductFilterResult(ProductFilter filter, List<Product> products, int totalCount,
+                                Map<Integer, Integer> categoryCounts, int[] priceBucketCounts,
+                                int[] ratingBucketCounts, int inStockCount) {
+        this.filter = filter;
+        this.products = products;
+        this.totalCount = totalCount;
+        this.categoryCounts = categoryCounts;
+        this.priceBucketCounts = priceBucketCounts;
+        this.ratingBucketCounts = ratingBucketCounts;
+        this.inStockCount = inStockCount;
+    }
+
+    /**
+     * Folds facet count rows into the per facet counts in a single pass.
+     * @param facetCounts Rows of product_facet_counts, or the same shape computed from text matches
+     */
+    static ProductFilterResult from(ProductFilter filter, List<Product> products,
+                                    List<ProductFacetCount> facetCounts) {
+        Map<Integer, Integer> categoryCounts = new TreeMap<>();
+        int[] priceBucketCounts = new int[ProductFacetCount.PRICE_BUCKETS];
+        int[] ratingBucketCounts = new int[ProductFacetCount.RATING_BUCKETS];
+        int totalCount = 0;
+        int inStockCount = 0;
+
+        for (ProductFacetCount row : facetCounts) {
+            int count = row.getProductCount();
+            int priceBucket = clamp(row.getPriceBucket(), ProductFacetCount.PRICE_BUCKETS);
+            int ratingBucket = clamp(row.getRatingBucket(), ProductFacetCount.RATING_BUCKETS);
+            boolean category = filter.getCategoryId() == null || filter.getCategoryId() == row.getCategoryId();
+            boolean price = filter.getPriceBucket() == null || filter.getPriceBucket() == priceBucket;
+            boolean rating = ratingBucket >= filter.getMinRating();
+            boolean stock = !filter.isInStockOnly() || row.isInStock();
+
+            if (price && rating && stock) {
+                Integer current = categoryCounts.get(row.getCategoryId());
+                categoryCounts.put(row.getCategoryId(), (current != null ? current : 0) + count);
+            }
+            if (category && rating && stock) {
+                priceBucketCounts[priceBucket] += count;
+            }
+            if (category && price && stock) {
+                ratingBucketCounts[ratingBucket] += count;
+            }
+            if (category && price && rating) {
+                if (row.isInStock()) {
+                    inStockCount += count;
+                }
+                if (stock) {
+                    totalCount += count;
+                }
+            }
+        }
+
+        return new ProductFilterResult(filter, products, totalCount,
+            Collections.unmodifiableMap(categoryCounts), priceBucketCounts, ratingBucketCounts, inStockCount);
+    }
+
+    private static int clamp(int bucket, int buckets) {
+        return Math.max(0, Math.min(bucket, buckets - 1));
+    }
+
+    public ProductFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Best rated matches first, load further pages through
+     * {@link ProductRepository#getFilteredProductsPages(ProductFilter)}.
+     */
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    /**
+     * Number of products matching every filter.
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Matching products per category id. Categories without matches are absent.
+     */
+    public Map<Integer, Integer> getCategoryCounts() {
+        return categoryCounts;
+    }
+
+    /**
+     * Matching products per price bucket, see {@link ProductFacetCount#PRICE_BUCKET_BOUNDS}.
+     */
+    public int getPriceBucketCount(int priceBucket) {
+        return priceBucketCounts[priceBucket];
+    }
+
+    /**
+     * Matching products rated at least {@code stars} whole stars.
+     */
+    public int getCountWithMinRating(int stars) {
+        int count = 0;
+        for (int bucket = stars; bucket < ratingBucketCounts.length; bucket++) {
+            count += ratingBucketCounts[bucket];
+        }
+        return count;
+    }
+
+    /**
+     * Matching products that are in stock.
+     */
+    public int getInStockCount() {
+        return inStockCount;
+    }
+}
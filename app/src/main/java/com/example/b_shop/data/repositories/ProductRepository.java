@@ -1,26 +1,48 @@
 package com.example.b_shop.data.repositories;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.room.InvalidationTracker;
 import com.example.b_shop.data.local.dao.ProductDao;
 import com.example.b_shop.data.local.entities.Product;
 import com.example.b_shop.data.repositories.CartRepository;
 import com.example.b_shop.data.repositories.CartRepository.CartOperationCallback;
+import com.example.b_shop.utils.SearchUtils;
 import com.example.b_shop.utils.UserManager;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import com.example.b_shop.utils.concurrent.PriorityExecutorService;
+import com.example.b_shop.utils.concurrent.TaskPriority;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class ProductRepository {
+    private static final int DEFAULT_SEARCH_LIMIT = 50;
+
     private final ProductDao productDao;
+    private final InvalidationTracker invalidationTracker;
     private final CartRepository cartRepository;
     private final UserManager userManager;
     private final ExecutorService executorService;
+    private final PriorityExecutorService readExecutor;
 
-    public ProductRepository(ProductDao productDao, CartRepository cartRepository, UserManager userManager) {
+    /**
+     * @param invalidationTracker the database's tracker, tells open page sources about product writes
+     */
+    public ProductRepository(ProductDao productDao, InvalidationTracker invalidationTracker,
+                             CartRepository cartRepository, UserManager userManager, AppExecutors executors) {
         this.productDao = productDao;
+        this.invalidationTracker = invalidationTracker;
         this.cartRepository = cartRepository;
         this.userManager = userManager;
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.executorService = executors.dbWrite();
+        this.readExecutor = executors.io();
     }
 
     public LiveData<List<Product>> getAllProducts() {
@@ -39,8 +61,60 @@ public class ProductRepository {
         return productDao.getProductsByCategory(categoryId);
     }
 
+    /**
+     * The best rated {@code perCategory} products of every category, keyed by category id.
+     * Backed by a single query, so all carousels reload together on one product write
+     * instead of one live query per category.
+     */
+    public LiveData<Map<Integer, List<Product>>> getCategoryCarousels(int perCategory) {
+        return Transformations.map(productDao.getTopProductsPerCategory(perCategory),
+            ProductRepository::groupByCategory);
+    }
+
+    // Rows arrive ordered by category, so each group is one contiguous run
+    private static Map<Integer, List<Product>> groupByCategory(List<Product> products) {
+        Map<Integer, List<Product>> carousels = new LinkedHashMap<>();
+        List<Product> current = null;
+        int currentCategoryId = 0;
+        for (Product product : products) {
+            if (current == null || product.getCategoryId() != currentCategoryId) {
+                currentCategoryId = product.getCategoryId();
+                current = new ArrayList<>();
+                carousels.put(currentCategoryId, current);
+            }
+            current.add(product);
+        }
+        return carousels;
+    }
+
     public LiveData<List<Product>> searchProducts(String query) {
-        return productDao.searchProducts(query);
+        return searchProducts(query, DEFAULT_SEARCH_LIMIT);
+    }
+
+    /**
+     * Ranked, prefix-aware product search backed by the products_fts index.
+     * Only the top {@code limit} matches are loaded, so the cost does not grow with the catalog.
+     */
+    public LiveData<List<Product>> searchProducts(String query, int limit) {
+        String matchQuery = SearchUtils.toPrefixMatchQuery(query);
+        if (matchQuery == null) {
+            return new MutableLiveData<>(Collections.emptyList());
+        }
+        return productDao.searchProducts(matchQuery, SearchUtils.escapeLike(query.trim()), limit);
+    }
+
+    /**
+     * Applies any mix of category, price bucket, minimum rating, stock and text filters.
+     * The first page and the facet counts come back together. Without a text query the
+     * counts are read from product_facet_counts, so they cost the same on any catalog size.
+     */
+    public Future<ProductFilterResult> filterProducts(ProductFilter filter, int pageSize) {
+        return readExecutor.submit(() -> {
+            ProductDao.FilteredProducts page = productDao.getFilteredProductsWithFacets(
+                ProductFilterQueries.page(filter, null, true, pageSize),
+                ProductFilterQueries.facetCounts(filter));
+            return ProductFilterResult.from(filter, page.products, page.facetCounts);
+        }, TaskPriority.UI_CRITICAL);
     }
 
     public LiveData<List<Product>> getProductsByPriceRange(float minPrice, float maxPrice) {
@@ -56,6 +130,109 @@ public class ProductRepository {
         return productDao.getFavoriteProducts(userManager.getCurrentUserId());
     }
 
+    // Paged access - keyset cursors on (sort key, productId)
+    public PageSource getAllProductsPages() {
+        return new PageSource() {
+            @Override
+            public List<Product> loadAfter(Product last, int pageSize) {
+                return productDao.getProductsAfter(last != null ? last.getProductId() : 0, pageSize);
+            }
+
+            @Override
+            public List<Product> loadBefore(Product first, int pageSize) {
+                return reversed(productDao.getProductsBefore(first.getProductId(), pageSize));
+            }
+        };
+    }
+
+    public PageSource getProductsByCategoryPages(int categoryId) {
+        return new PageSource() {
+            @Override
+            public List<Product> loadAfter(Product last, int pageSize) {
+                return productDao.getProductsByCategoryAfter(
+                    categoryId, last != null ? last.getProductId() : 0, pageSize);
+            }
+
+            @Override
+            public List<Product> loadBefore(Product first, int pageSize) {
+                return reversed(productDao.getProductsByCategoryBefore(
+                    categoryId, first.getProductId(), pageSize));
+            }
+        };
+    }
+
+    /**
+     * Further pages of a {@link #filterProducts(ProductFilter, int)} result, in the same order.
+     */
+    public PageSource getFilteredProductsPages(ProductFilter filter) {
+        return new PageSource() {
+            @Override
+            public List<Product> loadAfter(Product last, int pageSize) {
+                return productDao.getFilteredProducts(ProductFilterQueries.page(filter, last, true, pageSize));
+            }
+
+            @Override
+            public List<Product> loadBefore(Product first, int pageSize) {
+                return reversed(productDao.getFilteredProducts(
+                    ProductFilterQueries.page(filter, first, false, pageSize)));
+            }
+        };
+    }
+
+    public PageSource getAvailableProductsPages() {
+        return new PageSource() {
+            @Override
+            public List<Product> loadAfter(Product last, int pageSize) {
+                return productDao.getAvailableProductsAfter(last != null ? last.getProductId() : 0, pageSize);
+            }
+
+            @Override
+            public List<Product> loadBefore(Product first, int pageSize) {
+                return reversed(productDao.getAvailableProductsBefore(first.getProductId(), pageSize));
+            }
+        };
+    }
+
+    public PageSource getFavoriteProductsPages() throws IllegalStateException {
+        userManager.validateUserSession();
+        int userId = userManager.getCurrentUserId();
+        return new PageSource("products", "user_favorites") {
+            @Override
+            public List<Product> loadAfter(Product last, int pageSize) {
+                return productDao.getFavoriteProductsAfter(
+                    userId, last != null ? last.getProductId() : 0, pageSize);
+            }
+
+            @Override
+            public List<Product> loadBefore(Product first, int pageSize) {
+                return reversed(productDao.getFavoriteProductsBefore(userId, first.getProductId(), pageSize));
+            }
+        };
+    }
+
+    public PageSource getTopRatedProductsPages() {
+        return new PageSource() {
+            @Override
+            public List<Product> loadAfter(Product last, int pageSize) {
+                if (last == null) {
+                    return productDao.getTopRatedProductsAfter(Float.MAX_VALUE, Integer.MAX_VALUE, pageSize);
+                }
+                return productDao.getTopRatedProductsAfter(last.getRating(), last.getProductId(), pageSize);
+            }
+
+            @Override
+            public List<Product> loadBefore(Product first, int pageSize) {
+                return reversed(productDao.getTopRatedProductsBefore(
+                    first.getRating(), first.getProductId(), pageSize));
+            }
+        };
+    }
+
+    private static List<Product> reversed(List<Product> products) {
+        Collections.reverse(products);
+        return products;
+    }
+
     // Favorites management - TODO: Move to UserRepository
     public boolean isProductFavorite(int productId) throws Exception {
         throw new UnsupportedOperationException("Favorites management moved to UserRepository");
@@ -81,26 +258,69 @@ public class ProductRepository {
         });
     }
 
-    public void updateProductRating(int productId) {
-        executorService.execute(() -> {
-            productDao.updateProductRating(productId);
-        });
-    }
-
     public void updateStock(int productId, int quantityChange) {
         executorService.execute(() -> {
             try {
                 // If quantityChange is negative, we're decreasing stock
                 // If quantityChange is positive, we're increasing stock
                 // decreaseStock method decreases by the amount passed, so we negate positive quantityChange
-                productDao.decreaseStock(productId, -quantityChange);
+                if (productDao.decreaseStock(productId, -quantityChange) == 0) {
+                    android.util.Log.w("ProductRepository", "Stock change " + quantityChange
+                        + " refused for product " + productId + ", not enough stock");
+                }
             } catch (Exception e) {
                 e.printStackTrace();
             }
         });
     }
 
-    public void cleanup() {
-        executorService.shutdown();
+    /**
+     * Source of keyset pages for one product list.
+     * All methods block and must be called off the main thread.
+     */
+    public abstract class PageSource {
+        private final String[] tables;
+
+        PageSource() {
+            this("products");
+        }
+
+        /**
+         * @param tables the tables the pages are read from
+         */
+        PageSource(String... tables) {
+            this.tables = tables;
+        }
+
+        /**
+         * Loads the page following {@code last}, or the first page if {@code last} is null.
+         */
+        public abstract List<Product> loadAfter(Product last, int pageSize);
+
+        /**
+         * Loads the page preceding {@code first}, in list order.
+         */
+        public abstract List<Product> loadBefore(Product first, int pageSize);
+
+        /**
+         * Calls {@code onInvalidated} after every committed write to the tables the pages are
+         * read from, such as product edits and stock changes from cart holds, until the
+         * observer is removed. The call comes on a Room background thread.
+         */
+        public InvalidationTracker.Observer addObserver(Runnable onInvalidated) {
+            InvalidationTracker.Observer observer = new InvalidationTracker.Observer(tables) {
+                @Override
+                public void onInvalidated(Set<String> changedTables) {
+                    onInvalidated.run();
+                }
+            };
+            // Registering the first observer of a table creates Room's tracking triggers
+            invalidationTracker.addObserver(observer);
+            return observer;
+        }
+
+        public void removeObserver(InvalidationTracker.Observer observer) {
+            invalidationTracker.removeObserver(observer);
+        }
     }
 }
\ No newline at end of file
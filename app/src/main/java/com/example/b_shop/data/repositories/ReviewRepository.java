@@ -1,55 +1,65 @@
 package com.example.b_shop.data.repositories;
 
+import android.util.LruCache;
 import androidx.lifecycle.LiveData;
 import com.example.b_shop.data.local.dao.ReviewDao;
 import com.example.b_shop.data.local.dao.UserDao;
-import com.example.b_shop.data.local.dao.ProductDao;
+import com.example.b_shop.data.local.entities.ProductRatingStats;
 import com.example.b_shop.data.local.entities.Review;
 import com.example.b_shop.utils.UserManager;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import com.example.b_shop.utils.concurrent.PriorityExecutorService;
+import com.example.b_shop.utils.concurrent.TaskPriority;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ReviewRepository {
+    private static final String TAG = "ReviewRepository";
+    private static final int RECONCILE_BATCH_SIZE = 100;
+    private static final long RECONCILE_INTERVAL_MS = 6 * 60 * 60 * 1000L;
+    private static final int REVIEWER_CACHE_SIZE = 256;
+
     private final ReviewDao reviewDao;
     private final UserDao userDao;
-    private final ProductRepository productRepository;
-    private final ExecutorService executorService;
+    private final PriorityExecutorService executorService;
+    private final ExecutorService readExecutor;
     private final UserManager userManager;
+    private final AtomicBoolean reconcileQueued = new AtomicBoolean(false);
+    // Reviewer names and avatars, shared by every product's feed. Guarded by itself together
+    // with profileEvictions, which tells a load that raced with an eviction not to cache what it read.
+    private final LruCache<Integer, UserDao.ReviewerProfile> reviewerProfiles =
+        new LruCache<>(REVIEWER_CACHE_SIZE);
+    private long profileEvictions;
+    private volatile long lastReconcileMillis;
 
-    public ReviewRepository(ReviewDao reviewDao, UserDao userDao, ProductDao productDao, UserManager userManager, CartRepository cartRepository) {
+    public ReviewRepository(ReviewDao reviewDao, UserDao userDao, UserManager userManager,
+                            AppExecutors executors) {
         this.reviewDao = reviewDao;
         this.userDao = userDao;
         this.userManager = userManager;
-        this.productRepository = new ProductRepository(productDao, cartRepository, userManager);
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.executorService = executors.dbWrite();
+        this.readExecutor = executors.io();
     }
 
-    // Basic CRUD operations
+    // Basic CRUD operations, the product's rating aggregates are updated in the same transaction
     public Future<Long> addReview(Review review) {
-        return executorService.submit(() -> {
-            long reviewId = reviewDao.insert(review);
-            // Update product rating after adding review
-            productRepository.updateProductRating(review.getProductId());
-            return reviewId;
-        });
+        return executorService.submit(() -> reviewDao.insertWithStats(review));
     }
 
     public void updateReview(Review review) {
-        executorService.execute(() -> {
-            reviewDao.update(review);
-            // Update product rating after modifying review
-            productRepository.updateProductRating(review.getProductId());
-        });
+        executorService.execute(() -> reviewDao.updateWithStats(review));
     }
 
     public void deleteReview(Review review) {
-        executorService.execute(() -> {
-            reviewDao.delete(review);
-            // Update product rating after deleting review
-            productRepository.updateProductRating(review.getProductId());
-        });
+        executorService.execute(() -> reviewDao.deleteWithStats(review));
     }
 
     // Query methods
@@ -61,17 +71,91 @@ public class ReviewRepository {
         return reviewDao.getReviewsForProduct(productId);
     }
 
-    public List<Review> getProductReviews(int productId) throws Exception {
-        List<Review> reviews = reviewDao.getProductReviewsSync(productId);
-        
-        // Load user info for each review
+    /**
+     * Review feed for one product, newest first.
+     * Loads the page following {@code after}, or the first page if it is null.
+     * Costs at most two queries per page: the reviews, and the reviewer profiles not cached yet.
+     * Blocks, so call it off the main thread.
+     */
+    public List<Review> getNewestReviews(int productId, Review after, int pageSize) {
+        List<Review> reviews = after == null
+            ? reviewDao.getNewestReviewsAfter(productId, Long.MAX_VALUE, Integer.MAX_VALUE, pageSize)
+            : reviewDao.getNewestReviewsAfter(productId, after.getCreatedAt().getTime(),
+                after.getReviewId(), pageSize);
+        return attachReviewerProfiles(reviews);
+    }
+
+    public List<Review> getMostHelpfulReviews(int productId, Review after, int pageSize) {
+        List<Review> reviews = after == null
+            ? reviewDao.getMostHelpfulReviewsAfter(productId, Integer.MAX_VALUE, Integer.MAX_VALUE, pageSize)
+            : reviewDao.getMostHelpfulReviewsAfter(productId, after.getHelpfulCount(),
+                after.getReviewId(), pageSize);
+        return attachReviewerProfiles(reviews);
+    }
+
+    public List<Review> getReviewsWithRating(int productId, int rating, Review after, int pageSize) {
+        List<Review> reviews = after == null
+            ? reviewDao.getReviewsWithRatingAfter(productId, rating, Long.MAX_VALUE, Integer.MAX_VALUE, pageSize)
+            : reviewDao.getReviewsWithRatingAfter(productId, rating, after.getCreatedAt().getTime(),
+                after.getReviewId(), pageSize);
+        return attachReviewerProfiles(reviews);
+    }
+
+    public void markReviewHelpful(int reviewId) {
+        executorService.execute(() -> reviewDao.incrementHelpfulCount(reviewId));
+    }
+
+    /**
+     * Drops the cached name and avatar of a reviewer, so the next page reads them again.
+     * Wired to {@link UserRepository#addProfileChangeListener}.
+     */
+    public void evictReviewerProfile(int userId) {
+        synchronized (reviewerProfiles) {
+            profileEvictions++;
+            reviewerProfiles.remove(userId);
+        }
+    }
+
+    private List<Review> attachReviewerProfiles(List<Review> reviews) {
+        Map<Integer, UserDao.ReviewerProfile> profiles = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
         for (Review review : reviews) {
-            String reviewerName = userDao.getUserNameSync(review.getUserId());
-            String reviewerAvatarUrl = userDao.getUserAvatarUrlSync(review.getUserId());
-            review.setReviewerName(reviewerName);
-            review.setReviewerAvatarUrl(reviewerAvatarUrl);
+            int userId = review.getUserId();
+            if (profiles.containsKey(userId) || missing.contains(userId)) {
+                continue;
+            }
+            UserDao.ReviewerProfile cached = reviewerProfiles.get(userId);
+            if (cached != null) {
+                profiles.put(userId, cached);
+            } else {
+                missing.add(userId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long evictions;
+            synchronized (reviewerProfiles) {
+                evictions = profileEvictions;
+            }
+            List<UserDao.ReviewerProfile> loaded = userDao.getReviewerProfiles(missing);
+            synchronized (reviewerProfiles) {
+                // A profile evicted during the load may have been read before the change
+                boolean cacheable = profileEvictions == evictions;
+                for (UserDao.ReviewerProfile profile : loaded) {
+                    profiles.put(profile.userId, profile);
+                    if (cacheable) {
+                        reviewerProfiles.put(profile.userId, profile);
+                    }
+                }
+            }
+        }
+
+        for (Review review : reviews) {
+            UserDao.ReviewerProfile profile = profiles.get(review.getUserId());
+            if (profile != null) {
+                review.setReviewerName(profile.name);
+                review.setReviewerAvatarUrl(profile.avatarUrl);
+            }
         }
-        
         return reviews;
     }
 
@@ -88,7 +172,7 @@ public class ReviewRepository {
     }
 
     public Future<Boolean> hasUserReviewedProduct(int userId, int productId) {
-        return executorService.submit(() -> 
+        return readExecutor.submit(() ->
             reviewDao.hasUserReviewedProduct(userId, productId)
         );
     }
@@ -99,9 +183,88 @@ public class ReviewRepository {
 
     // Helper methods
     public void refreshProductRating(int productId) {
-        executorService.execute(() -> {
-            productRepository.updateProductRating(productId);
-        });
+        executorService.execute(() -> reviewDao.rebuildRatingStats(productId));
+    }
+
+    /**
+     * Queues a background pass that compares the stored rating aggregates with the reviews
+     * and rebuilds the ones that drifted, e.g. after reviews were removed by a cascading
+     * user delete. Skipped while a pass is queued or running, or if one finished within the
+     * last few hours. Each batch of products is its own task so cart and checkout writes
+     * get in between.
+     */
+    public void reconcileRatingStats() {
+        if (System.currentTimeMillis() - lastReconcileMillis < RECONCILE_INTERVAL_MS
+                || !reconcileQueued.compareAndSet(false, true)) {
+            return;
+        }
+        scheduleReconcileBatch(0, 0);
+    }
+
+    private void scheduleReconcileBatch(int afterId, int repairedSoFar) {
+        try {
+            executorService.execute(() -> runReconcileBatch(afterId, repairedSoFar), TaskPriority.BACKGROUND);
+        } catch (RejectedExecutionException e) {
+            // Picked up again by the next call
+            android.util.Log.w(TAG, "Rating stats reconcile stopped, write queue is full");
+            reconcileQueued.set(false);
+        }
+    }
+
+    private void runReconcileBatch(int afterId, int repairedSoFar) {
+        int repaired = repairedSoFar;
+        int lastId = -1;
+        try {
+            List<Integer> productIds = reviewDao.getProductIdsAfter(afterId, RECONCILE_BATCH_SIZE);
+            if (!productIds.isEmpty()) {
+                repaired += repairDriftedStats(productIds);
+                if (productIds.size() == RECONCILE_BATCH_SIZE) {
+                    lastId = productIds.get(productIds.size() - 1);
+                }
+            }
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Rating stats reconcile stopped", e);
+        }
+
+        if (lastId >= 0) {
+            scheduleReconcileBatch(lastId, repaired);
+        } else {
+            lastReconcileMillis = System.currentTimeMillis();
+            reconcileQueued.set(false);
+            android.util.Log.d(TAG, "Rating stats reconciled, repaired " + repaired + " products");
+        }
+    }
+
+    // Rebuilds the drifted aggregates of one batch of products, ordered by id
+    private int repairDriftedStats(List<Integer> productIds) {
+        int fromId = productIds.get(0);
+        int toId = productIds.get(productIds.size() - 1);
+
+        Map<Integer, ProductRatingStats> stored = new HashMap<>();
+        for (ProductRatingStats stats : reviewDao.getRatingStatsInRange(fromId, toId)) {
+            stored.put(stats.getProductId(), stats);
+        }
+        Map<Integer, ProductRatingStats> actual = new HashMap<>();
+        for (ProductRatingStats stats : reviewDao.tallyRatingsInRange(fromId, toId)) {
+            actual.put(stats.getProductId(), stats);
+        }
+
+        Set<Integer> drifted = new LinkedHashSet<>(reviewDao.getProductsWithStaleRatingInRange(fromId, toId));
+        for (int productId : productIds) {
+            ProductRatingStats expected = actual.get(productId);
+            if (expected == null) {
+                expected = new ProductRatingStats(productId);
+            }
+            ProductRatingStats current = stored.get(productId);
+            if (current == null ? expected.getReviewCount() > 0 : !current.hasSameTotals(expected)) {
+                drifted.add(productId);
+            }
+        }
+
+        for (int productId : drifted) {
+            reviewDao.rebuildRatingStats(productId);
+        }
+        return drifted.size();
     }
 
     // Review validation
@@ -114,10 +277,4 @@ public class ReviewRepository {
                comment.length() >= 10 && 
                comment.length() <= 500;
     }
-
-    // Cleanup
-    public void cleanup() {
-        executorService.shutdown();
-        productRepository.cleanup();
-    }
 }
\ No newline at end of file
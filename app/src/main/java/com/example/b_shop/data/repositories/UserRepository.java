@@ -2,42 +2,42 @@ package com.example.b_shop.data.repositories;
 
 import android.content.Context;
 import androidx.lifecycle.LiveData;
-import com.example.b_shop.data.local.AppDatabase;
+import com.example.b_shop.BShopApplication;
 import com.example.b_shop.data.local.entities.Product;
 import com.example.b_shop.data.local.dao.UserDao;
 import com.example.b_shop.data.local.entities.User;
-import com.example.b_shop.data.local.entities.Order;
 import com.example.b_shop.data.local.entities.UserRole;
 import com.example.b_shop.data.local.entities.UserAuditLog;
+import com.example.b_shop.utils.SecurityUtils;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import com.example.b_shop.utils.concurrent.PriorityExecutorService;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Future;
 
 public class UserRepository {
     private final UserDao userDao;
-    private final ExecutorService executorService;
+    private final PriorityExecutorService executorService;
+    private final AuditLogWriter auditLogWriter;
+    private final AuditLogCompactor auditLogCompactor;
+    private final List<ProfileChangeListener> profileListeners = new CopyOnWriteArrayList<>();
     private User currentUser;
 
-    private static volatile UserRepository instance;
-
+    /**
+     * Returns the repository owned by {@link BShopApplication}, so every screen
+     * shares one instance, one database and one set of executors.
+     */
     public static UserRepository getInstance(Context context) {
-        if (instance == null) {
-            synchronized (UserRepository.class) {
-                if (instance == null) {
-                    AppDatabase database = AppDatabase.getInstance(context);
-                    instance = new UserRepository(database.userDao());
-                }
-            }
-        }
-        return instance;
+        return ((BShopApplication) context.getApplicationContext()).getUserRepository();
     }
 
-    public UserRepository(UserDao userDao) {
+    public UserRepository(UserDao userDao, AppExecutors executors, AuditLogRetention retention) {
         this.userDao = userDao;
-        this.executorService = Executors.newSingleThreadExecutor();
+        // Everything queued here writes, directly or through the audit log
+        this.executorService = executors.dbWrite();
+        this.auditLogWriter = new AuditLogWriter(userDao, executors.dbWrite());
+        this.auditLogCompactor = new AuditLogCompactor(userDao, executors.dbWrite(), retention);
     }
 
     // Admin operations
@@ -81,6 +81,7 @@ public class UserRepository {
         requireAdminUser();
         executorService.execute(() -> {
             userDao.updateUserActiveStatus(userId, false);
+            profileChanged(userId);
             logAdminAction(getCurrentUser().getUserId(), userId,
                 UserAuditLog.Actions.USER_BLOCKED,
                 "User blocked");
@@ -91,6 +92,7 @@ public class UserRepository {
         requireAdminUser();
         executorService.execute(() -> {
             userDao.updateUserActiveStatus(userId, true);
+            profileChanged(userId);
             logAdminAction(getCurrentUser().getUserId(), userId,
                 UserAuditLog.Actions.USER_UNBLOCKED,
                 "User unblocked");
@@ -123,8 +125,22 @@ public class UserRepository {
     }
 
     public void logAdminAction(int adminId, int userId, String action, String details) {
-        UserAuditLog log = new UserAuditLog(userId, adminId, action, details);
-        executorService.execute(() -> userDao.insertAuditLog(log));
+        auditLogWriter.enqueue(new UserAuditLog(userId, adminId, action, details));
+    }
+
+    /**
+     * Writes buffered audit entries now instead of waiting for the batch to fill.
+     */
+    public void flushAuditLog() {
+        auditLogWriter.flush();
+    }
+
+    /**
+     * Rolls audit entries past the retention window into daily summaries, in the background.
+     * Runs at most once a day, calls in between return immediately.
+     */
+    public void compactAuditLog() {
+        auditLogCompactor.compact();
     }
 
     // Authentication methods
@@ -171,9 +187,25 @@ public class UserRepository {
             if (currentUser != null && currentUser.getUserId() == user.getUserId()) {
                 currentUser = user;
             }
+            profileChanged(user.getUserId());
         });
     }
 
+    /**
+     * Registers a listener for profile edits and blocking or unblocking, for components
+     * that cache what other users see of a user, like reviewer names.
+     */
+    public void addProfileChangeListener(ProfileChangeListener listener) {
+        profileListeners.add(listener);
+    }
+
+    // Called on the write thread after the change is written
+    private void profileChanged(int userId) {
+        for (ProfileChangeListener listener : profileListeners) {
+            listener.onProfileChanged(userId);
+        }
+    }
+
     public LiveData<User> getUserById(int userId) {
         return userDao.getUserById(userId);
     }
@@ -182,11 +214,7 @@ public class UserRepository {
         return userDao.getUserByEmail(email);
     }
 
-    // User activity methods
-    public LiveData<List<Order>> getUserOrders(int userId) {
-        return userDao.getUserOrders(userId);
-    }
-
+    // User activity methods, order history is in OrderRepository
     public LiveData<List<UserDao.UserReviewWithProduct>> getUserReviews(int userId) {
         return userDao.getUserReviews(userId);
     }
@@ -231,17 +259,7 @@ public class UserRepository {
     // Password management
     private String hashPassword(String password) {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(password.getBytes());
-            StringBuilder hexString = new StringBuilder();
-            
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            
-            return hexString.toString();
+            return SecurityUtils.sha256Hex(password);
         } catch (NoSuchAlgorithmException e) {
             e.printStackTrace();
             throw new RuntimeException("Failed to hash password", e);
@@ -262,8 +280,7 @@ public class UserRepository {
         });
     }
 
-    // Cleanup
-    public void cleanup() {
-        executorService.shutdown();
+    public interface ProfileChangeListener {
+        void onProfileChanged(int userId);
     }
-}
\ No newline at end of file
+}
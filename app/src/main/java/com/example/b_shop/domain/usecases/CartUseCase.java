@@ -1,9 +1,12 @@
 package com.example.b_shop.domain.usecases;
 
+import android.os.Handler;
+import android.os.Looper;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.example.b_shop.data.local.entities.Product;
 import com.example.b_shop.data.local.relations.CartItemWithProduct;
 import com.example.b_shop.data.local.errors.CartError;
 import com.example.b_shop.data.repositories.CartRepository;
@@ -11,15 +14,27 @@ import com.example.b_shop.data.repositories.CartRepository.CartOperationCallback
 import com.example.b_shop.data.repositories.ProductRepository;
 import com.example.b_shop.utils.UserManager;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 public class CartUseCase {
+    // Room re-queries after every write, bursts of taps are rendered once this long after the last one
+    private static final long STATE_DEBOUNCE_MS = 120;
+
     private final CartRepository cartRepository;
     private final ProductRepository productRepository;
     private final UserManager userManager;
     
     private final MediatorLiveData<CartState> cartState;
     private final MutableLiveData<CartError> operationError;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable emitStateTask = this::emitPendingState;
+    private List<CartItemWithProduct> pendingItems;
+    // Null until Room delivers the first list
+    private List<CartItemWithProduct> storedItems;
+    private Map<Integer, Integer> quantityOverrides = Map.of();
 
     public CartUseCase(
         CartRepository cartRepository,
@@ -36,19 +51,22 @@ public class CartUseCase {
     }
 
     private void initializeCartState() {
+        // Total and count are derived from the items, so one query feeds the whole state
         LiveData<List<CartItemWithProduct>> items = cartRepository.getCartItems();
-        LiveData<Float> total = cartRepository.getCartTotal();
-        LiveData<Integer> itemCount = cartRepository.getCartItemCount();
         LiveData<CartError> repoError = cartRepository.getCartError();
 
-        cartState.addSource(items, cartItems -> 
-            updateCartState(cartItems, total.getValue(), itemCount.getValue()));
-        
-        cartState.addSource(total, cartTotal -> 
-            updateCartState(items.getValue(), cartTotal, itemCount.getValue()));
-        
-        cartState.addSource(itemCount, count -> 
-            updateCartState(items.getValue(), total.getValue(), count));
+        cartState.addSource(items, this::onCartItemsChanged);
+
+        // Quantity taps are shown straight away, ahead of the buffered write
+        cartState.addSource(cartRepository.getQuantityOverrides(), overrides -> {
+            quantityOverrides = overrides;
+            if (storedItems == null) {
+                return;
+            }
+            handler.removeCallbacks(emitStateTask);
+            pendingItems = applyOverrides(storedItems);
+            emitPendingState();
+        });
         
         cartState.addSource(repoError, error -> {
             if (error != null) {
@@ -57,26 +75,62 @@ public class CartUseCase {
         });
     }
 
-    private void updateCartState(
-        List<CartItemWithProduct> items,
-        Float total,
-        Integer count
-    ) {
-        android.util.Log.d("CartUseCase", String.format(
-            "Updating cart state - Items: %s, Total: %s, Count: %s",
-            items != null ? items.size() : "null",
-            total != null ? total : "null",
-            count != null ? count : "null"
-        ));
+    private void onCartItemsChanged(List<CartItemWithProduct> items) {
+        storedItems = items != null ? items : List.of();
+        cartRepository.confirmQuantities(storedItems);
+        pendingItems = applyOverrides(storedItems);
+        handler.removeCallbacks(emitStateTask);
+        if (cartState.getValue() == null) {
+            // First load is shown right away
+            emitPendingState();
+        } else {
+            handler.postDelayed(emitStateTask, STATE_DEBOUNCE_MS);
+        }
+    }
+
+    private List<CartItemWithProduct> applyOverrides(List<CartItemWithProduct> items) {
+        if (quantityOverrides.isEmpty()) {
+            return items;
+        }
+        List<CartItemWithProduct> merged = new ArrayList<>(items.size());
+        for (CartItemWithProduct item : items) {
+            Integer quantity = quantityOverrides.get(item.cartItem.getCartItemId());
+            merged.add(quantity != null ? item.withQuantity(quantity) : item);
+        }
+        return merged;
+    }
+
+    private void emitPendingState() {
+        CartState next = CartState.from(pendingItems);
+        CartState current = cartState.getValue();
+        if (current != null && current.hasSameContent(next)) {
+            return;
+        }
+        android.util.Log.d("CartUseCase", "Emitting cart state - Items: " + next.getItemCount()
+            + ", Total: " + next.getTotal());
+        cartState.setValue(next);
+    }
+
+    /**
+     * Writes quantity changes still waiting in the buffer.
+     */
+    public void flushQuantities() {
+        cartRepository.flushQuantities();
+    }
 
-        // Handle null values gracefully
-        List<CartItemWithProduct> safeItems = items != null ? items : List.of();
-        float safeTotal = total != null ? total : 0f;
-        int safeCount = count != null ? count : 0;
+    /**
+     * Writes quantity changes still waiting in the buffer, then runs {@code afterWrites}
+     * on the main thread once every cart write queued so far has committed.
+     */
+    public void flushQuantities(Runnable afterWrites) {
+        cartRepository.flushQuantities(afterWrites);
+    }
 
-        // Always emit a state update
-        android.util.Log.d("CartUseCase", "Emitting new cart state");
-        cartState.setValue(new CartState(safeItems, safeTotal, safeCount));
+    /**
+     * Drops a state update still waiting out the debounce delay.
+     */
+    public void cleanup() {
+        handler.removeCallbacks(emitStateTask);
     }
 
     public LiveData<CartState> getCartState() {
@@ -160,6 +214,44 @@ public class CartUseCase {
             this.isEmpty = items == null || items.isEmpty();
         }
 
+        static CartState from(List<CartItemWithProduct> items) {
+            double total = 0;
+            for (CartItemWithProduct item : items) {
+                total += item.getTotalPrice();
+            }
+            return new CartState(items, (float) total, items.size());
+        }
+
+        /**
+         * True if both states would render the same, Room emits equal lists
+         * when unrelated rows of the joined tables change.
+         */
+        boolean hasSameContent(CartState other) {
+            if (total != other.total || itemCount != other.itemCount
+                    || items.size() != other.items.size()) {
+                return false;
+            }
+            for (int i = 0; i < items.size(); i++) {
+                CartItemWithProduct a = items.get(i);
+                CartItemWithProduct b = other.items.get(i);
+                if (a.cartItem.getCartItemId() != b.cartItem.getCartItemId()
+                        || a.cartItem.getQuantity() != b.cartItem.getQuantity()
+                        || a.cartItem.getItemPrice() != b.cartItem.getItemPrice()
+                        || !sameRenderedProduct(a.product, b.product)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean sameRenderedProduct(Product a, Product b) {
+            if (a == null || b == null) {
+                return a == b;
+            }
+            return Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getImagePath(), b.getImagePath());
+        }
+
         public List<CartItemWithProduct> getItems() {
             return items;
         }
@@ -3,46 +3,32 @@ package com.example.b_shop.domain.usecases;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
-import com.example.b_shop.data.local.relations.CartItemWithProduct;
-import com.example.b_shop.data.local.entities.Order;
-import com.example.b_shop.data.local.entities.OrderItem;
-import com.example.b_shop.data.local.errors.CartError;
-import com.example.b_shop.data.repositories.CartRepository;
-import com.example.b_shop.data.repositories.CartRepository.CartOperationCallback;
+import com.example.b_shop.data.local.errors.CheckoutException;
 import com.example.b_shop.data.repositories.OrderRepository;
-import com.example.b_shop.data.repositories.ProductRepository;
 import com.example.b_shop.utils.UserManager;
-
-import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import com.example.b_shop.utils.concurrent.SerialExecutor;
+import com.example.b_shop.utils.concurrent.TaskPriority;
 
 /**
  * Use case that handles the checkout process
  */
 public class CheckoutUseCase {
-    private final CartRepository cartRepository;
     private final OrderRepository orderRepository;
-    private final ProductRepository productRepository;
     private final UserManager userManager;
-    private final ExecutorService executorService;
+    private final SerialExecutor executorService;
 
     private final MutableLiveData<CheckoutState> checkoutState;
     private final MutableLiveData<CheckoutResult> checkoutResult;
 
     public CheckoutUseCase(
-        CartRepository cartRepository,
         OrderRepository orderRepository,
-        ProductRepository productRepository,
-        UserManager userManager
+        UserManager userManager,
+        AppExecutors executors
     ) {
-        this.cartRepository = cartRepository;
         this.orderRepository = orderRepository;
-        this.productRepository = productRepository;
         this.userManager = userManager;
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.executorService = executors.newSerialExecutor(executors.dbWrite(), TaskPriority.UI_CRITICAL);
         
         this.checkoutState = new MutableLiveData<>(CheckoutState.IDLE);
         this.checkoutResult = new MutableLiveData<>();
@@ -56,61 +42,29 @@ public class CheckoutUseCase {
         return checkoutResult;
     }
 
+    /**
+     * Places the order for the current cart. Stock checks, stock updates, the order
+     * with its items and clearing the cart all happen in one database transaction,
+     * so a failed checkout leaves nothing half written.
+     */
     public void checkout() {
         try {
             userManager.validateUserSession();
-            
+            int userId = userManager.getCurrentUserId();
+
             executorService.execute(() -> {
+                checkoutState.postValue(CheckoutState.PROCESSING);
                 try {
-                    checkoutState.postValue(CheckoutState.PROCESSING);
-                    
-                    // 1. Validate cart is not empty
-                    List<CartItemWithProduct> cartItems = cartRepository.getCartItems().getValue();
-                    if (cartItems == null || cartItems.isEmpty()) {
-                        handleCheckoutError("Cart is empty");
-                        return;
-                    }
-
-                    // 2. Validate stock availability
-                    if (!validateStock(cartItems)) {
-                        handleCheckoutError("Insufficient stock");
-                        return;
-                    }
-
-                    // 3. Create order
-                    Order order = createOrder(cartItems);
-                    if (order == null) {
-                        handleCheckoutError("Failed to create order");
-                        return;
-                    }
-
-                    // 4. Update inventory
-                    updateInventory(cartItems);
-
-                    // 5. Clear cart with proper error handling
-                    cartRepository.clearCart(new CartOperationCallback() {
-                        @Override
-                        public void onSuccess() {
-                            // 6. Complete checkout
-                            checkoutState.postValue(CheckoutState.COMPLETED);
-                            checkoutResult.postValue(new CheckoutResult(true, order.getOrderId(), null));
-                        }
-
-                        @Override
-                        public void onError(CartError error) {
-                            // If cart clear fails, we should still consider the checkout successful
-                            // since the order is created and inventory is updated
-                            checkoutState.postValue(CheckoutState.COMPLETED);
-                            checkoutResult.postValue(new CheckoutResult(
-                                true,
-                                order.getOrderId(),
-                                "Order placed successfully but failed to clear cart: " + error.getDetails()
-                            ));
-                        }
-                    });
-
+                    long orderId = orderRepository.placeOrderFromCart(userId);
+                    checkoutState.postValue(CheckoutState.COMPLETED);
+                    checkoutResult.postValue(new CheckoutResult(true, (int) orderId, null));
+                } catch (CheckoutException e) {
+                    handleCheckoutError(e.getType() == CheckoutException.CheckoutErrorType.EMPTY_CART
+                        ? "Cart is empty"
+                        : "Insufficient stock");
                 } catch (Exception e) {
-                    handleCheckoutError(e.getMessage());
+                    android.util.Log.e("CheckoutUseCase", "Checkout failed", e);
+                    handleCheckoutError("Failed to create order");
                 }
             });
         } catch (IllegalStateException e) {
@@ -118,68 +72,13 @@ public class CheckoutUseCase {
         }
     }
 
-    private boolean validateStock(List<CartItemWithProduct> cartItems) {
-        for (CartItemWithProduct item : cartItems) {
-            if (!cartRepository.validateStock(
-                item.cartItem.getProductId(),
-                item.cartItem.getQuantity()
-            )) {
-                return false;
-            }
-        }
-        return true;
-    }
-
-    private Order createOrder(List<CartItemWithProduct> cartItems) {
-        float total = 0f;
-        List<OrderItem> orderItems = new ArrayList<>();
-
-        for (CartItemWithProduct cartItem : cartItems) {
-            // Create OrderItem with temporary orderId (will be updated after order creation)
-            OrderItem orderItem = new OrderItem(
-                -1, // temporary orderId
-                cartItem.cartItem.getProductId(),
-                cartItem.cartItem.getQuantity(),
-                cartItem.cartItem.getItemPrice()
-            );
-            orderItems.add(orderItem);
-            total += cartItem.getTotalPrice();
-        }
-
-        Order order = new Order(
-            userManager.getCurrentUserId(),
-            total
-        );
-
-        try {
-            long orderId = orderRepository.createOrder(order, orderItems);
-            if (orderId > 0) {
-                order.setOrderId((int) orderId);
-                return order;
-            }
-            return null;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
-    }
-
-    private void updateInventory(List<CartItemWithProduct> cartItems) {
-        for (CartItemWithProduct item : cartItems) {
-            productRepository.updateStock(
-                item.cartItem.getProductId(),
-                -item.cartItem.getQuantity()
-            );
-        }
-    }
-
     private void handleCheckoutError(String message) {
         checkoutState.postValue(CheckoutState.ERROR);
         checkoutResult.postValue(new CheckoutResult(false, -1, message));
     }
 
     public void cleanup() {
-        executorService.shutdown();
+        executorService.clear();
     }
 
     public enum CheckoutState {
@@ -0,0 +1,182 @@
+package com.example.b_shop.domain.usecases;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.room.InvalidationTracker;
+
+import com.example.b_shop.data.local.entities.Product;
+import com.example.b_shop.data.repositories.ProductRepository.PageSource;
+import com.example.b_shop.utils.concurrent.SerialExecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Use case that keeps a bounded, scrollable window over a paged product list.
+ * Pages are appended or prepended as the user scrolls, and pages falling out of
+ * the window are dropped, so memory stays flat however large the catalog is.
+ * Writes to the products the list is read from reload the window in place, so edits and
+ * stock changes reach an open list.
+ */
+public class ProductPagingUseCase {
+    private final PageSource pageSource;
+    private final int pageSize;
+    private final int maxWindowSize;
+    private final SerialExecutor executorService;
+
+    private final MutableLiveData<List<Product>> products;
+    private final MutableLiveData<Boolean> isLoading;
+    private final AtomicBoolean pageQueued = new AtomicBoolean(false);
+    private final AtomicBoolean reloadQueued = new AtomicBoolean(false);
+
+    // Only touched from tasks on the serial executor
+    private final List<Product> window = new ArrayList<>();
+    private boolean hasMoreBefore;
+    private boolean hasMoreAfter = true;
+    private InvalidationTracker.Observer observer;
+    private boolean cleanedUp;
+
+    public ProductPagingUseCase(PageSource pageSource, int pageSize, int maxPages, SerialExecutor executor) {
+        this.pageSource = pageSource;
+        this.pageSize = pageSize;
+        this.maxWindowSize = pageSize * maxPages;
+        this.executorService = executor;
+        this.products = new MutableLiveData<>();
+        this.isLoading = new MutableLiveData<>(false);
+        // Registering touches the database, so it happens off the calling thread
+        executorService.execute(() -> {
+            if (!cleanedUp) {
+                observer = pageSource.addObserver(this::queueReload);
+            }
+        });
+    }
+
+    public LiveData<List<Product>> getProducts() {
+        return products;
+    }
+
+    public LiveData<Boolean> getIsLoading() {
+        return isLoading;
+    }
+
+    /**
+     * Drops the current window and loads the first page again.
+     */
+    public void refresh() {
+        executorService.execute(() -> {
+            window.clear();
+            hasMoreBefore = false;
+            hasMoreAfter = true;
+            loadPage(true);
+        });
+    }
+
+    /**
+     * Loads the page after the last item of the window, if any.
+     * Calls made while a page is still queued are ignored, so scroll callbacks can call this freely.
+     */
+    public void loadNext() {
+        queuePage(true);
+    }
+
+    /**
+     * Loads the page before the first item of the window, if it was dropped earlier.
+     */
+    public void loadPrevious() {
+        queuePage(false);
+    }
+
+    private void queuePage(boolean forward) {
+        if (!pageQueued.compareAndSet(false, true)) {
+            return;
+        }
+        executorService.execute(() -> {
+            try {
+                if (forward ? hasMoreAfter : hasMoreBefore) {
+                    loadPage(forward);
+                }
+            } finally {
+                pageQueued.set(false);
+            }
+        });
+    }
+
+    // A burst of writes, like a checkout taking stock from many products, reloads once
+    private void queueReload() {
+        if (!reloadQueued.compareAndSet(false, true)) {
+            return;
+        }
+        executorService.execute(() -> {
+            reloadQueued.set(false);
+            if (!window.isEmpty()) {
+                reloadWindow();
+            }
+        });
+    }
+
+    // Reads the window again from the same starting point, as many items as it holds
+    private void reloadWindow() {
+        try {
+            Product before = null;
+            if (hasMoreBefore) {
+                List<Product> previous = pageSource.loadBefore(window.get(0), 1);
+                before = previous.isEmpty() ? null : previous.get(0);
+            }
+            int size = window.size();
+            List<Product> reloaded = pageSource.loadAfter(before, size);
+            hasMoreBefore = before != null;
+            hasMoreAfter = reloaded.size() == size;
+            window.clear();
+            window.addAll(reloaded);
+            products.postValue(Collections.unmodifiableList(new ArrayList<>(window)));
+        } catch (Exception e) {
+            android.util.Log.e("ProductPagingUseCase", "Failed to reload product window", e);
+        }
+    }
+
+    private void loadPage(boolean forward) {
+        isLoading.postValue(true);
+        try {
+            if (forward) {
+                Product last = window.isEmpty() ? null : window.get(window.size() - 1);
+                List<Product> page = pageSource.loadAfter(last, pageSize);
+                hasMoreAfter = page.size() == pageSize;
+                window.addAll(page);
+
+                int overflow = window.size() - maxWindowSize;
+                if (overflow > 0) {
+                    window.subList(0, overflow).clear();
+                    hasMoreBefore = true;
+                }
+            } else if (!window.isEmpty()) {
+                List<Product> page = pageSource.loadBefore(window.get(0), pageSize);
+                hasMoreBefore = page.size() == pageSize;
+                window.addAll(0, page);
+
+                int overflow = window.size() - maxWindowSize;
+                if (overflow > 0) {
+                    window.subList(window.size() - overflow, window.size()).clear();
+                    hasMoreAfter = true;
+                }
+            }
+            products.postValue(Collections.unmodifiableList(new ArrayList<>(window)));
+        } catch (Exception e) {
+            android.util.Log.e("ProductPagingUseCase", "Failed to load product page", e);
+        } finally {
+            isLoading.postValue(false);
+        }
+    }
+
+    public void cleanup() {
+        executorService.clear();
+        executorService.execute(() -> {
+            cleanedUp = true;
+            if (observer != null) {
+                pageSource.removeObserver(observer);
+                observer = null;
+            }
+        });
+    }
+}
@@ -4,7 +4,6 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
-import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.squareup.picasso.Picasso;
@@ -12,15 +11,22 @@ import com.example.b_shop.R;
 import com.example.b_shop.data.local.entities.Category;
 import com.example.b_shop.data.local.entities.Product;
 import com.example.b_shop.databinding.ItemCategoryWithProductsBinding;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Objects;
 
 public class CategoryAdapter extends ListAdapter<Category, CategoryAdapter.CategoryViewHolder> {
+    // Rebinds only the carousel of a row, not its name and image
+    private static final Object PAYLOAD_PRODUCTS = new Object();
 
     private final OnCategoryClickListener categoryListener;
     private final CategoryProductsAdapter.OnProductClickListener productListener;
     private Map<Integer, List<Product>> categoryProducts;
+    private final Map<Integer, Integer> positionsById = new HashMap<>();
+    // Set once every carousel has been loaded, from then on a missing entry means no products
+    private boolean carouselsLoaded;
 
     public CategoryAdapter(OnCategoryClickListener categoryListener, 
                          CategoryProductsAdapter.OnProductClickListener productListener) {
@@ -44,18 +50,75 @@ public class CategoryAdapter extends ListAdapter<Category, CategoryAdapter.Categ
         holder.bind(category);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull CategoryViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_PRODUCTS)) {
+            holder.bindProducts(getItem(position));
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
+        }
+    }
+
+    @Override
+    public void onCurrentListChanged(@NonNull List<Category> previousList,
+                                     @NonNull List<Category> currentList) {
+        positionsById.clear();
+        for (int i = 0; i < currentList.size(); i++) {
+            positionsById.put(currentList.get(i).getCategoryId(), i);
+        }
+    }
+
     public void setProductsForCategory(int categoryId, List<Product> products) {
         categoryProducts.put(categoryId, products);
-        notifyItemChanged(getPositionForCategory(categoryId));
+        notifyCarouselChanged(categoryId);
+    }
+
+    /**
+     * Replaces every carousel at once. Only rows whose products actually changed are rebound.
+     * @param carousels Products keyed by category id, categories without products may be absent
+     */
+    public void setCategoryProducts(Map<Integer, List<Product>> carousels) {
+        Map<Integer, List<Product>> previous = categoryProducts;
+        boolean wasLoaded = carouselsLoaded;
+        categoryProducts = new HashMap<>(carousels);
+        carouselsLoaded = true;
+        for (Category category : getCurrentList()) {
+            int categoryId = category.getCategoryId();
+            if (!wasLoaded || !sameProducts(productsFor(previous, categoryId),
+                    productsFor(categoryProducts, categoryId))) {
+                notifyCarouselChanged(categoryId);
+            }
+        }
+    }
+
+    private static List<Product> productsFor(Map<Integer, List<Product>> carousels, int categoryId) {
+        List<Product> products = carousels.get(categoryId);
+        return products != null ? products : Collections.emptyList();
+    }
+
+    private void notifyCarouselChanged(int categoryId) {
+        Integer position = positionsById.get(categoryId);
+        if (position != null) {
+            notifyItemChanged(position, PAYLOAD_PRODUCTS);
+        }
     }
 
-    private int getPositionForCategory(int categoryId) {
-        for (int i = 0; i < getCurrentList().size(); i++) {
-            if (getCurrentList().get(i).getCategoryId() == categoryId) {
-                return i;
+    private static boolean sameProducts(List<Product> oldProducts, List<Product> newProducts) {
+        if (oldProducts.size() != newProducts.size()) {
+            return false;
+        }
+        for (int i = 0; i < newProducts.size(); i++) {
+            Product oldProduct = oldProducts.get(i);
+            Product newProduct = newProducts.get(i);
+            if (oldProduct.getProductId() != newProduct.getProductId() ||
+                oldProduct.getPrice() != newProduct.getPrice() ||
+                !Objects.equals(oldProduct.getName(), newProduct.getName()) ||
+                !Objects.equals(oldProduct.getImagePath(), newProduct.getImagePath())) {
+                return false;
             }
         }
-        return -1;
+        return true;
     }
 
     class CategoryViewHolder extends RecyclerView.ViewHolder {
@@ -84,8 +147,16 @@ public class CategoryAdapter extends ListAdapter<Category, CategoryAdapter.Categ
                 binding.categoryImage.setImageResource(R.drawable.ic_category_placeholder);
             }
 
-            // Handle products
+            bindProducts(category);
+
+            binding.getRoot().setOnClickListener(v -> categoryListener.onCategoryClick(category));
+        }
+
+        void bindProducts(Category category) {
             List<Product> products = categoryProducts.get(category.getCategoryId());
+            if (products == null && carouselsLoaded) {
+                products = Collections.emptyList();
+            }
             if (products != null) {
                 productsAdapter.submitList(products);
                 binding.productsLoading.setVisibility(View.GONE);
@@ -94,22 +165,6 @@ public class CategoryAdapter extends ListAdapter<Category, CategoryAdapter.Categ
                 binding.productsLoading.setVisibility(View.VISIBLE);
                 binding.productsList.setVisibility(View.GONE);
             }
-
-            binding.getRoot().setOnClickListener(v -> categoryListener.onCategoryClick(category));
-        }
-    }
-
-    private static class CategoryDiffCallback extends DiffUtil.ItemCallback<Category> {
-        @Override
-        public boolean areItemsTheSame(@NonNull Category oldItem, @NonNull Category newItem) {
-            return oldItem.getCategoryId() == newItem.getCategoryId();
-        }
-
-        @Override
-        public boolean areContentsTheSame(@NonNull Category oldItem, @NonNull Category newItem) {
-            return oldItem.getName().equals(newItem.getName()) &&
-                   (oldItem.getImagePath() == null ? newItem.getImagePath() == null :
-                    oldItem.getImagePath().equals(newItem.getImagePath()));
         }
     }
 
@@ -0,0 +1,19 @@
+package com.example.b_shop.ui.adapters;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import com.example.b_shop.data.local.entities.Category;
+
+class CategoryDiffCallback extends DiffUtil.ItemCallback<Category> {
+    @Override
+    public boolean areItemsTheSame(@NonNull Category oldItem, @NonNull Category newItem) {
+        return oldItem.getCategoryId() == newItem.getCategoryId();
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull Category oldItem, @NonNull Category newItem) {
+        return oldItem.getName().equals(newItem.getName()) &&
+               (oldItem.getImagePath() == null ? newItem.getImagePath() == null :
+                oldItem.getImagePath().equals(newItem.getImagePath()));
+    }
+}
@@ -3,7 +3,6 @@ package com.example.b_shop.ui.adapters;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
-import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.squareup.picasso.Picasso;
@@ -63,21 +62,6 @@ public class CategoryProductsAdapter extends ListAdapter<Product, CategoryProduc
         }
     }
 
-    private static class ProductDiffCallback extends DiffUtil.ItemCallback<Product> {
-        @Override
-        public boolean areItemsTheSame(@NonNull Product oldItem, @NonNull Product newItem) {
-            return oldItem.getProductId() == newItem.getProductId();
-        }
-
-        @Override
-        public boolean areContentsTheSame(@NonNull Product oldItem, @NonNull Product newItem) {
-            return oldItem.getName().equals(newItem.getName()) &&
-                   oldItem.getPrice() == newItem.getPrice() &&
-                   (oldItem.getImagePath() == null ? newItem.getImagePath() == null :
-                    oldItem.getImagePath().equals(newItem.getImagePath()));
-        }
-    }
-
     public interface OnProductClickListener {
         void onProductClick(Product product);
     }
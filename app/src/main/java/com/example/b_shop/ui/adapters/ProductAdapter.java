@@ -4,7 +4,6 @@ import android.view.LayoutInflater;
 import android.view.ViewGroup;
 import com.example.b_shop.R;
 import androidx.annotation.NonNull;
-import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.squareup.picasso.Picasso;
@@ -71,21 +70,6 @@ public class ProductAdapter extends ListAdapter<Product, ProductAdapter.ProductV
         }
     }
 
-    private static class ProductDiffCallback extends DiffUtil.ItemCallback<Product> {
-        @Override
-        public boolean areItemsTheSame(@NonNull Product oldItem, @NonNull Product newItem) {
-            return oldItem.getProductId() == newItem.getProductId();
-        }
-
-        @Override
-        public boolean areContentsTheSame(@NonNull Product oldItem, @NonNull Product newItem) {
-            return oldItem.getName().equals(newItem.getName()) &&
-                   oldItem.getPrice() == newItem.getPrice() &&
-                   (oldItem.getImagePath() == null ? newItem.getImagePath() == null :
-                    oldItem.getImagePath().equals(newItem.getImagePath()));
-        }
-    }
-
     public interface OnProductClickListener {
         void onProductClick(Product product);
     }
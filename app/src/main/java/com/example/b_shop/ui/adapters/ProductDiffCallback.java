@@ -0,0 +1,23 @@
+package com.example.b_shop.ui.adapters;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import com.example.b_shop.data.local.entities.Product;
+
+/**
+ * Shared by the product lists, a product row only shows its name, price and image.
+ */
+class ProductDiffCallback extends DiffUtil.ItemCallback<Product> {
+    @Override
+    public boolean areItemsTheSame(@NonNull Product oldItem, @NonNull Product newItem) {
+        return oldItem.getProductId() == newItem.getProductId();
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull Product oldItem, @NonNull Product newItem) {
+        return oldItem.getName().equals(newItem.getName()) &&
+               oldItem.getPrice() == newItem.getPrice() &&
+               (oldItem.getImagePath() == null ? newItem.getImagePath() == null :
+                oldItem.getImagePath().equals(newItem.getImagePath()));
+    }
+}
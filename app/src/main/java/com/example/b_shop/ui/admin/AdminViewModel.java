@@ -5,22 +5,25 @@ import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import com.example.b_shop.BShopApplication;
 import com.example.b_shop.data.local.entities.User;
 import com.example.b_shop.data.local.entities.UserRole;
 import com.example.b_shop.data.local.entities.UserAuditLog;
+import com.example.b_shop.data.local.metrics.QueryMetrics;
 import com.example.b_shop.data.repositories.UserRepository;
 import com.example.b_shop.utils.UserManager;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import com.example.b_shop.utils.concurrent.TaskPriority;
 import com.example.b_shop.utils.annotations.RequiresAdmin;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 
 public class AdminViewModel extends AndroidViewModel {
     private final UserRepository userRepository;
     private final UserManager userManager;
-    private final ExecutorService executorService;
+    private final Executor executorService;
     private final MutableLiveData<AdminOperationResult> operationResult;
 
     public AdminViewModel(@NonNull Application application,
@@ -29,13 +32,15 @@ public class AdminViewModel extends AndroidViewModel {
         super(application);
         this.userRepository = userRepository;
         this.userManager = userManager;
-        this.executorService = Executors.newSingleThreadExecutor();
+        AppExecutors executors = ((BShopApplication) application).getExecutors();
+        this.executorService = executors.newSerialExecutor(executors.io(), TaskPriority.UI_CRITICAL);
         this.operationResult = new MutableLiveData<>();
     }
 
     @RequiresAdmin(
         description = "Create new admin user",
-        audit = true
+        audit = true,
+        callsPerMinute = 5
     )
     public void createAdminUser(String email, String name, String password) {
         executorService.execute(() -> {
@@ -54,7 +59,8 @@ public class AdminViewModel extends AndroidViewModel {
 
     @RequiresAdmin(
         description = "Update user role",
-        audit = true
+        audit = true,
+        callsPerMinute = 20
     )
     public void updateUserRole(int userId, UserRole newRole) {
         executorService.execute(() -> {
@@ -69,7 +75,8 @@ public class AdminViewModel extends AndroidViewModel {
 
     @RequiresAdmin(
         description = "Block user",
-        audit = true
+        audit = true,
+        callsPerMinute = 20
     )
     public void blockUser(int userId) {
         executorService.execute(() -> {
@@ -84,7 +91,8 @@ public class AdminViewModel extends AndroidViewModel {
 
     @RequiresAdmin(
         description = "Unblock user",
-        audit = true
+        audit = true,
+        callsPerMinute = 20
     )
     public void unblockUser(int userId) {
         executorService.execute(() -> {
@@ -99,7 +107,8 @@ public class AdminViewModel extends AndroidViewModel {
 
     @RequiresAdmin(
         description = "View user list",
-        audit = false
+        audit = false,
+        callsPerMinute = 120
     )
     public LiveData<List<User>> getUsersByRole(UserRole role) {
         return userRepository.getUsersByRole(role);
@@ -107,7 +116,8 @@ public class AdminViewModel extends AndroidViewModel {
 
     @RequiresAdmin(
         description = "View active users",
-        audit = false
+        audit = false,
+        callsPerMinute = 120
     )
     public LiveData<List<User>> getActiveUsers(UserRole role, int lastHours) {
         long since = LocalDateTime.now().minus(lastHours, ChronoUnit.HOURS)
@@ -119,7 +129,8 @@ public class AdminViewModel extends AndroidViewModel {
 
     @RequiresAdmin(
         description = "View user audit logs",
-        audit = false
+        audit = false,
+        callsPerMinute = 120
     )
     public LiveData<List<UserAuditLog>> getUserAuditLogs(int userId) {
         return userRepository.getUserAuditLogs(userId);
@@ -127,7 +138,8 @@ public class AdminViewModel extends AndroidViewModel {
 
     @RequiresAdmin(
         description = "View admin audit logs",
-        audit = false
+        audit = false,
+        callsPerMinute = 120
     )
     public LiveData<List<UserAuditLog>> getAdminAuditLogs(int adminId) {
         return userRepository.getAdminAuditLogs(adminId);
@@ -135,12 +147,27 @@ public class AdminViewModel extends AndroidViewModel {
 
     @RequiresAdmin(
         description = "View recent audit logs",
-        audit = false
+        audit = false,
+        callsPerMinute = 120
     )
     public LiveData<List<UserAuditLog>> getRecentAuditLogs(int limit) {
         return userRepository.getRecentAuditLogs(limit);
     }
 
+    /**
+     * The statements that took the most database time since the app started.
+     */
+    @RequiresAdmin(
+        description = "View query timings",
+        audit = false,
+        callsPerMinute = 60
+    )
+    public List<QueryMetrics.StatementStats> getSlowestQueries(int limit) {
+        List<QueryMetrics.StatementStats> stats =
+            ((BShopApplication) getApplication()).getQueryMetrics().getStatementStats();
+        return stats.subList(0, Math.min(limit, stats.size()));
+    }
+
     public LiveData<AdminOperationResult> getOperationResult() {
         return operationResult;
     }
@@ -148,7 +175,6 @@ public class AdminViewModel extends AndroidViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
-        executorService.shutdown();
     }
 
     public static class AdminOperationResult {
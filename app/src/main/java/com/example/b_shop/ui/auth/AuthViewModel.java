@@ -5,16 +5,18 @@ import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import com.example.b_shop.BShopApplication;
 import com.example.b_shop.data.local.entities.User;
 import com.example.b_shop.data.repositories.UserRepository;
 import com.example.b_shop.utils.UserManager;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import com.example.b_shop.utils.concurrent.TaskPriority;
+import java.util.concurrent.Executor;
 
 public class AuthViewModel extends AndroidViewModel {
     private final UserRepository userRepository;
     private final UserManager userManager;
-    private final ExecutorService executorService;
+    private final Executor executorService;
     private final MutableLiveData<AuthState> authState;
     private final MutableLiveData<AuthState> registrationState;
 
@@ -22,7 +24,8 @@ public class AuthViewModel extends AndroidViewModel {
         super(application);
         this.userRepository = userRepository;
         this.userManager = UserManager.getInstance(application);
-        this.executorService = Executors.newSingleThreadExecutor();
+        AppExecutors executors = ((BShopApplication) application).getExecutors();
+        this.executorService = executors.newSerialExecutor(executors.io(), TaskPriority.UI_CRITICAL);
         this.authState = new MutableLiveData<>(AuthState.initial());
         this.registrationState = new MutableLiveData<>(AuthState.initial());
     }
@@ -143,6 +146,5 @@ public class AuthViewModel extends AndroidViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
-        executorService.shutdown();
     }
 }
\ No newline at end of file
@@ -4,7 +4,6 @@ import android.app.Application;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.ViewModel;
 import androidx.lifecycle.ViewModelProvider;
-import com.example.b_shop.data.local.AppDatabase;
 import com.example.b_shop.data.repositories.UserRepository;
 
 /**
@@ -16,8 +15,7 @@ public class AuthViewModelFactory implements ViewModelProvider.Factory {
 
     private AuthViewModelFactory(@NonNull Application application) {
         this.application = application;
-        AppDatabase database = AppDatabase.getInstance(application);
-        this.userRepository = new UserRepository(database.userDao());
+        this.userRepository = UserRepository.getInstance(application);
     }
 
     @NonNull
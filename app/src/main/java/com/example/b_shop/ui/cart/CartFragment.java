@@ -257,6 +257,12 @@ public class CartFragment extends Fragment implements CartItemListener {
         viewModel.removeItem(cartItemId);
     }
 
+    @Override
+    public void onStop() {
+        super.onStop();
+        viewModel.flushQuantities();
+    }
+
     @Override
     public void onDestroyView() {
         super.onDestroyView();
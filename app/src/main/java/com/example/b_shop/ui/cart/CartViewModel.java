@@ -134,6 +134,10 @@ public class CartViewModel extends ViewModel {
         cartUseCase.removeItem(cartItemId);
     }
 
+    public void flushQuantities() {
+        cartUseCase.flushQuantities();
+    }
+
     public void clearCart() {
         clearError();
         cartUseCase.clearCart();
@@ -141,7 +145,9 @@ public class CartViewModel extends ViewModel {
 
     public void checkout() {
         clearError();
-        checkoutUseCase.checkout();
+        // Checkout reads the cart from the database and runs on its own serial queue,
+        // so it starts only once buffered quantities and cart writes in flight have committed
+        cartUseCase.flushQuantities(checkoutUseCase::checkout);
     }
 
     public void clearError() {
@@ -163,6 +169,12 @@ public class CartViewModel extends ViewModel {
         }
     }
 
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        cartUseCase.cleanup();
+    }
+
     /**
      * Represents the UI state of the cart screen
      */
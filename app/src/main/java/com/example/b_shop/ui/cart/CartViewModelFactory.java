@@ -34,10 +34,9 @@ public class CartViewModelFactory implements ViewModelProvider.Factory {
         );
         
         this.checkoutUseCase = new CheckoutUseCase(
-            cartRepository,
             orderRepository,
-            productRepository,
-            userManager
+            userManager,
+            application.getExecutors()
         );
     }
 
@@ -10,9 +10,11 @@ import com.example.b_shop.data.local.entities.Product;
 import com.example.b_shop.data.repositories.CategoryRepository;
 import com.example.b_shop.data.repositories.ProductRepository;
 import java.util.List;
+import java.util.Map;
 
 public class CategoryListViewModel extends ViewModel {
-    
+    private static final int CAROUSEL_SIZE = 10;
+
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
     private final MutableLiveData<String> searchQuery = new MutableLiveData<>("");
@@ -34,9 +36,9 @@ public class CategoryListViewModel extends ViewModel {
         });
     }
 
-    // Get products for a specific category
-    public LiveData<List<Product>> getProductsForCategory(int categoryId) {
-        return productRepository.getProductsByCategory(categoryId);
+    // Products for every category carousel, from one query
+    public LiveData<Map<Integer, List<Product>>> getCategoryCarousels() {
+        return productRepository.getCategoryCarousels(CAROUSEL_SIZE);
     }
 
     // Loading state
@@ -11,6 +11,7 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.b_shop.BShopApplication;
 import com.example.b_shop.R;
@@ -27,6 +28,7 @@ public class CategoryProductsFragment extends Fragment {
     private ProductAdapter productAdapter;
     
     private static final String ARG_CATEGORY_ID = "categoryId";
+    private static final int PREFETCH_DISTANCE = 6;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container,
@@ -63,7 +65,8 @@ public class CategoryProductsFragment extends Fragment {
         // Create factory
         CategoryProductsViewModel.Factory factory = new CategoryProductsViewModel.Factory(
             productRepository,
-            categoryRepository
+            categoryRepository,
+            application.getExecutors()
         );
         
         // Get ViewModel instance using factory
@@ -78,8 +81,22 @@ public class CategoryProductsFragment extends Fragment {
                     .navigate(R.id.action_category_products_to_product_details, args);
         });
         
+        GridLayoutManager layoutManager = new GridLayoutManager(requireContext(), 2);
         binding.productsRecyclerView.setAdapter(productAdapter);
-        binding.productsRecyclerView.setLayoutManager(new GridLayoutManager(requireContext(), 2));
+        binding.productsRecyclerView.setLayoutManager(layoutManager);
+
+        // Page in more products as the user gets close to either end of the window
+        binding.productsRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition()
+                        >= productAdapter.getItemCount() - PREFETCH_DISTANCE) {
+                    viewModel.loadMoreProducts();
+                } else if (dy < 0 && layoutManager.findFirstVisibleItemPosition() <= PREFETCH_DISTANCE) {
+                    viewModel.loadPreviousProducts();
+                }
+            }
+        });
     }
 
     private void observeViewModel() {
@@ -9,24 +9,33 @@ import com.example.b_shop.data.local.entities.Category;
 import com.example.b_shop.data.local.entities.Product;
 import com.example.b_shop.data.repositories.CategoryRepository;
 import com.example.b_shop.data.repositories.ProductRepository;
+import com.example.b_shop.domain.usecases.ProductPagingUseCase;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import com.example.b_shop.utils.concurrent.TaskPriority;
 import java.util.List;
 
 public class CategoryProductsViewModel extends ViewModel {
+    private static final int PAGE_SIZE = 20;
+    private static final int MAX_PAGES = 3;
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final AppExecutors executors;
     private final MutableLiveData<Integer> categoryId = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(true);
 
+    private final MutableLiveData<ProductPagingUseCase> pager = new MutableLiveData<>();
     private final LiveData<List<Product>> products;
     private final LiveData<String> categoryName;
 
-    private CategoryProductsViewModel(ProductRepository productRepository, CategoryRepository categoryRepository) {
+    private CategoryProductsViewModel(ProductRepository productRepository, CategoryRepository categoryRepository,
+                                      AppExecutors executors) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
+        this.executors = executors;
 
-        // Transform categoryId into products list
-        products = Transformations.switchMap(categoryId, 
-            id -> productRepository.getProductsByCategory(id));
+        // Only the visible window of the category is held in memory
+        products = Transformations.switchMap(pager, ProductPagingUseCase::getProducts);
 
         // Transform categoryId into category name
         categoryName = Transformations.switchMap(categoryId,
@@ -38,10 +47,34 @@ public class CategoryProductsViewModel extends ViewModel {
         if (categoryId.getValue() == null || categoryId.getValue() != id) {
             isLoading.setValue(true);
             categoryId.setValue(id);
+
+            ProductPagingUseCase previous = pager.getValue();
+            if (previous != null) {
+                previous.cleanup();
+            }
+            ProductPagingUseCase categoryPager = new ProductPagingUseCase(
+                productRepository.getProductsByCategoryPages(id), PAGE_SIZE, MAX_PAGES,
+                executors.newSerialExecutor(executors.io(), TaskPriority.UI_CRITICAL));
+            pager.setValue(categoryPager);
+            categoryPager.refresh();
             isLoading.setValue(false);
         }
     }
 
+    public void loadMoreProducts() {
+        ProductPagingUseCase current = pager.getValue();
+        if (current != null) {
+            current.loadNext();
+        }
+    }
+
+    public void loadPreviousProducts() {
+        ProductPagingUseCase current = pager.getValue();
+        if (current != null) {
+            current.loadPrevious();
+        }
+    }
+
     public LiveData<List<Product>> getProducts() {
         return products;
     }
@@ -57,25 +90,30 @@ public class CategoryProductsViewModel extends ViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
-        productRepository.cleanup();
-        categoryRepository.cleanup();
+        ProductPagingUseCase current = pager.getValue();
+        if (current != null) {
+            current.cleanup();
+        }
     }
 
     // ViewModel Factory
     public static class Factory implements ViewModelProvider.Factory {
         private final ProductRepository productRepository;
         private final CategoryRepository categoryRepository;
+        private final AppExecutors executors;
 
-        public Factory(ProductRepository productRepository, CategoryRepository categoryRepository) {
+        public Factory(ProductRepository productRepository, CategoryRepository categoryRepository,
+                       AppExecutors executors) {
             this.productRepository = productRepository;
             this.categoryRepository = categoryRepository;
+            this.executors = executors;
         }
 
         @SuppressWarnings("unchecked")
         @Override
         public <T extends ViewModel> T create(Class<T> modelClass) {
             if (modelClass.isAssignableFrom(CategoryProductsViewModel.class)) {
-                return (T) new CategoryProductsViewModel(productRepository, categoryRepository);
+                return (T) new CategoryProductsViewModel(productRepository, categoryRepository, executors);
             }
             throw new IllegalArgumentException("Unknown ViewModel class");
         }
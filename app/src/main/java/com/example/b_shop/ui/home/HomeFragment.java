@@ -12,6 +12,7 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import androidx.viewpager2.widget.ViewPager2;
 import com.example.b_shop.R;
 import com.example.b_shop.databinding.FragmentHomeBinding;
@@ -32,6 +33,7 @@ public class HomeFragment extends Fragment {
     private Timer autoScrollTimer;
     private final Handler handler = new Handler(Looper.getMainLooper());
     private static final long AUTO_SCROLL_DELAY = 3000L; // 3 seconds
+    private static final int PREFETCH_DISTANCE = 3;
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -96,9 +98,23 @@ public class HomeFragment extends Fragment {
             Navigation.findNavController(requireView())
                     .navigate(R.id.action_home_to_product_details, args);
         });
+        LinearLayoutManager topRatedLayoutManager =
+            new LinearLayoutManager(requireContext(), LinearLayoutManager.HORIZONTAL, false);
         binding.topRatedProductsRecyclerView.setAdapter(topRatedProductsAdapter);
-        binding.topRatedProductsRecyclerView.setLayoutManager(
-            new LinearLayoutManager(requireContext(), LinearLayoutManager.HORIZONTAL, false));
+        binding.topRatedProductsRecyclerView.setLayoutManager(topRatedLayoutManager);
+
+        // Page the top rated carousel in both directions as it scrolls
+        binding.topRatedProductsRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dx > 0 && topRatedLayoutManager.findLastVisibleItemPosition()
+                        >= topRatedProductsAdapter.getItemCount() - PREFETCH_DISTANCE) {
+                    viewModel.loadMoreTopRatedProducts();
+                } else if (dx < 0 && topRatedLayoutManager.findFirstVisibleItemPosition() <= PREFETCH_DISTANCE) {
+                    viewModel.loadPreviousTopRatedProducts();
+                }
+            }
+        });
     }
 
     private void setupFeaturedSlider() {
@@ -172,6 +188,9 @@ public class HomeFragment extends Fragment {
                 categories.isEmpty() ? View.VISIBLE : View.GONE);
         });
 
+        viewModel.getCategoryCarousels().observe(getViewLifecycleOwner(), carousels ->
+            categoryAdapter.setCategoryProducts(carousels));
+
         // Observe featured products
         viewModel.getFeaturedProducts().observe(getViewLifecycleOwner(), products -> {
             featuredSliderAdapter.submitList(products);
@@ -5,20 +5,24 @@ import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import com.example.b_shop.BShopApplication;
-import com.example.b_shop.data.local.AppDatabase;
 import com.example.b_shop.data.local.entities.Category;
 import com.example.b_shop.data.local.entities.Product;
 import com.example.b_shop.data.repositories.CategoryRepository;
 import com.example.b_shop.data.repositories.ProductRepository;
-import com.example.b_shop.utils.UserManager;
+import com.example.b_shop.domain.usecases.ProductPagingUseCase;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import com.example.b_shop.utils.concurrent.TaskPriority;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
 
 public class HomeViewModel extends AndroidViewModel {
+    private static final int TOP_RATED_PAGE_SIZE = 10;
+    private static final int TOP_RATED_MAX_PAGES = 3;
+    private static final int CATEGORY_CAROUSEL_SIZE = 10;
+
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
-    private final ExecutorService executorService;
+    private final ProductPagingUseCase topRatedPager;
     private final MutableLiveData<Boolean> isRefreshing;
 
     public HomeViewModel(Application application) {
@@ -26,27 +30,26 @@ public class HomeViewModel extends AndroidViewModel {
         
         // Get application instance
         BShopApplication app = (BShopApplication) application;
-        AppDatabase database = app.getDatabase();
-        UserManager userManager = app.getUserManager();
+        AppExecutors executors = app.getExecutors();
 
         // Initialize repositories using application instances
-        categoryRepository = new CategoryRepository(database.categoryDao());
+        categoryRepository = app.getCategoryRepository();
         productRepository = app.getProductRepository();
-        
-        executorService = Executors.newSingleThreadExecutor();
+
         isRefreshing = new MutableLiveData<>(false);
+
+        // Top rated carousel only keeps the visible window of products
+        topRatedPager = new ProductPagingUseCase(
+            productRepository.getTopRatedProductsPages(), TOP_RATED_PAGE_SIZE, TOP_RATED_MAX_PAGES,
+            executors.newSerialExecutor(executors.io(), TaskPriority.UI_CRITICAL));
+        topRatedPager.refresh();
     }
 
     public void refreshData() {
         isRefreshing.setValue(true);
-        executorService.execute(() -> {
-            try {
-                // Refresh logic if needed
-                isRefreshing.postValue(false);
-            } catch (Exception e) {
-                isRefreshing.postValue(false);
-            }
-        });
+        // The pager reloads on its own executor
+        topRatedPager.refresh();
+        isRefreshing.setValue(false);
     }
 
     // Categories
@@ -54,6 +57,11 @@ public class HomeViewModel extends AndroidViewModel {
         return categoryRepository.getAllCategories();
     }
 
+    // Products shown under each category, every carousel from one query
+    public LiveData<Map<Integer, List<Product>>> getCategoryCarousels() {
+        return productRepository.getCategoryCarousels(CATEGORY_CAROUSEL_SIZE);
+    }
+
     // Featured Products
     public LiveData<List<Product>> getFeaturedProducts() {
         return productRepository.getTopRatedProducts(5); // Get top 5 products for featured
@@ -61,7 +69,15 @@ public class HomeViewModel extends AndroidViewModel {
 
     // Top Rated Products
     public LiveData<List<Product>> getTopRatedProducts() {
-        return productRepository.getTopRatedProducts(10); // Get top 10 products
+        return topRatedPager.getProducts();
+    }
+
+    public void loadMoreTopRatedProducts() {
+        topRatedPager.loadNext();
+    }
+
+    public void loadPreviousTopRatedProducts() {
+        topRatedPager.loadPrevious();
     }
 
     // Refresh state
@@ -72,8 +88,6 @@ public class HomeViewModel extends AndroidViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
-        executorService.shutdown();
-        productRepository.cleanup();
-        categoryRepository.cleanup();
+        topRatedPager.cleanup();
     }
 }
\ No newline at end of file
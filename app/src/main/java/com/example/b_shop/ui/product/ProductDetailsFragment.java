@@ -8,6 +8,7 @@ import android.view.View;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.widget.NestedScrollView;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
@@ -70,7 +71,8 @@ public class ProductDetailsFragment extends Fragment {
         ProductDetailsViewModel.Factory factory = new ProductDetailsViewModel.Factory(
             productRepository,
             reviewRepository,
-            userRepository
+            userRepository,
+            application.getExecutors()
         );
         
         // Get ViewModel instance using factory
@@ -108,6 +110,16 @@ public class ProductDetailsFragment extends Fragment {
         reviewAdapter = new ProductReviewAdapter();
         binding.reviewsRecyclerView.setAdapter(reviewAdapter);
         binding.reviewsRecyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
+
+        // The reviews list sits inside the scroll view, so page on the scroll view reaching the end
+        binding.contentScrollView.setOnScrollChangeListener(
+            (NestedScrollView.OnScrollChangeListener) (v, scrollX, scrollY, oldScrollX, oldScrollY) -> {
+                View content = v.getChildAt(0);
+                if (scrollY > oldScrollY
+                        && content.getBottom() - (v.getHeight() + scrollY) <= v.getHeight()) {
+                    viewModel.loadMoreReviews();
+                }
+            });
     }
 
     private void setupClickListeners() {
@@ -9,16 +9,21 @@ import com.example.b_shop.data.local.entities.Review;
 import com.example.b_shop.data.repositories.ProductRepository;
 import com.example.b_shop.data.repositories.ReviewRepository;
 import com.example.b_shop.data.repositories.UserRepository;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import com.example.b_shop.utils.concurrent.SerialExecutor;
+import com.example.b_shop.utils.concurrent.TaskPriority;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ProductDetailsViewModel extends ViewModel {
-    
+    private static final int REVIEW_PAGE_SIZE = 20;
+
     private final ProductRepository productRepository;
     private final ReviewRepository reviewRepository;
     private final UserRepository userRepository;
-    private final ExecutorService executorService;
+    private final SerialExecutor executorService;
     
     private final MutableLiveData<Product> product = new MutableLiveData<>();
     private final MutableLiveData<List<Review>> reviews = new MutableLiveData<>();
@@ -28,11 +33,18 @@ public class ProductDetailsViewModel extends ViewModel {
     private final MutableLiveData<Boolean> addToCartSuccess = new MutableLiveData<>();
     private final MutableLiveData<Integer> currentImagePosition = new MutableLiveData<>();
 
-    private ProductDetailsViewModel(ProductRepository productRepository, ReviewRepository reviewRepository, UserRepository userRepository) {
+    // Review feed state, only touched from tasks on the serial executor
+    private final List<Review> loadedReviews = new ArrayList<>();
+    private boolean hasMoreReviews;
+    private int reviewsProductId;
+    private final AtomicBoolean reviewPageQueued = new AtomicBoolean(false);
+
+    private ProductDetailsViewModel(ProductRepository productRepository, ReviewRepository reviewRepository,
+                                    UserRepository userRepository, AppExecutors executors) {
         this.productRepository = productRepository;
         this.reviewRepository = reviewRepository;
         this.userRepository = userRepository;
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.executorService = executors.newSerialExecutor(executors.io(), TaskPriority.UI_CRITICAL);
         currentImagePosition.setValue(0);
     }
 
@@ -44,9 +56,11 @@ public class ProductDetailsViewModel extends ViewModel {
                 Product productDetails = productRepository.getProduct(productId);
                 product.postValue(productDetails);
                 
-                // Load reviews
-                List<Review> productReviews = reviewRepository.getProductReviews(productId);
-                reviews.postValue(productReviews);
+                // Load the first page of reviews, more are loaded as the user scrolls
+                loadedReviews.clear();
+                reviewsProductId = productId;
+                hasMoreReviews = true;
+                loadNextReviewPage();
                 
                 // Check favorite status
                 try {
@@ -65,6 +79,32 @@ public class ProductDetailsViewModel extends ViewModel {
         });
     }
 
+    public void loadMoreReviews() {
+        if (!reviewPageQueued.compareAndSet(false, true)) {
+            return;
+        }
+        executorService.execute(() -> {
+            try {
+                loadNextReviewPage();
+            } catch (Exception e) {
+                error.postValue(e.getMessage());
+            } finally {
+                reviewPageQueued.set(false);
+            }
+        });
+    }
+
+    private void loadNextReviewPage() {
+        if (!hasMoreReviews) {
+            return;
+        }
+        Review last = loadedReviews.isEmpty() ? null : loadedReviews.get(loadedReviews.size() - 1);
+        List<Review> page = reviewRepository.getNewestReviews(reviewsProductId, last, REVIEW_PAGE_SIZE);
+        hasMoreReviews = page.size() == REVIEW_PAGE_SIZE;
+        loadedReviews.addAll(page);
+        reviews.postValue(Collections.unmodifiableList(new ArrayList<>(loadedReviews)));
+    }
+
     public void addToCart(int quantity) {
         Product currentProduct = product.getValue();
         if (currentProduct != null) {
@@ -137,9 +177,7 @@ public class ProductDetailsViewModel extends ViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
-        executorService.shutdown();
-        productRepository.cleanup();
-        reviewRepository.cleanup();
+        executorService.clear();
     }
 
     // ViewModel Factory
@@ -147,18 +185,21 @@ public class ProductDetailsViewModel extends ViewModel {
         private final ProductRepository productRepository;
         private final ReviewRepository reviewRepository;
         private final UserRepository userRepository;
+        private final AppExecutors executors;
 
-        public Factory(ProductRepository productRepository, ReviewRepository reviewRepository, UserRepository userRepository) {
+        public Factory(ProductRepository productRepository, ReviewRepository reviewRepository,
+                       UserRepository userRepository, AppExecutors executors) {
             this.productRepository = productRepository;
             this.reviewRepository = reviewRepository;
             this.userRepository = userRepository;
+            this.executors = executors;
         }
 
         @SuppressWarnings("unchecked")
         @Override
         public <T extends ViewModel> T create(Class<T> modelClass) {
             if (modelClass.isAssignableFrom(ProductDetailsViewModel.class)) {
-                return (T) new ProductDetailsViewModel(productRepository, reviewRepository, userRepository);
+                return (T) new ProductDetailsViewModel(productRepository, reviewRepository, userRepository, executors);
             }
             throw new IllegalArgumentException("Unknown ViewModel class");
         }
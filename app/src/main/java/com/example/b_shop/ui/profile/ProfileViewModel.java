@@ -9,13 +9,10 @@ import com.example.b_shop.data.local.entities.User;
 import com.example.b_shop.data.local.entities.UserRole;
 import com.example.b_shop.data.repositories.UserRepository;
 import com.example.b_shop.utils.UserManager;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class ProfileViewModel extends AndroidViewModel {
     private final UserRepository userRepository;
     private final UserManager userManager;
-    private final ExecutorService executorService;
     private final MutableLiveData<Boolean> isAdminUser;
     private final MutableLiveData<String> error;
 
@@ -25,7 +22,6 @@ public class ProfileViewModel extends AndroidViewModel {
         super(application);
         this.userRepository = userRepository;
         this.userManager = userManager;
-        this.executorService = Executors.newSingleThreadExecutor();
         this.isAdminUser = new MutableLiveData<>(false);
         this.error = new MutableLiveData<>();
 
@@ -93,10 +89,4 @@ public class ProfileViewModel extends AndroidViewModel {
             return false;
         }
     }
-
-    @Override
-    protected void onCleared() {
-        super.onCleared();
-        executorService.shutdown();
-    }
 }
\ No newline at end of file
@@ -74,10 +74,4 @@ public class WishListViewModel extends AndroidViewModel {
             error.setValue("Failed to add to wish list: " + e.getMessage());
         }
     }
-
-    @Override
-    protected void onCleared() {
-        super.onCleared();
-        userRepository.cleanup();
-    }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.example.b_shop.utils;
+
+/**
+ * Helpers for building full-text search queries.
+ */
+public class SearchUtils {
+    private static final int MAX_TERMS = 8;
+
+    /**
+     * Converts free text typed by the user into an FTS4 MATCH expression.
+     * Every term is reduced to letters and digits and turned into a prefix query,
+     * terms are combined with an implicit AND: "red sho" becomes "red* sho*".
+     * @return the MATCH expression, or null if the input contains no searchable terms
+     */
+    public static String toPrefixMatchQuery(String query) {
+        if (query == null) {
+            return null;
+        }
+
+        StringBuilder match = new StringBuilder();
+        StringBuilder term = new StringBuilder();
+        int terms = 0;
+
+        for (int i = 0; i <= query.length() && terms < MAX_TERMS; i++) {
+            char c = i < query.length() ? query.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                term.append(Character.toLowerCase(c));
+            } else if (term.length() > 0) {
+                if (match.length() > 0) {
+                    match.append(' ');
+                }
+                match.append(term).append('*');
+                term.setLength(0);
+                terms++;
+            }
+        }
+
+        return match.length() > 0 ? match.toString() : null;
+    }
+
+    /**
+     * Escapes the LIKE wildcards in text typed by the user, so "50%" matches a literal
+     * percent sign instead of anything starting with "50". The query must declare ESCAPE '\'.
+     */
+    public static String escapeLike(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' || c == '%' || c == '_') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
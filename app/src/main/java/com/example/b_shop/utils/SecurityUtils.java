@@ -70,6 +70,24 @@ public class SecurityUtils {
         return Base64.encodeToString(combined, Base64.NO_WRAP);
     }
 
+    /**
+     * Unsalted SHA-256 of the password as lowercase hex, the form stored in users.password
+     */
+    @NonNull
+    public static String sha256Hex(@NonNull String password) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] hash = digest.digest(password.getBytes());
+        StringBuilder hexString = new StringBuilder();
+
+        for (byte b : hash) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) hexString.append('0');
+            hexString.append(hex);
+        }
+
+        return hexString.toString();
+    }
+
     /**
      * Verifies a password against its hash
      */
@@ -2,16 +2,19 @@ package com.example.b_shop.utils;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.Looper;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import com.example.b_shop.data.local.entities.UserRole;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Manages user session and authentication state
  * Provides centralized access to current user information
  * Handles role-based session management
+ *
+ * Session reads come from an in-memory snapshot loaded once from SharedPreferences,
+ * so they can be called on every repository operation without touching disk.
  */
 public class UserManager {
     private static final String PREFS_NAME = "user_prefs";
@@ -21,24 +24,34 @@ public class UserManager {
     private static final String KEY_USER_ROLE = "user_role";
     private static final String KEY_LAST_ACTIVITY = "last_activity";
     private static final long ADMIN_SESSION_TIMEOUT_MINUTES = 30;
-    
+    private static final long ADMIN_SESSION_TIMEOUT_MS =
+        TimeUnit.MINUTES.toMillis(ADMIN_SESSION_TIMEOUT_MINUTES);
+    // Activity is persisted at most this often, in between it only lives in memory
+    private static final long ACTIVITY_PERSIST_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+
     private final SharedPreferences prefs;
     private final MutableLiveData<Boolean> isLoggedIn;
     private final MutableLiveData<Integer> currentUserId;
     private final MutableLiveData<Boolean> isAdminSession;
-    private LocalDateTime lastActivityTime;
+
+    private volatile SessionSnapshot session;
+    private volatile long lastActivityMillis;
+    private volatile long lastPersistedActivityMillis;
 
     private static volatile UserManager instance;
 
     private UserManager(Context context) {
         prefs = context.getApplicationContext()
                       .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        isLoggedIn = new MutableLiveData<>(isUserLoggedIn());
-        currentUserId = new MutableLiveData<>(getUserId());
-        isAdminSession = new MutableLiveData<>(false);
-        if (isUserLoggedIn() && getUserRole() == UserRole.ADMIN) {
-            initializeAdminSession();
-        }
+        session = loadSession();
+        lastActivityMillis = prefs.getLong(KEY_LAST_ACTIVITY, 0L);
+        lastPersistedActivityMillis = lastActivityMillis;
+
+        isLoggedIn = new MutableLiveData<>(session.loggedIn);
+        currentUserId = new MutableLiveData<>(session.loggedIn ? session.userId : null);
+        // Seeded instead of set, setValue() would throw when the manager is built off the main thread
+        isAdminSession = new MutableLiveData<>(session.loggedIn && session.role == UserRole.ADMIN
+            && !isAdminSessionExpired(System.currentTimeMillis()));
     }
 
     public static UserManager getInstance(Context context) {
@@ -52,49 +65,92 @@ public class UserManager {
         return instance;
     }
 
+    private SessionSnapshot loadSession() {
+        if (!prefs.contains(KEY_USER_ID)) {
+            return SessionSnapshot.LOGGED_OUT;
+        }
+        UserRole role;
+        try {
+            role = UserRole.valueOf(prefs.getString(KEY_USER_ROLE, UserRole.USER.name()));
+        } catch (IllegalArgumentException e) {
+            role = UserRole.USER;
+        }
+        return new SessionSnapshot(
+            true,
+            prefs.getInt(KEY_USER_ID, -1),
+            prefs.getString(KEY_USER_EMAIL, null),
+            prefs.getString(KEY_USER_NAME, null),
+            role
+        );
+    }
+
     public void loginUser(int userId, String email, String name, UserRole role) {
+        long now = System.currentTimeMillis();
         SharedPreferences.Editor editor = prefs.edit();
         editor.putInt(KEY_USER_ID, userId);
         editor.putString(KEY_USER_EMAIL, email);
         editor.putString(KEY_USER_NAME, name);
         editor.putString(KEY_USER_ROLE, role.name());
-        editor.putLong(KEY_LAST_ACTIVITY, System.currentTimeMillis());
+        editor.putLong(KEY_LAST_ACTIVITY, now);
         editor.apply();
-        
-        isLoggedIn.setValue(true);
-        currentUserId.setValue(userId);
 
-        if (role == UserRole.ADMIN) {
-            initializeAdminSession();
+        lastActivityMillis = now;
+        lastPersistedActivityMillis = now;
+        session = new SessionSnapshot(true, userId, email, name, role);
+
+        publish(isLoggedIn, true);
+        publish(currentUserId, userId);
+        publish(isAdminSession, role == UserRole.ADMIN);
+    }
+
+    public void updateAdminActivity() {
+        if (session.role == UserRole.ADMIN && session.loggedIn) {
+            recordActivity(System.currentTimeMillis());
         }
     }
 
-    private void initializeAdminSession() {
-        lastActivityTime = LocalDateTime.now();
-        isAdminSession.setValue(true);
+    private void recordActivity(long now) {
+        lastActivityMillis = now;
+        if (now - lastPersistedActivityMillis >= ACTIVITY_PERSIST_INTERVAL_MS) {
+            persistActivity(now);
+        }
     }
 
-    public void updateAdminActivity() {
-        if (isAdminSession.getValue() == Boolean.TRUE) {
-            lastActivityTime = LocalDateTime.now();
-            prefs.edit()
-                .putLong(KEY_LAST_ACTIVITY, System.currentTimeMillis())
-                .apply();
+    private void persistActivity(long now) {
+        lastPersistedActivityMillis = now;
+        prefs.edit()
+            .putLong(KEY_LAST_ACTIVITY, now)
+            .apply();
+    }
+
+    /**
+     * Writes the latest activity time if it has not been persisted yet.
+     * Called when the app goes to the background.
+     */
+    public void flushActivity() {
+        long last = lastActivityMillis;
+        if (session.loggedIn && last > lastPersistedActivityMillis) {
+            persistActivity(last);
         }
     }
 
+    private boolean isAdminSessionExpired(long now) {
+        return now - lastActivityMillis >= ADMIN_SESSION_TIMEOUT_MS;
+    }
+
     public boolean validateAdminSession() {
-        if (!isUserLoggedIn() || getUserRole() != UserRole.ADMIN) {
+        SessionSnapshot current = session;
+        if (!current.loggedIn || current.role != UserRole.ADMIN) {
             return false;
         }
 
-        if (lastActivityTime == null || 
-            ChronoUnit.MINUTES.between(lastActivityTime, LocalDateTime.now()) >= ADMIN_SESSION_TIMEOUT_MINUTES) {
+        long now = System.currentTimeMillis();
+        if (isAdminSessionExpired(now)) {
             logoutUser();
             return false;
         }
 
-        updateAdminActivity();
+        recordActivity(now);
         return true;
     }
 
@@ -102,15 +158,27 @@ public class UserManager {
         SharedPreferences.Editor editor = prefs.edit();
         editor.clear();
         editor.apply();
-        
-        isLoggedIn.setValue(false);
-        currentUserId.setValue(null);
-        isAdminSession.setValue(false);
-        lastActivityTime = null;
+
+        session = SessionSnapshot.LOGGED_OUT;
+        lastActivityMillis = 0L;
+        lastPersistedActivityMillis = 0L;
+
+        publish(isLoggedIn, false);
+        publish(currentUserId, null);
+        publish(isAdminSession, false);
+    }
+
+    // Session checks also run on background threads
+    private static <T> void publish(MutableLiveData<T> liveData, T value) {
+        if (Looper.getMainLooper().isCurrentThread()) {
+            liveData.setValue(value);
+        } else {
+            liveData.postValue(value);
+        }
     }
 
     public boolean isUserLoggedIn() {
-        return prefs.contains(KEY_USER_ID);
+        return session.loggedIn;
     }
 
     public LiveData<Boolean> getLoginState() {
@@ -122,28 +190,23 @@ public class UserManager {
     }
 
     public int getCurrentUserId() {
-        return prefs.getInt(KEY_USER_ID, -1);
+        return session.userId;
     }
 
     public LiveData<Integer> getCurrentUserIdLive() {
         return currentUserId;
     }
 
-    private int getUserId() {
-        return prefs.getInt(KEY_USER_ID, -1);
-    }
-
     public String getCurrentUserEmail() {
-        return prefs.getString(KEY_USER_EMAIL, null);
+        return session.email;
     }
 
     public String getCurrentUserName() {
-        return prefs.getString(KEY_USER_NAME, null);
+        return session.name;
     }
 
     public UserRole getUserRole() {
-        String roleStr = prefs.getString(KEY_USER_ROLE, UserRole.USER.name());
-        return UserRole.valueOf(roleStr);
+        return session.role;
     }
 
     /**
@@ -152,11 +215,12 @@ public class UserManager {
      * @throws IllegalStateException if no user is logged in or admin session has expired
      */
     public void validateUserSession() throws IllegalStateException {
-        if (!isUserLoggedIn()) {
+        SessionSnapshot current = session;
+        if (!current.loggedIn) {
             throw new IllegalStateException("No active user session");
         }
 
-        if (getUserRole() == UserRole.ADMIN && !validateAdminSession()) {
+        if (current.role == UserRole.ADMIN && !validateAdminSession()) {
             throw new IllegalStateException("Admin session has expired");
         }
     }
@@ -169,15 +233,20 @@ public class UserManager {
         editor.putString(KEY_USER_EMAIL, email);
         editor.putString(KEY_USER_NAME, name);
         editor.apply();
+
+        SessionSnapshot current = session;
+        if (current.loggedIn) {
+            session = new SessionSnapshot(true, current.userId, email, name, current.role);
+        }
     }
 
     /**
      * Checks if the current user has admin privileges
      */
     public boolean isCurrentUserAdmin() {
-        return isUserLoggedIn() && getUserRole() == UserRole.ADMIN && validateAdminSession();
+        return validateAdminSession();
     }
-    
+
     /**
      * Gets the admin session timeout duration in minutes
      * @return The number of minutes after which an admin session expires
@@ -185,4 +254,27 @@ public class UserManager {
     public static long getAdminSessionTimeoutMinutes() {
         return ADMIN_SESSION_TIMEOUT_MINUTES;
     }
-}
\ No newline at end of file
+
+    /**
+     * Immutable view of the logged in user. Replaced as a whole on login, logout
+     * and profile changes, so readers always see a consistent set of values.
+     */
+    private static final class SessionSnapshot {
+        static final SessionSnapshot LOGGED_OUT =
+            new SessionSnapshot(false, -1, null, null, UserRole.USER);
+
+        final boolean loggedIn;
+        final int userId;
+        final String email;
+        final String name;
+        final UserRole role;
+
+        SessionSnapshot(boolean loggedIn, int userId, String email, String name, UserRole role) {
+            this.loggedIn = loggedIn;
+            this.userId = userId;
+            this.email = email;
+            this.name = name;
+            this.role = role;
+        }
+    }
+}
@@ -30,4 +30,15 @@ public @interface RequiresAdmin {
      * Required if audit is true.
      */
     String description() default "";
+
+    /**
+     * Calls per minute each admin may make to this operation, at least 1.
+     */
+    int callsPerMinute() default 30;
+
+    /**
+     * Calls each admin may make back to back before the per-minute rate applies.
+     * 0 means the same as {@link #callsPerMinute()}.
+     */
+    int burst() default 0;
 }
\ No newline at end of file
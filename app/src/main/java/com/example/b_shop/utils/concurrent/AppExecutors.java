@@ -0,0 +1,81 @@
+package com.example.b_shop.utils.concurrent;
+
+import android.os.Process;
+import android.util.Log;
+
+/**
+ * App wide thread pools, owned by {@link com.example.b_shop.BShopApplication}.
+ * Components share these pools instead of creating their own threads.
+ * <ul>
+ *   <li>{@link #io()} - database reads and other blocking calls</li>
+ *   <li>{@link #dbWrite()} - database writes, a single thread since SQLite has one writer</li>
+ *   <li>{@link #dbQuery()} - Room's own reads, LiveData loads and invalidation checks</li>
+ *   <li>{@link #cpu()} - pure computation</li>
+ * </ul>
+ */
+public class AppExecutors {
+    private static final String TAG = "AppExecutors";
+    private static final int CPU_COUNT = Runtime.getRuntime().availableProcessors();
+    private static final int IO_THREADS = Math.max(2, Math.min(CPU_COUNT, 4));
+    private static final int CPU_THREADS = Math.max(1, CPU_COUNT - 1);
+    // In WAL mode the framework keeps one connection for the writer and, on most devices,
+    // three for readers. More query threads than reader connections only queue for them.
+    public static final int DEFAULT_QUERY_THREADS = 3;
+    private static final int QUEUE_CAPACITY = 256;
+    // Room fails a LiveData load it cannot queue, so this queue is only a safety net
+    private static final int QUERY_QUEUE_CAPACITY = 1024;
+
+    private final PriorityExecutorService io;
+    private final PriorityExecutorService dbWrite;
+    private final PriorityExecutorService dbQuery;
+    private final PriorityExecutorService cpu;
+
+    public AppExecutors() {
+        this(DEFAULT_QUERY_THREADS);
+    }
+
+    /**
+     * @param queryThreads size of the {@link #dbQuery()} pool, the number of Room reads
+     *                     that can run at once
+     */
+    public AppExecutors(int queryThreads) {
+        this.io = new PriorityExecutorService(
+            "bshop-io", IO_THREADS, QUEUE_CAPACITY, Process.THREAD_PRIORITY_BACKGROUND);
+        this.dbWrite = new PriorityExecutorService(
+            "bshop-db-write", 1, QUEUE_CAPACITY, Process.THREAD_PRIORITY_BACKGROUND);
+        this.dbQuery = new PriorityExecutorService(
+            "bshop-db-query", queryThreads, QUERY_QUEUE_CAPACITY, Process.THREAD_PRIORITY_BACKGROUND);
+        this.cpu = new PriorityExecutorService(
+            "bshop-cpu", CPU_THREADS, QUEUE_CAPACITY, Process.THREAD_PRIORITY_DEFAULT);
+    }
+
+    public PriorityExecutorService io() {
+        return io;
+    }
+
+    public PriorityExecutorService dbWrite() {
+        return dbWrite;
+    }
+
+    public PriorityExecutorService dbQuery() {
+        return dbQuery;
+    }
+
+    public PriorityExecutorService cpu() {
+        return cpu;
+    }
+
+    /**
+     * Creates an executor that runs its tasks one at a time on {@code pool}, in the given lane.
+     * Use it where a component relies on its tasks not overlapping.
+     */
+    public SerialExecutor newSerialExecutor(PriorityExecutorService pool, TaskPriority priority) {
+        return new SerialExecutor(pool, priority);
+    }
+
+    public void logStats() {
+        for (PriorityExecutorService pool : new PriorityExecutorService[] { io, dbWrite, dbQuery, cpu }) {
+            Log.d(TAG, pool.getStats().toString());
+        }
+    }
+}
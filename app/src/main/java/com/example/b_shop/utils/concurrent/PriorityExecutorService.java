@@ -0,0 +1,236 @@
+package com.example.b_shop.utils.concurrent;
+
+import android.util.Log;
+
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed size thread pool with a bounded priority queue and basic metrics.
+ * Plain {@link #execute(Runnable)} and {@code submit} calls use {@link TaskPriority#DEFAULT}.
+ * Idle threads time out, so an unused pool costs no threads.
+ */
+public class PriorityExecutorService extends ThreadPoolExecutor {
+    private static final String TAG = "PriorityExecutor";
+    private static final long KEEP_ALIVE_SECONDS = 30L;
+
+    private final String name;
+    private final int queueCapacity;
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Metrics
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    public PriorityExecutorService(String name, int threads, int queueCapacity, int threadPriority) {
+        super(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new PriorityBlockingQueue<>(), new PoolThreadFactory(name, threadPriority));
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        allowCoreThreadTimeOut(true);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command instanceof PrioritizedTask) {
+            enqueue((PrioritizedTask<?>) command);
+        } else {
+            execute(command, TaskPriority.DEFAULT);
+        }
+    }
+
+    public void execute(Runnable command, TaskPriority priority) {
+        enqueue(new PrioritizedTask<Void>(command, null, priority, sequence.getAndIncrement(), true));
+    }
+
+    public <T> Future<T> submit(Callable<T> task, TaskPriority priority) {
+        PrioritizedTask<T> future = new PrioritizedTask<>(task, priority, sequence.getAndIncrement());
+        enqueue(future);
+        return future;
+    }
+
+    public Future<?> submit(Runnable task, TaskPriority priority) {
+        PrioritizedTask<Void> future =
+            new PrioritizedTask<>(task, null, priority, sequence.getAndIncrement(), false);
+        enqueue(future);
+        return future;
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+        return new PrioritizedTask<>(callable, TaskPriority.DEFAULT, sequence.getAndIncrement());
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+        return new PrioritizedTask<>(runnable, value, TaskPriority.DEFAULT, sequence.getAndIncrement(), false);
+    }
+
+    private void enqueue(PrioritizedTask<?> task) {
+        // The queue itself is unbounded, so the capacity is enforced here
+        int depth = getQueue().size();
+        if (depth >= queueCapacity) {
+            rejectedCount.increment();
+            throw new RejectedExecutionException(
+                String.format(Locale.US, "%s queue is full (%d tasks)", name, depth));
+        }
+        maxQueueDepth.accumulateAndGet(depth + 1, Math::max);
+        submittedCount.increment();
+        super.execute(task);
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable runnable) {
+        super.beforeExecute(thread, runnable);
+        PrioritizedTask<?> task = (PrioritizedTask<?>) runnable;
+        task.startNanos = System.nanoTime();
+        long waitNanos = task.startNanos - task.enqueueNanos;
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    @Override
+    protected void afterExecute(Runnable runnable, Throwable throwable) {
+        super.afterExecute(runnable, throwable);
+        PrioritizedTask<?> task = (PrioritizedTask<?>) runnable;
+        totalRunNanos.add(System.nanoTime() - task.startNanos);
+        completedCount.increment();
+
+        // Nobody holds the future of a plain execute() call, so report its failure here
+        if (task.fireAndForget && !task.isCancelled()) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                Log.e(TAG, "Task failed on " + name, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public Stats getStats() {
+        long completed = completedCount.sum();
+        return new Stats(
+            name,
+            getQueue().size(),
+            maxQueueDepth.get(),
+            getActiveCount(),
+            submittedCount.sum(),
+            completed,
+            rejectedCount.sum(),
+            completed == 0 ? 0 : totalWaitNanos.sum() / completed,
+            maxWaitNanos.get(),
+            completed == 0 ? 0 : totalRunNanos.sum() / completed
+        );
+    }
+
+    /**
+     * Point in time view of the pool metrics
+     */
+    public static class Stats {
+        public final String name;
+        public final int queueDepth;
+        public final int maxQueueDepth;
+        public final int activeThreads;
+        public final long submitted;
+        public final long completed;
+        public final long rejected;
+        public final long avgWaitNanos;
+        public final long maxWaitNanos;
+        public final long avgRunNanos;
+
+        Stats(String name, int queueDepth, int maxQueueDepth, int activeThreads,
+              long submitted, long completed, long rejected,
+              long avgWaitNanos, long maxWaitNanos, long avgRunNanos) {
+            this.name = name;
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.activeThreads = activeThreads;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.rejected = rejected;
+            this.avgWaitNanos = avgWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.avgRunNanos = avgRunNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                "%s: queue=%d (max %d), active=%d, submitted=%d, completed=%d, rejected=%d, " +
+                "wait avg=%.2fms max=%.2fms, run avg=%.2fms",
+                name, queueDepth, maxQueueDepth, activeThreads, submitted, completed, rejected,
+                avgWaitNanos / 1e6, maxWaitNanos / 1e6, avgRunNanos / 1e6);
+        }
+    }
+
+    private static final class PrioritizedTask<T> extends FutureTask<T>
+            implements Comparable<PrioritizedTask<?>> {
+        final TaskPriority priority;
+        final long sequence;
+        final boolean fireAndForget;
+        final long enqueueNanos = System.nanoTime();
+        long startNanos;
+
+        PrioritizedTask(Callable<T> callable, TaskPriority priority, long sequence) {
+            super(callable);
+            this.priority = priority;
+            this.sequence = sequence;
+            this.fireAndForget = false;
+        }
+
+        PrioritizedTask(Runnable runnable, T result, TaskPriority priority, long sequence,
+                        boolean fireAndForget) {
+            super(runnable, result);
+            this.priority = priority;
+            this.sequence = sequence;
+            this.fireAndForget = fireAndForget;
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static final class PoolThreadFactory implements ThreadFactory {
+        private final String name;
+        private final int threadPriority;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        PoolThreadFactory(String name, int threadPriority) {
+            this.name = name;
+            this.threadPriority = threadPriority;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(() -> {
+                android.os.Process.setThreadPriority(threadPriority);
+                runnable.run();
+            }, name + "-" + threadCount.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.b_shop.utils.concurrent;
+
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs tasks one at a time, in submission order, on a shared pool.
+ * Gives a component the ordering of its own single thread without owning one.
+ */
+public class SerialExecutor implements Executor {
+    private static final String TAG = "SerialExecutor";
+
+    private final PriorityExecutorService pool;
+    private final TaskPriority priority;
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    private Runnable active;
+
+    SerialExecutor(PriorityExecutorService pool, TaskPriority priority) {
+        this.pool = pool;
+        this.priority = priority;
+    }
+
+    @Override
+    public synchronized void execute(Runnable command) {
+        tasks.offer(() -> {
+            try {
+                command.run();
+            } finally {
+                scheduleNext();
+            }
+        });
+        if (active == null) {
+            scheduleNext();
+        }
+    }
+
+    /**
+     * Drops tasks that have not started yet. A running task is not interrupted.
+     */
+    public synchronized void clear() {
+        tasks.clear();
+    }
+
+    // A rejected task is dropped and the next one tried, so nothing is left queued
+    // without a task on the pool to schedule it
+    private synchronized void scheduleNext() {
+        while ((active = tasks.poll()) != null) {
+            try {
+                pool.execute(active, priority);
+                return;
+            } catch (RejectedExecutionException e) {
+                Log.w(TAG, "Dropped task rejected by " + pool.getName(), e);
+            }
+        }
+    }
+}
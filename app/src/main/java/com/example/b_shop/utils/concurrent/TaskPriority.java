@@ -0,0 +1,13 @@
+package com.example.b_shop.utils.concurrent;
+
+/**
+ * Scheduling lanes for the shared pools in {@link AppExecutors}.
+ * Queued tasks run in lane order, and first in first out within a lane.
+ */
+public enum TaskPriority {
+    // Work the user is waiting on: screen loads, cart changes, checkout
+    UI_CRITICAL,
+    DEFAULT,
+    // Work nobody is waiting on: audit logs, seeding, maintenance
+    BACKGROUND
+}
@@ -1,117 +1,196 @@
 package com.example.b_shop.utils.security;
 
-import android.util.LruCache;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
 
 /**
  * Rate limiter for admin operations to prevent abuse.
- * Implements a sliding window counter using LRU cache.
+ * Lock-free token bucket (GCRA form): each admin gets one {@code long} per operation
+ * holding the time its bucket is next empty, updated with compare-and-set.
+ * Time comes from a monotonic nanosecond clock, so checks do not allocate.
  */
 public class AdminRateLimiter {
-    private static final int MAX_ACTIONS_PER_MINUTE = 30;
-    private static final int MAX_CACHE_SIZE = 100; // Maximum number of admin users to track
-    private static final long WINDOW_MINUTES = 1;
+    public static final int DEFAULT_CALLS_PER_MINUTE = 30;
+    private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+    // Idle admins are swept from a budget once it tracks more than this many
+    private static final int MAX_TRACKED_ADMINS = 256;
 
-    private final LruCache<Integer, RateWindow> adminCounters;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<String, Budget> budgets = new ConcurrentHashMap<>();
 
     public AdminRateLimiter() {
-        this.adminCounters = new LruCache<Integer, RateWindow>(MAX_CACHE_SIZE) {
-            @Override
-            protected RateWindow create(Integer adminId) {
-                return new RateWindow();
-            }
-        };
+        this(System::nanoTime);
+    }
+
+    AdminRateLimiter(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns the budget for an operation, creating it on first use.
+     * Budgets are keyed by operation, the limits of the first call win.
+     * @param callsPerMinute sustained rate allowed per admin, at least 1
+     * @param burst calls allowed back to back, 0 to use {@code callsPerMinute}
+     * @throws IllegalArgumentException if {@code callsPerMinute} is not positive
+     */
+    public Budget budgetFor(String operation, int callsPerMinute, int burst) {
+        Budget budget = budgets.get(operation);
+        if (budget == null) {
+            budget = budgets.computeIfAbsent(operation,
+                key -> new Budget(key, callsPerMinute, burst > 0 ? burst : callsPerMinute));
+        }
+        return budget;
     }
 
     /**
-     * Checks if the admin user has exceeded their rate limit.
+     * Checks if the admin user has exceeded their rate limit for the given budget.
      * @param adminId The ID of the admin user
      * @return true if the action is allowed, false if rate limit exceeded
      */
-    public synchronized boolean checkRateLimit(int adminId) {
-        RateWindow window = adminCounters.get(adminId);
-        
-        // Reset window if it has expired
-        if (window.isExpired()) {
-            window.reset();
+    public boolean tryAcquire(int adminId, Budget budget) {
+        long now = nanoClock.getAsLong();
+        AtomicLong emptyAt = budget.stateFor(adminId, now);
+        while (true) {
+            long current = emptyAt.get();
+            // A bucket that drained in the past is simply full again
+            long next = Math.max(current, now) + budget.intervalNanos;
+            if (next - now > budget.capacityNanos) {
+                budget.rejected.increment();
+                return false;
+            }
+            if (emptyAt.compareAndSet(current, next)) {
+                budget.allowed.increment();
+                return true;
+            }
         }
+    }
 
-        // Check if limit is exceeded
-        if (window.getCount() >= MAX_ACTIONS_PER_MINUTE) {
-            return false;
+    /**
+     * Checks the admin against the default budget shared by all operations.
+     */
+    public boolean checkRateLimit(int adminId) {
+        return tryAcquire(adminId, budgetFor("default", DEFAULT_CALLS_PER_MINUTE, 0));
+    }
+
+    /**
+     * Gets the number of calls the admin could make right now without being limited.
+     */
+    public int getRemainingActions(int adminId, Budget budget) {
+        long now = nanoClock.getAsLong();
+        AtomicLong emptyAt = budget.admins.get(adminId);
+        long used = emptyAt == null ? 0 : Math.max(0, emptyAt.get() - now);
+        return (int) ((budget.capacityNanos - used) / budget.intervalNanos);
+    }
+
+    /**
+     * Gets the time in milliseconds until the admin can make another call.
+     * @return Time in milliseconds, or 0 if a call is allowed now
+     */
+    public long getTimeUntilReset(int adminId, Budget budget) {
+        long now = nanoClock.getAsLong();
+        AtomicLong emptyAt = budget.admins.get(adminId);
+        if (emptyAt == null) {
+            return 0;
         }
+        long wait = emptyAt.get() + budget.intervalNanos - budget.capacityNanos - now;
+        return wait <= 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(wait);
+    }
 
-        // Increment counter and allow action
-        window.increment();
-        return true;
+    /**
+     * Allowed and rejected counts per operation since start or the last {@link #reset()}.
+     */
+    public List<BudgetStats> getStats() {
+        List<BudgetStats> stats = new ArrayList<>(budgets.size());
+        for (Budget budget : budgets.values()) {
+            stats.add(new BudgetStats(budget.operation, budget.allowed.sum(), budget.rejected.sum()));
+        }
+        return stats;
     }
 
     /**
-     * Represents a sliding time window for rate limiting.
+     * Clears all rate limiting data: every admin's bucket is full again and the counts
+     * start over. Budgets stay in place, so ones already handed out, like those the
+     * {@link SecurityInterceptor} keeps per method, see the reset too.
      */
-    private static class RateWindow {
-        private LocalDateTime windowStart;
-        private AtomicInteger counter;
+    public void reset() {
+        for (Budget budget : budgets.values()) {
+            budget.reset();
+        }
+    }
 
-        public RateWindow() {
-            reset();
+    /**
+     * Limits for one operation plus the per-admin bucket state.
+     */
+    public static final class Budget {
+        private final String operation;
+        private final long intervalNanos;
+        private final long capacityNanos;
+        private final ConcurrentHashMap<Integer, AtomicLong> admins = new ConcurrentHashMap<>();
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+
+        Budget(String operation, int callsPerMinute, int burst) {
+            if (callsPerMinute <= 0) {
+                throw new IllegalArgumentException("callsPerMinute of " + operation
+                    + " must be at least 1, was " + callsPerMinute);
+            }
+            this.operation = operation;
+            this.intervalNanos = WINDOW_NANOS / callsPerMinute;
+            this.capacityNanos = intervalNanos * burst;
         }
 
-        public void reset() {
-            windowStart = LocalDateTime.now();
-            counter = new AtomicInteger(0);
+        void reset() {
+            admins.clear();
+            allowed.reset();
+            rejected.reset();
         }
 
-        public boolean isExpired() {
-            return ChronoUnit.MINUTES.between(windowStart, LocalDateTime.now()) >= WINDOW_MINUTES;
+        AtomicLong stateFor(int adminId, long now) {
+            AtomicLong state = admins.get(adminId);
+            if (state == null) {
+                if (admins.size() >= MAX_TRACKED_ADMINS) {
+                    sweepIdle(now);
+                }
+                state = admins.computeIfAbsent(adminId, key -> new AtomicLong(now));
+            }
+            return state;
         }
 
-        public int getCount() {
-            return counter.get();
+        // Buckets that have fully refilled carry no state worth keeping. A call racing with
+        // the removal may go uncounted, which at worst grants one extra call.
+        private void sweepIdle(long now) {
+            for (Map.Entry<Integer, AtomicLong> entry : admins.entrySet()) {
+                if (entry.getValue().get() - now <= 0) {
+                    admins.remove(entry.getKey(), entry.getValue());
+                }
+            }
         }
 
-        public void increment() {
-            counter.incrementAndGet();
+        public String getOperation() {
+            return operation;
         }
     }
 
-    /**
-     * Clears all rate limiting data.
-     * Useful for testing or manual reset.
-     */
-    public void reset() {
-        adminCounters.evictAll();
-    }
+    public static final class BudgetStats {
+        public final String operation;
+        public final long allowed;
+        public final long rejected;
 
-    /**
-     * Gets the remaining number of actions allowed for an admin user.
-     * @param adminId The ID of the admin user
-     * @return The number of remaining actions allowed in the current window
-     */
-    public int getRemainingActions(int adminId) {
-        RateWindow window = adminCounters.get(adminId);
-        if (window.isExpired()) {
-            window.reset();
-            return MAX_ACTIONS_PER_MINUTE;
+        BudgetStats(String operation, long allowed, long rejected) {
+            this.operation = operation;
+            this.allowed = allowed;
+            this.rejected = rejected;
         }
-        return Math.max(0, MAX_ACTIONS_PER_MINUTE - window.getCount());
-    }
 
-    /**
-     * Gets the time in milliseconds until the rate limit window resets.
-     * @param adminId The ID of the admin user
-     * @return Time in milliseconds until reset, or 0 if already reset
-     */
-    public long getTimeUntilReset(int adminId) {
-        RateWindow window = adminCounters.get(adminId);
-        if (window.isExpired()) {
-            return 0;
+        @Override
+        public String toString() {
+            return operation + ": allowed=" + allowed + ", rejected=" + rejected;
         }
-        
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime resetTime = window.windowStart.plusMinutes(WINDOW_MINUTES);
-        return ChronoUnit.MILLIS.between(now, resetTime);
     }
-}
\ No newline at end of file
+}
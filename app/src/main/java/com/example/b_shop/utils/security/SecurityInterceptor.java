@@ -1,11 +1,13 @@
 package com.example.b_shop.utils.security;
 
 import android.util.Log;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
-import com.example.b_shop.data.local.entities.UserAuditLog;
 import com.example.b_shop.data.repositories.UserRepository;
 import com.example.b_shop.utils.UserManager;
 import com.example.b_shop.utils.annotations.RequiresAdmin;
@@ -20,6 +22,7 @@ public class SecurityInterceptor {
     private final UserManager userManager;
     private final UserRepository userRepository;
     private final AdminRateLimiter rateLimiter;
+    private final ConcurrentHashMap<Method, AdminRateLimiter.Budget> budgets = new ConcurrentHashMap<>();
 
     public SecurityInterceptor(UserManager userManager, UserRepository userRepository) {
         this.userManager = userManager;
@@ -29,7 +32,8 @@ public class SecurityInterceptor {
 
     @Around("execution(@com.example.b_shop.utils.annotations.RequiresAdmin * *(..)) && @annotation(requiresAdmin)")
     public Object validateAdminAccess(ProceedingJoinPoint joinPoint, RequiresAdmin requiresAdmin) throws Throwable {
-        String methodName = ((MethodSignature) joinPoint.getSignature()).getMethod().getName();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String methodName = method.getName();
         Log.d(TAG, "Intercepting admin method: " + methodName);
 
         // Check if user is logged in and has admin role
@@ -45,7 +49,7 @@ public class SecurityInterceptor {
         }
 
         // Check rate limiting
-        if (!rateLimiter.checkRateLimit(userManager.getCurrentUserId())) {
+        if (!rateLimiter.tryAcquire(userManager.getCurrentUserId(), budgetFor(method, requiresAdmin))) {
             Log.w(TAG, "Rate limit exceeded for admin: " + userManager.getCurrentUserEmail());
             throw new SecurityException("Rate limit exceeded for admin operations");
         }
@@ -79,6 +83,24 @@ public class SecurityInterceptor {
         }
     }
 
+    private AdminRateLimiter.Budget budgetFor(Method method, RequiresAdmin requiresAdmin) {
+        AdminRateLimiter.Budget budget = budgets.get(method);
+        if (budget == null) {
+            budget = budgets.computeIfAbsent(method, key -> rateLimiter.budgetFor(
+                key.getDeclaringClass().getSimpleName() + "." + key.getName(),
+                requiresAdmin.callsPerMinute(),
+                requiresAdmin.burst()));
+        }
+        return budget;
+    }
+
+    /**
+     * Allowed and rejected admin calls per operation.
+     */
+    public List<AdminRateLimiter.BudgetStats> getRateLimitStats() {
+        return rateLimiter.getStats();
+    }
+
     private boolean validatePermissions(String[] requiredPermissions) {
         // TODO: Implement granular permission checking when needed
         return true;
@@ -95,18 +117,12 @@ public class SecurityInterceptor {
                 details.append(" [FAILED: ").append(error.getMessage()).append("]");
             }
 
-            // Create audit log entry
-            UserAuditLog log = new UserAuditLog(
-                -1, // No specific target user
-                userManager.getCurrentUserId(),
-                methodName.toUpperCase(),
-                details.toString()
-            );
-
-            // Save audit log asynchronously
+            // Buffered and written in batches, no database work here.
+            // No specific target user, so the admin is recorded as the target: userId must reference a user
+            int adminId = userManager.getCurrentUserId();
             userRepository.logAdminAction(
-                userManager.getCurrentUserId(),
-                -1,
+                adminId,
+                adminId,
                 methodName.toUpperCase(),
                 details.toString()
             );
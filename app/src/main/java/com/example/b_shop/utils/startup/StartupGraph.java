@@ -0,0 +1,179 @@
+package com.example.b_shop.utils.startup;
+
+import android.os.Trace;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * The app's components, each declared with the components it needs and created on first use.
+ * <ul>
+ *   <li>{@link #add} only records how to build a component, so declaring one more costs
+ *       nothing at startup</li>
+ *   <li>{@link #get} builds a component and its dependencies on the calling thread, or waits
+ *       if another thread is already building it</li>
+ *   <li>{@link #warmUp} builds components on a pool, every one as soon as its dependencies
+ *       exist, so independent branches are built in parallel</li>
+ *   <li>{@link #whenReady} runs background work once the components it uses exist</li>
+ * </ul>
+ * Dependencies must be added before the components that use them, so the graph cannot
+ * have cycles. Every build, wait and task is recorded in the {@link StartupTrace} and shows
+ * up as a trace section in system traces.
+ */
+public class StartupGraph {
+    private static final String TAG = "StartupGraph";
+
+    public interface Factory<T> {
+        T create(StartupGraph graph) throws Exception;
+    }
+
+    public static final class Node<T> {
+        private final String name;
+        private final Factory<T> factory;
+        private final List<Node<?>> dependencies;
+        private volatile T value;
+        // Guarded by the graph
+        private CompletableFuture<Void> warmUp;
+
+        private Node(String name, Factory<T> factory, List<Node<?>> dependencies) {
+            this.name = name;
+            this.factory = factory;
+            this.dependencies = dependencies;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final List<Node<?>> nodes = new ArrayList<>();
+    private final StartupTrace trace;
+
+    public StartupGraph() {
+        this(new StartupTrace());
+    }
+
+    public StartupGraph(StartupTrace trace) {
+        this.trace = trace;
+    }
+
+    public StartupTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * Declares a component. The factory gets its dependencies with {@link #get}, it must not return null.
+     */
+    public synchronized <T> Node<T> add(String name, Factory<T> factory, Node<?>... dependencies) {
+        for (Node<?> dependency : dependencies) {
+            if (!nodes.contains(dependency)) {
+                throw new IllegalArgumentException(
+                    name + " depends on " + dependency.name + ", which has to be added first");
+            }
+        }
+        Node<T> node = new Node<>(name, factory, Arrays.asList(dependencies));
+        nodes.add(node);
+        return node;
+    }
+
+    public <T> T get(Node<T> node) {
+        T value = node.value;
+        return value != null ? value : create(node);
+    }
+
+    /**
+     * The component if it was built already, null otherwise. For work that only
+     * applies to components in use, like flushing buffers on trim.
+     */
+    public <T> T peek(Node<T> node) {
+        return node.value;
+    }
+
+    private <T> T create(Node<T> node) {
+        long requestedNanos = System.nanoTime();
+        // Nodes are locked in dependency order, so two threads cannot wait on each other
+        synchronized (node) {
+            if (node.value != null) {
+                // Another thread built it while this one waited
+                trace.record("wait " + node.name, requestedNanos, System.nanoTime());
+                return node.value;
+            }
+            for (Node<?> dependency : node.dependencies) {
+                get(dependency);
+            }
+            long startNanos = System.nanoTime();
+            Trace.beginSection(node.name);
+            try {
+                T value = node.factory.create(this);
+                if (value == null) {
+                    throw new IllegalStateException(node.name + " factory returned null");
+                }
+                node.value = value;
+                return value;
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not create " + node.name, e);
+            } finally {
+                Trace.endSection();
+                trace.record(node.name, startNanos, System.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * Builds the given components and their dependencies on {@code executor}. A component
+     * that fails is logged and built again, with its exception, on its next {@link #get}.
+     */
+    public synchronized CompletableFuture<Void> warmUp(Executor executor, Node<?>... targets) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            futures[i] = warmUpFuture(targets[i], executor);
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    // Called with the graph locked
+    private CompletableFuture<Void> warmUpFuture(Node<?> node, Executor executor) {
+        if (node.warmUp == null) {
+            CompletableFuture<?>[] dependencies = new CompletableFuture<?>[node.dependencies.size()];
+            for (int i = 0; i < dependencies.length; i++) {
+                dependencies[i] = warmUpFuture(node.dependencies.get(i), executor);
+            }
+            node.warmUp = CompletableFuture.allOf(dependencies)
+                .thenRunAsync(() -> get(node), executor);
+            node.warmUp.exceptionally(error -> {
+                Log.e(TAG, "Warm up of " + node.name + " failed", error);
+                return null;
+            });
+        }
+        return node.warmUp;
+    }
+
+    /**
+     * Runs {@code task} on {@code executor} once the given components are built,
+     * warming them up on the same executor.
+     */
+    public synchronized CompletableFuture<Void> whenReady(String name, Executor executor, Runnable task,
+                                                          Node<?>... dependencies) {
+        CompletableFuture<Void> future = warmUp(executor, dependencies).thenRunAsync(() -> {
+            long startNanos = System.nanoTime();
+            Trace.beginSection(name);
+            try {
+                task.run();
+            } finally {
+                Trace.endSection();
+                trace.record(name, startNanos, System.nanoTime());
+            }
+        }, executor);
+        future.exceptionally(error -> {
+            Log.e(TAG, name + " failed", error);
+            return null;
+        });
+        return future;
+    }
+}
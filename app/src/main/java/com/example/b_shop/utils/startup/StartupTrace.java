@@ -0,0 +1,70 @@
+package com.example.b_shop.utils.startup;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Timeline of startup: when each component was built, on which thread and for how long,
+ * plus background tasks and time a thread spent waiting for a component another thread
+ * was building. Times are relative to the creation of the trace.
+ */
+public class StartupTrace {
+    private static final String TAG = "StartupTrace";
+
+    private final long originNanos;
+    private final List<Stage> stages = new ArrayList<>();
+
+    public StartupTrace() {
+        this(System.nanoTime());
+    }
+
+    /**
+     * @param originNanos {@link System#nanoTime()} of the moment offsets are counted from
+     */
+    public StartupTrace(long originNanos) {
+        this.originNanos = originNanos;
+    }
+
+    public void record(String name, long startNanos, long endNanos) {
+        Stage stage = new Stage(name, Thread.currentThread().getName(),
+            startNanos - originNanos, endNanos - startNanos);
+        synchronized (stages) {
+            stages.add(stage);
+        }
+    }
+
+    public List<Stage> getStages() {
+        synchronized (stages) {
+            return new ArrayList<>(stages);
+        }
+    }
+
+    public void log() {
+        for (Stage stage : getStages()) {
+            Log.d(TAG, stage.toString());
+        }
+    }
+
+    public static class Stage {
+        public final String name;
+        public final String thread;
+        public final long startOffsetNanos;
+        public final long durationNanos;
+
+        Stage(String name, String thread, long startOffsetNanos, long durationNanos) {
+            this.name = name;
+            this.thread = thread;
+            this.startOffsetNanos = startOffsetNanos;
+            this.durationNanos = durationNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%-32s +%8.2fms %8.2fms  %s",
+                name, startOffsetNanos / 1e6, durationNanos / 1e6, thread);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.b_shop.data.local;
+
+import android.content.Context;
+import android.database.Cursor;
+import androidx.room.Room;
+import androidx.room.util.TableInfo;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.core.app.ApplicationProvider;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.SQLiteMode;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs migrations on hand-built databases of the old version and checks the result
+ * against the schema Room creates on fresh installs.
+ */
+@RunWith(RobolectricTestRunner.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class MigrationTest {
+    private SupportSQLiteOpenHelper helper;
+    private AppDatabase database;
+
+    @After
+    public void close() {
+        if (helper != null) {
+            helper.close();
+        }
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    public void migration14To15BackfillsItemCounts() {
+        SupportSQLiteDatabase db = openVersion(14,
+            "CREATE TABLE orders (orderId INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "userId INTEGER NOT NULL, orderDate INTEGER, status TEXT, " +
+                "totalAmount REAL NOT NULL)",
+            "CREATE TABLE order_items (orderItemId INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "orderId INTEGER NOT NULL, productId INTEGER NOT NULL, " +
+                "quantity INTEGER NOT NULL, priceAtTime REAL NOT NULL)"
+        );
+        db.execSQL("INSERT INTO orders (orderId, userId, orderDate, status, totalAmount) VALUES " +
+            "(1, 1, 100, 'PENDING', 30), (2, 1, 200, 'DELIVERED', 10), (3, 2, 300, 'CONFIRMED', 0)");
+        db.execSQL("INSERT INTO order_items (orderId, productId, quantity, priceAtTime) VALUES " +
+            "(1, 1, 1, 10), (1, 2, 1, 10), (1, 3, 1, 10), (2, 1, 1, 10)");
+
+        AppDatabase.MIGRATION_14_15.migrate(db);
+
+        assertEquals(3, itemCount(db, 1));
+        assertEquals(1, itemCount(db, 2));
+        assertEquals(0, itemCount(db, 3));
+        assertEquals(freshTable("orders").columns, TableInfo.read(db, "orders").columns);
+    }
+
+    private SupportSQLiteDatabase openVersion(int version, String... schema) {
+        Context context = ApplicationProvider.getApplicationContext();
+        helper = new FrameworkSQLiteOpenHelperFactory().create(
+            SupportSQLiteOpenHelper.Configuration.builder(context)
+                .callback(new SupportSQLiteOpenHelper.Callback(version) {
+                    @Override
+                    public void onCreate(SupportSQLiteDatabase db) {
+                        for (String sql : schema) {
+                            db.execSQL(sql);
+                        }
+                    }
+
+                    @Override
+                    public void onUpgrade(SupportSQLiteDatabase db, int oldVersion, int newVersion) {
+                    }
+                })
+                .build());
+        return helper.getWritableDatabase();
+    }
+
+    private TableInfo freshTable(String table) {
+        database = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(),
+                AppDatabase.class)
+            .allowMainThreadQueries()
+            .addCallback(AppDatabase.CALLBACK)
+            .build();
+        return TableInfo.read(database.getOpenHelper().getWritableDatabase(), table);
+    }
+
+    private static int itemCount(SupportSQLiteDatabase db, int orderId) {
+        try (Cursor cursor = db.query("SELECT itemCount FROM orders WHERE orderId = ?",
+                new Object[] {orderId})) {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getInt(0);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.b_shop.data.local;
+
+import android.content.Context;
+import android.database.Cursor;
+import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs EXPLAIN QUERY PLAN on every {@code @Query} in the DAOs against the real Room schema
+ * and fails on full table scans and temp B-tree sorts, so a query change that loses its
+ * index shows up here instead of as jank on a large catalog.
+ * Room annotations are not visible at runtime, so the SQL is read from the DAO sources.
+ */
+@RunWith(RobolectricTestRunner.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class QueryPlanTest {
+    private static final File DAO_SOURCES = new File("src/main/java/com/example/b_shop/data/local/dao");
+
+    // Plans that are expected to scan or sort, with the reason they are acceptable
+    private static final Set<String> ALLOWED = new HashSet<>(Arrays.asList(
+        // Categories are a short list that is always read whole
+        "CategoryDao.getAllCategories",
+        "CategoryDao.getCategoryCount",
+        "CategoryDao.getCategoriesWithProductCount",
+        // LIKE '%query%' cannot use an index
+        "CategoryDao.searchCategories",
+        // Reads the whole catalog by design
+        "ProductDao.getAllProducts",
+        // stock > 0 matches most of the catalog, and an index on stock would be rewritten
+        // on every cart reservation
+        "ProductDao.getAvailableProducts",
+        // Sorts only the matches of the FTS index
+        "ProductDao.searchProducts",
+        // Sorts categories x perCategory rows, each category is read through the index
+        "ProductDao.getTopProductsPerCategory"
+    ));
+
+    private static final Pattern QUERY = Pattern.compile(
+        "@Query\\(((?:\\s*\"(?:[^\"\\\\]|\\\\.)*\"\\s*\\+?)+)\\s*\\)" +
+        "\\s*(?:@\\w+(?:\\([^)]*\\))?\\s*)*[\\w<>,.\\s\\[\\]]+?\\s+(\\w+)\\s*\\(");
+    private static final Pattern STRING_LITERAL = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern BIND_PARAMETER = Pattern.compile(":\\w+");
+    // "SCAN products" and the pre-3.36 form "SCAN TABLE products AS p", without an index
+    private static final Pattern FULL_SCAN = Pattern.compile("^SCAN (?:TABLE )?\\w+(?: AS \\w+)?$");
+
+    private AppDatabase database;
+
+    @Before
+    public void createDatabase() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+            .allowMainThreadQueries()
+            .addCallback(AppDatabase.CALLBACK)
+            .build();
+        seed(database.getOpenHelper().getWritableDatabase());
+    }
+
+    @After
+    public void closeDatabase() {
+        database.close();
+    }
+
+    @Test
+    public void hotQueriesUseIndices() throws IOException {
+        Map<String, String> queries = readQueries();
+        assertFalse("No @Query found in " + DAO_SOURCES.getAbsolutePath(), queries.isEmpty());
+
+        SupportSQLiteDatabase db = database.getOpenHelper().getReadableDatabase();
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, String> query : queries.entrySet()) {
+            List<String> plan = explain(db, query.getValue());
+            if (!ALLOWED.contains(query.getKey()) && !isIndexed(plan)) {
+                failures.add(query.getKey() + ": " + plan);
+            }
+        }
+        assertTrue("Queries without a supporting index:\n" + String.join("\n", failures),
+            failures.isEmpty());
+    }
+
+    @Test
+    public void allowedQueriesStillExist() throws IOException {
+        // Keeps the allow list from outliving the queries it excuses
+        Set<String> queries = readQueries().keySet();
+        for (String allowed : ALLOWED) {
+            assertTrue(allowed + " is allowed but no longer exists", queries.contains(allowed));
+        }
+    }
+
+    @Test
+    public void orderHistoryPagesSeekToTheCursor() throws IOException {
+        // An index SEARCH on userId alone still walks every newer order of the user
+        Map<String, String> queries = readQueries();
+        SupportSQLiteDatabase db = database.getOpenHelper().getReadableDatabase();
+        assertSeeks(explain(db, queries.get("OrderDao.getUserOrdersAfter")),
+            "index_orders_userId_orderDate (userId=? AND orderDate<?)");
+        assertSeeks(explain(db, queries.get("OrderDao.getUserOrdersBefore")),
+            "index_orders_userId_orderDate (userId=? AND orderDate>?)");
+    }
+
+    private static void assertSeeks(List<String> plan, String search) {
+        for (String step : plan) {
+            if (step.startsWith("SEARCH") && step.endsWith(search)) {
+                return;
+            }
+        }
+        fail("Expected a SEARCH using " + search + ", got " + plan);
+    }
+
+    private static boolean isIndexed(List<String> plan) {
+        for (String step : plan) {
+            if (FULL_SCAN.matcher(step).matches() || step.contains("TEMP B-TREE")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> explain(SupportSQLiteDatabase db, String sql) {
+        // Parameters are left unbound, plans do not depend on their values
+        Object[] args = new Object[countParameters(sql)];
+        List<String> plan = new ArrayList<>();
+        try (Cursor cursor = db.query(new SimpleSQLiteQuery("EXPLAIN QUERY PLAN " + sql, args))) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.add(cursor.getString(detail));
+            }
+        }
+        return plan;
+    }
+
+    private static int countParameters(String sql) {
+        int count = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            if (sql.charAt(i) == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * SQL of every DAO query keyed by {@code Dao.method}, with named parameters turned into {@code ?}.
+     */
+    private static Map<String, String> readQueries() throws IOException {
+        Map<String, String> queries = new LinkedHashMap<>();
+        File[] sources = DAO_SOURCES.listFiles((dir, name) -> name.endsWith(".java"));
+        assertNotNull("DAO sources not found at " + DAO_SOURCES.getAbsolutePath(), sources);
+        Arrays.sort(sources);
+        for (File source : sources) {
+            String dao = source.getName().substring(0, source.getName().length() - ".java".length());
+            String code = new String(Files.readAllBytes(source.toPath()), StandardCharsets.UTF_8);
+            Matcher query = QUERY.matcher(code);
+            while (query.find()) {
+                StringBuilder sql = new StringBuilder();
+                Matcher literal = STRING_LITERAL.matcher(query.group(1));
+                while (literal.find()) {
+                    sql.append(literal.group(1).replace("\\\"", "\"").replace("\\\\", "\\"));
+                }
+                String bound = BIND_PARAMETER.matcher(sql).replaceAll("?");
+                queries.put(dao + "." + query.group(2), bound);
+            }
+        }
+        return queries;
+    }
+
+    // A small catalog with some activity. Plans are taken without ANALYZE, as on devices,
+    // so this keeps the tables realistic rather than steering the planner.
+    private static void seed(SupportSQLiteDatabase db) {
+        db.beginTransaction();
+        try {
+            for (int user = 1; user <= 20; user++) {
+                db.execSQL("INSERT INTO users (name, email, password, role, isActive, createdAt, lastLogin) " +
+                    "VALUES (?, ?, 'x', ?, 1, 0, ?)",
+                    new Object[] {"User " + user, "user" + user + "@bshop.com",
+                        user == 1 ? "ADMIN" : "USER", user * 1000L});
+            }
+            for (int category = 1; category <= 5; category++) {
+                db.execSQL("INSERT INTO categories (name, description) VALUES (?, '')",
+                    new Object[] {"Category " + category});
+            }
+            for (int product = 1; product <= 200; product++) {
+                db.execSQL("INSERT INTO products (name, description, price, categoryId, stock, rating, reviewCount) " +
+                    "VALUES (?, 'Sample product', ?, ?, ?, ?, 0)",
+                    new Object[] {"Product " + product, product % 50 + 0.99,
+                        product % 5 + 1, product % 7, (product % 11) / 2f});
+            }
+            for (int user = 2; user <= 20; user++) {
+                for (int item = 0; item < 3; item++) {
+                    int productId = (user * 7 + item) % 200 + 1;
+                    db.execSQL("INSERT INTO cart_items (userId, productId, quantity, itemPrice, addedAt) " +
+                        "VALUES (?, ?, 1, 9.99, ?)", new Object[] {user, productId, item * 1000L});
+                    db.execSQL("INSERT INTO user_favorites (userId, productId) VALUES (?, ?)",
+                        new Object[] {user, productId});
+                    db.execSQL("INSERT INTO reviews (userId, productId, rating, comment, createdAt, helpfulCount) " +
+                        "VALUES (?, ?, ?, 'ok', ?, 0)",
+                        new Object[] {user, productId, item + 3, item * 1000L});
+                }
+                db.execSQL("INSERT INTO orders (userId, orderDate, status, totalAmount) VALUES (?, ?, ?, 0)",
+                    new Object[] {user, user * 1000L, user % 2 == 0 ? "PENDING" : "DELIVERED"});
+                db.execSQL("INSERT INTO order_items (orderId, productId, quantity, priceAtTime) " +
+                    "VALUES (last_insert_rowid(), ?, 1, 9.99)", new Object[] {user});
+                db.execSQL("INSERT INTO user_audit_log (userId, adminId, action, details, timestamp) " +
+                    "VALUES (?, 1, 'USER_BLOCKED', '', ?)", new Object[] {user, user * 1000L});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.b_shop.data.local.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverEveryValueWithinAnEighth() {
+        int previous = -1;
+        for (long micros = 0; micros < 1_000_000; micros += 1 + micros / 64) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            assertTrue(bucket >= previous);
+            assertTrue(bucket < LatencyHistogram.BUCKET_COUNT);
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertTrue(micros + " above its bucket", micros <= upper);
+            assertTrue(micros + " in a bucket too wide", upper - micros <= Math.max(1, micros / 8));
+            previous = bucket;
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE / 1000));
+    }
+
+    @Test
+    public void percentilesStayWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(millis * 1_000_000L);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(100, snapshot.count);
+        assertEquals(100_000_000L, snapshot.maxNanos);
+        assertEquals(50_500_000L, snapshot.getMeanNanos());
+        assertWithinEighth(50_000_000L, snapshot.getPercentileNanos(50));
+        assertWithinEighth(99_000_000L, snapshot.getPercentileNanos(99));
+        assertEquals(100_000_000L, snapshot.getPercentileNanos(100));
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5_000);
+        histogram.reset();
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(0, snapshot.count);
+        assertEquals(0, snapshot.maxNanos);
+        assertEquals(0, snapshot.getPercentileNanos(99));
+    }
+
+    private static void assertWithinEighth(long expected, long actual) {
+        assertTrue(actual + " below " + expected, actual >= expected);
+        assertTrue(actual + " too far above " + expected, actual <= expected + expected / 8);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.b_shop.data.local.metrics;
+
+import android.content.Context;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import com.example.b_shop.data.local.AppDatabase;
+import com.example.b_shop.data.local.entities.Category;
+import com.example.b_shop.data.local.entities.Product;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs DAO calls through a database opened with {@link InstrumentedOpenHelperFactory}
+ * and checks what lands in {@link QueryMetrics}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class QueryMetricsTest {
+    private QueryMetrics metrics;
+    private AppDatabase database;
+
+    @Before
+    public void createDatabase() {
+        Context context = ApplicationProvider.getApplicationContext();
+        metrics = new QueryMetrics();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+            .allowMainThreadQueries()
+            .addCallback(AppDatabase.CALLBACK)
+            .openHelperFactory(new InstrumentedOpenHelperFactory(metrics))
+            .build();
+    }
+
+    @After
+    public void closeDatabase() {
+        database.close();
+    }
+
+    @Test
+    public void recordsStatementsPerDaoMethod() {
+        int categoryId = (int) database.categoryDao().insert(new Category("Phones", "Phones"));
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            products.add(new Product("Phone " + i, "A phone", 100 + i, categoryId, null, 5));
+        }
+        database.productDao().insertAll(products);
+        database.productDao().getProductCount();
+        database.productDao().getProductCount();
+
+        QueryMetrics.StatementStats inserts = find("ProductDao", "insertAll");
+        assertEquals(3, inserts.getExecutions());
+        assertEquals(3, inserts.rows);
+        QueryMetrics.StatementStats counts = find("ProductDao", "getProductCount");
+        assertEquals(2, counts.getExecutions());
+        assertEquals(2, counts.rows);
+        assertFalse(counts.liveData);
+
+        assertTrue(metrics.getDaoLatencies().get("ProductDao").count >= 5);
+        // @Insert runs in a transaction of its own
+        assertTrue(metrics.getTransactionHoldTime().count >= 2);
+    }
+
+    @Test
+    public void disabledMetricsRecordNothing() {
+        metrics.setEnabled(false);
+        database.productDao().getProductCount();
+
+        assertTrue(metrics.getStatementStats().isEmpty());
+        assertEquals(0, metrics.getTransactionHoldTime().count);
+    }
+
+    @Test
+    public void resetKeepsCompiledStatementsRecording() {
+        int categoryId = (int) database.categoryDao().insert(new Category("Phones", "Phones"));
+        metrics.reset();
+        database.categoryDao().insert(new Category("Tablets", "Tablets"));
+
+        assertEquals(1, find("CategoryDao", "insert").getExecutions());
+        assertTrue(categoryId > 0);
+    }
+
+    private QueryMetrics.StatementStats find(String dao, String method) {
+        for (QueryMetrics.StatementStats stats : metrics.getStatementStats()) {
+            if (stats.dao.equals(dao) && stats.method.equals(method)) {
+                return stats;
+            }
+        }
+        fail("No statement recorded for " + dao + "." + method + " in " + metrics.getStatementStats());
+        return null;
+    }
+}
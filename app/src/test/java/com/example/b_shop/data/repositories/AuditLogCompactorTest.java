@@ -0,0 +1,120 @@
+package com.example.b_shop.data.repositories;
+
+import com.example.b_shop.data.local.dao.UserDao;
+import com.example.b_shop.data.local.entities.UserAuditLog;
+import com.example.b_shop.utils.concurrent.PriorityExecutorService;
+import com.example.b_shop.utils.concurrent.TaskPriority;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class AuditLogCompactorTest {
+    private static final int BATCH_SIZE = 200;
+
+    private final AtomicInteger batchesRead = new AtomicInteger();
+    // Rows returned by the next reads, a full batch makes the compactor queue another one
+    private final List<List<UserAuditLog>> batches = Collections.synchronizedList(new ArrayList<>());
+    private RejectingPool pool;
+    private AuditLogCompactor compactor;
+
+    private void createCompactor(Integer... rejectedCalls) {
+        pool = new RejectingPool(rejectedCalls);
+        UserDao userDao = (UserDao) Proxy.newProxyInstance(UserDao.class.getClassLoader(),
+            new Class<?>[] {UserDao.class}, (proxy, method, args) -> {
+                if (method.getName().equals("getAuditLogsBefore")) {
+                    batchesRead.incrementAndGet();
+                    return batches.isEmpty() ? Collections.emptyList() : batches.remove(0);
+                }
+                return null;
+            });
+        compactor = new AuditLogCompactor(userDao, pool, new AuditLogRetention(30, null));
+    }
+
+    @After
+    public void shutDownPool() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void rejectedFirstBatchDoesNotBlockLaterPasses() throws Exception {
+        createCompactor(1);
+        compactor.compact();
+        awaitPool();
+        assertEquals(0, batchesRead.get());
+
+        compactor.compact();
+        awaitPool();
+        assertEquals(1, batchesRead.get());
+    }
+
+    @Test
+    public void rejectedFollowUpBatchDoesNotBlockLaterPasses() throws Exception {
+        // The second hand-off is the follow-up batch
+        createCompactor(2);
+        batches.add(fullBatch());
+        compactor.compact();
+        awaitPool();
+        assertEquals(1, batchesRead.get());
+
+        compactor.compact();
+        awaitPool();
+        assertEquals(2, batchesRead.get());
+    }
+
+    @Test
+    public void finishedPassSkipsCallsWithinTheInterval() throws Exception {
+        createCompactor();
+        compactor.compact();
+        awaitPool();
+        compactor.compact();
+        awaitPool();
+        assertEquals(1, batchesRead.get());
+    }
+
+    private static List<UserAuditLog> fullBatch() {
+        List<UserAuditLog> batch = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new UserAuditLog(1, 2, "BLOCK", "details"));
+        }
+        return batch;
+    }
+
+    // Everything queued on the single pool thread before this has run
+    private void awaitPool() throws Exception {
+        pool.submit(() -> null, TaskPriority.BACKGROUND).get(5, TimeUnit.SECONDS);
+    }
+
+    // Rejects the given hand-offs, counted from 1, as a full write queue does
+    private static class RejectingPool extends PriorityExecutorService {
+        private final Set<Integer> rejected;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        RejectingPool(Integer... rejectedCalls) {
+            super("test", 1, 16, Thread.NORM_PRIORITY);
+            rejected = new HashSet<>(Arrays.asList(rejectedCalls));
+        }
+
+        @Override
+        public void execute(Runnable command, TaskPriority priority) {
+            if (rejected.contains(calls.incrementAndGet())) {
+                throw new RejectedExecutionException("Rejected for the test");
+            }
+            super.execute(command, priority);
+        }
+    }
+}
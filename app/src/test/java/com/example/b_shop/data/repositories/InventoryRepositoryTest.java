@@ -0,0 +1,119 @@
+package com.example.b_shop.data.repositories;
+
+import com.example.b_shop.data.local.dao.InventoryDao;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import com.example.b_shop.utils.concurrent.PriorityExecutorService;
+import com.example.b_shop.utils.concurrent.TaskPriority;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class InventoryRepositoryTest {
+    private static final int SWEEP_BATCH_SIZE = 100;
+
+    private final AtomicInteger batchesRun = new AtomicInteger();
+    // Holds released by the next batches, a full batch makes the sweep queue another one
+    private final List<Integer> released = Collections.synchronizedList(new LinkedList<>());
+    private RejectingPool pool;
+    private InventoryRepository repository;
+
+    private void createRepository(Integer... rejectedCalls) {
+        pool = new RejectingPool(rejectedCalls);
+        InventoryDao inventoryDao = (InventoryDao) Proxy.newProxyInstance(InventoryDao.class.getClassLoader(),
+            new Class<?>[] {InventoryDao.class}, (proxy, method, args) -> {
+                if (method.getName().equals("releaseExpired")) {
+                    batchesRun.incrementAndGet();
+                    return released.isEmpty() ? 0 : released.remove(0);
+                }
+                return null;
+            });
+        repository = new InventoryRepository(inventoryDao, new AppExecutors() {
+            @Override
+            public PriorityExecutorService dbWrite() {
+                return pool;
+            }
+        });
+    }
+
+    @After
+    public void shutDownPool() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void rejectedFirstBatchDoesNotBlockLaterSweeps() throws Exception {
+        createRepository(1);
+        repository.releaseExpiredHolds();
+        awaitPool();
+        assertEquals(0, batchesRun.get());
+
+        repository.releaseExpiredHolds();
+        awaitPool();
+        assertEquals(1, batchesRun.get());
+    }
+
+    @Test
+    public void rejectedFollowUpBatchDoesNotBlockLaterSweeps() throws Exception {
+        // The second hand-off is the follow-up batch
+        createRepository(2);
+        released.add(SWEEP_BATCH_SIZE);
+        repository.releaseExpiredHolds();
+        awaitPool();
+        assertEquals(1, batchesRun.get());
+
+        repository.releaseExpiredHolds();
+        awaitPool();
+        assertEquals(2, batchesRun.get());
+    }
+
+    @Test
+    public void sweepContinuesWhileBatchesAreFull() throws Exception {
+        createRepository();
+        released.addAll(Arrays.asList(SWEEP_BATCH_SIZE, SWEEP_BATCH_SIZE, 3));
+        repository.releaseExpiredHolds();
+        // Follow-up batches queue behind the first wait, so wait once per batch
+        awaitPool();
+        awaitPool();
+        awaitPool();
+        assertEquals(3, batchesRun.get());
+    }
+
+    // Everything queued on the single pool thread before this has run
+    private void awaitPool() throws Exception {
+        pool.submit(() -> null, TaskPriority.BACKGROUND).get(5, TimeUnit.SECONDS);
+    }
+
+    // Rejects the given hand-offs, counted from 1, as a full write queue does
+    private static class RejectingPool extends PriorityExecutorService {
+        private final Set<Integer> rejected;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        RejectingPool(Integer... rejectedCalls) {
+            super("test", 1, 16, Thread.NORM_PRIORITY);
+            rejected = new HashSet<>(Arrays.asList(rejectedCalls));
+        }
+
+        @Override
+        public void execute(Runnable command, TaskPriority priority) {
+            if (rejected.contains(calls.incrementAndGet())) {
+                throw new RejectedExecutionException("Rejected for the test");
+            }
+            super.execute(command, priority);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.b_shop.data.repositories;
+
+import android.content.Context;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import com.example.b_shop.data.local.AppDatabase;
+import com.example.b_shop.data.local.dao.OrderDao;
+import com.example.b_shop.data.local.entities.CartItem;
+import com.example.b_shop.data.local.entities.Category;
+import com.example.b_shop.data.local.entities.Order;
+import com.example.b_shop.data.local.entities.OrderItem;
+import com.example.b_shop.data.local.entities.Product;
+import com.example.b_shop.data.local.entities.User;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import com.example.b_shop.utils.concurrent.TaskPriority;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Order history pages and the per-user recent orders cache, against an in-memory database.
+ */
+@RunWith(RobolectricTestRunner.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class OrderRepositoryTest {
+    private AppDatabase database;
+    private AppExecutors executors;
+    private OrderRepository repository;
+    private int userId;
+    private int otherUserId;
+    private int productId;
+
+    @Before
+    public void createDatabase() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+            .allowMainThreadQueries()
+            .addCallback(AppDatabase.CALLBACK)
+            .build();
+        executors = new AppExecutors();
+        repository = new OrderRepository(database.orderDao(), database.checkoutDao(), executors);
+
+        userId = (int) database.userDao().insert(new User("Ann", "ann@example.com", "hash"));
+        otherUserId = (int) database.userDao().insert(new User("Bob", "bob@example.com", "hash"));
+        int categoryId = (int) database.categoryDao().insert(new Category("Phones", "Phones"));
+        productId = (int) database.productDao().insert(new Product("Phone", "A phone", 100, categoryId, null, 50));
+    }
+
+    @After
+    public void closeDatabase() {
+        database.close();
+    }
+
+    @Test
+    public void pagesWalkForwardAndBackAcrossEqualOrderDates() {
+        // Four orders share a date, so only orderId tells them apart
+        long[] dates = {400, 500, 400, 200, 400, 300, 400};
+        List<Order> expected = new ArrayList<>();
+        for (long date : dates) {
+            expected.add(insertOrder(userId, date));
+        }
+        insertOrder(otherUserId, 400);
+        expected.sort((a, b) -> a.getOrderDate().equals(b.getOrderDate())
+            ? Integer.compare(b.getOrderId(), a.getOrderId())
+            : b.getOrderDate().compareTo(a.getOrderDate()));
+
+        List<Order> forward = new ArrayList<>();
+        List<Order> page = repository.getOrderHistory(userId, null, 2);
+        while (!page.isEmpty()) {
+            forward.addAll(page);
+            page = repository.getOrderHistory(userId, page.get(page.size() - 1), 2);
+        }
+        assertEquals(ids(expected), ids(forward));
+
+        // Back from the last page to the first
+        List<Order> backward = new ArrayList<>(forward.subList(forward.size() - 1, forward.size()));
+        page = repository.getOrderHistoryBefore(userId, backward.get(0), 2);
+        while (!page.isEmpty()) {
+            backward.addAll(0, page);
+            page = repository.getOrderHistoryBefore(userId, page.get(0), 2);
+        }
+        assertEquals(ids(expected), ids(backward));
+    }
+
+    @Test
+    public void firstPageLargerThanTheCacheComesFromTheDatabase() {
+        for (int i = 0; i < 25; i++) {
+            insertOrder(userId, 1000 + i);
+        }
+        assertEquals(20, repository.getRecentOrders(userId).size());
+        assertEquals(25, repository.getOrderHistory(userId, null, 30).size());
+        assertEquals(5, repository.getOrderHistory(userId, null, 5).size());
+    }
+
+    @Test
+    public void createOrderDropsCachedRecentOrders() throws Exception {
+        insertOrder(userId, 100);
+        List<Order> cached = repository.getRecentOrders(userId);
+        assertSame(cached, repository.getRecentOrders(userId));
+
+        List<OrderItem> items = new ArrayList<>();
+        items.add(new OrderItem(0, productId, 1, 100f));
+        items.add(new OrderItem(0, productId, 2, 100f));
+        long orderId = repository.createOrder(new Order(userId, 300f), items);
+
+        List<Order> recent = repository.getRecentOrders(userId);
+        assertNotSame(cached, recent);
+        assertEquals(orderId, recent.get(0).getOrderId());
+        assertEquals(2, recent.get(0).getItemCount());
+    }
+
+    @Test
+    public void placeOrderFromCartDropsCachedRecentOrders() {
+        insertOrder(userId, 100);
+        List<Order> cached = repository.getRecentOrders(userId);
+
+        database.cartDao().insertCartItem(new CartItem(userId, productId, 2, 100f));
+        long orderId = repository.placeOrderFromCart(userId);
+
+        List<Order> recent = repository.getRecentOrders(userId);
+        assertNotSame(cached, recent);
+        assertEquals(orderId, recent.get(0).getOrderId());
+        assertEquals(1, recent.get(0).getItemCount());
+    }
+
+    @Test
+    public void updateOrderStatusDropsCachedRecentOrders() throws Exception {
+        Order order = insertOrder(userId, 100);
+        List<Order> cached = repository.getRecentOrders(userId);
+        assertEquals("PENDING", cached.get(0).getStatus());
+
+        repository.updateOrderStatus(order.getOrderId(), "DELIVERED");
+        awaitWrites();
+
+        List<Order> recent = repository.getRecentOrders(userId);
+        assertNotSame(cached, recent);
+        assertEquals("DELIVERED", recent.get(0).getStatus());
+    }
+
+    @Test
+    public void otherUsersKeepTheirCachedOrders() throws Exception {
+        insertOrder(otherUserId, 100);
+        List<Order> cached = repository.getRecentOrders(otherUserId);
+
+        repository.createOrder(new Order(userId, 10f), Collections.emptyList());
+
+        assertSame(cached, repository.getRecentOrders(otherUserId));
+    }
+
+    @Test
+    public void loadRacingWithAWriteIsNotCached() {
+        insertOrder(userId, 100);
+        AtomicBoolean raced = new AtomicBoolean();
+        OrderRepository[] racing = new OrderRepository[1];
+        OrderDao orderDao = database.orderDao();
+        // Commits an order right after the first history read, before its result is cached
+        OrderDao dao = (OrderDao) Proxy.newProxyInstance(OrderDao.class.getClassLoader(),
+            new Class<?>[] {OrderDao.class}, (proxy, method, args) -> {
+                Object result = method.invoke(orderDao, args);
+                if (method.getName().equals("getUserOrdersAfter") && raced.compareAndSet(false, true)) {
+                    racing[0].createOrder(new Order(userId, 10f), Collections.emptyList());
+                }
+                return result;
+            });
+        racing[0] = new OrderRepository(dao, database.checkoutDao(), executors);
+
+        assertEquals(1, racing[0].getRecentOrders(userId).size());
+        assertEquals(2, racing[0].getRecentOrders(userId).size());
+    }
+
+    private Order insertOrder(int owner, long orderDate) {
+        Order order = new Order(owner, 10f);
+        order.setOrderDate(new Date(orderDate));
+        order.setOrderId((int) database.orderDao().insertOrder(order));
+        return order;
+    }
+
+    // Everything queued on the single write thread before this has run
+    private void awaitWrites() throws Exception {
+        executors.dbWrite().submit(() -> null, TaskPriority.BACKGROUND).get(5, TimeUnit.SECONDS);
+    }
+
+    private static List<Integer> ids(List<Order> orders) {
+        List<Integer> ids = new ArrayList<>();
+        for (Order order : orders) {
+            ids.add(order.getOrderId());
+        }
+        return ids;
+    }
+}
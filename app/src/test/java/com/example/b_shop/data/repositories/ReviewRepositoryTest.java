@@ -0,0 +1,92 @@
+package com.example.b_shop.data.repositories;
+
+import com.example.b_shop.data.local.dao.ReviewDao;
+import com.example.b_shop.data.local.dao.UserDao;
+import com.example.b_shop.data.local.entities.Review;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * The reviewer profile cache behind the review feeds.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ReviewRepositoryTest {
+    private static final int REVIEWER_ID = 1;
+
+    private final AtomicInteger profileLoads = new AtomicInteger();
+    private volatile String reviewerName = "Ann";
+    // Renames the reviewer and evicts the profile while the next profile load is in flight
+    private final AtomicBoolean renameDuringLoad = new AtomicBoolean();
+    private ReviewRepository repository;
+
+    @Before
+    public void createRepository() {
+        ReviewDao reviewDao = (ReviewDao) Proxy.newProxyInstance(ReviewDao.class.getClassLoader(),
+            new Class<?>[] {ReviewDao.class}, (proxy, method, args) -> {
+                if (method.getName().equals("getNewestReviewsAfter")) {
+                    List<Review> reviews = new ArrayList<>();
+                    reviews.add(new Review(REVIEWER_ID, 1, 5, "Great"));
+                    return reviews;
+                }
+                return null;
+            });
+        UserDao userDao = (UserDao) Proxy.newProxyInstance(UserDao.class.getClassLoader(),
+            new Class<?>[] {UserDao.class}, (proxy, method, args) -> {
+                if (!method.getName().equals("getReviewerProfiles")) {
+                    return null;
+                }
+                profileLoads.incrementAndGet();
+                UserDao.ReviewerProfile profile = new UserDao.ReviewerProfile();
+                profile.userId = REVIEWER_ID;
+                profile.name = reviewerName;
+                if (renameDuringLoad.compareAndSet(true, false)) {
+                    reviewerName = "Ann Smith";
+                    repository.evictReviewerProfile(REVIEWER_ID);
+                }
+                return Collections.singletonList(profile);
+            });
+        repository = new ReviewRepository(reviewDao, userDao, null, new AppExecutors());
+    }
+
+    @Test
+    public void cachesProfilesAcrossPages() {
+        assertEquals("Ann", firstReview().getReviewerName());
+        assertEquals("Ann", firstReview().getReviewerName());
+        assertEquals(1, profileLoads.get());
+    }
+
+    @Test
+    public void evictionDropsTheCachedProfile() {
+        firstReview();
+        reviewerName = "Ann Smith";
+        repository.evictReviewerProfile(REVIEWER_ID);
+
+        assertEquals("Ann Smith", firstReview().getReviewerName());
+    }
+
+    @Test
+    public void loadRacingWithAnEvictionIsNotCached() {
+        renameDuringLoad.set(true);
+        // Read before the rename, so it still shows the old name once
+        assertEquals("Ann", firstReview().getReviewerName());
+
+        assertEquals("Ann Smith", firstReview().getReviewerName());
+        assertEquals(2, profileLoads.get());
+    }
+
+    private Review firstReview() {
+        return repository.getNewestReviews(1, null, 20).get(0);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.b_shop.ui.cart;
+
+import android.content.Context;
+import android.os.Looper;
+import androidx.lifecycle.MutableLiveData;
+import androidx.test.core.app.ApplicationProvider;
+import com.example.b_shop.data.local.dao.CartDao;
+import com.example.b_shop.data.local.dao.CheckoutDao;
+import com.example.b_shop.data.local.dao.OrderDao;
+import com.example.b_shop.data.local.dao.ProductDao;
+import com.example.b_shop.data.local.entities.Product;
+import com.example.b_shop.data.local.entities.UserRole;
+import com.example.b_shop.data.repositories.CartRepository;
+import com.example.b_shop.data.repositories.OrderRepository;
+import com.example.b_shop.domain.usecases.CartUseCase;
+import com.example.b_shop.domain.usecases.CheckoutUseCase;
+import com.example.b_shop.utils.UserManager;
+import com.example.b_shop.utils.concurrent.AppExecutors;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+public class CartViewModelTest {
+    private final List<String> writes = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void checkoutWaitsForCartWritesInFlight() throws Exception {
+        Context context = ApplicationProvider.getApplicationContext();
+        UserManager userManager = UserManager.getInstance(context);
+        userManager.loginUser(1, "ann@example.com", "Ann", UserRole.USER);
+        AppExecutors executors = new AppExecutors();
+
+        CountDownLatch adding = new CountDownLatch(1);
+        CountDownLatch releaseAdd = new CountDownLatch(1);
+        CartDao cartDao = dao(CartDao.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getCartItemsWithProduct":
+                    return new MutableLiveData<>();
+                case "validateAndAddToCart":
+                    adding.countDown();
+                    releaseAdd.await(5, TimeUnit.SECONDS);
+                    writes.add("add");
+                    return true;
+                case "applyQuantities":
+                    writes.add("quantities " + args[1]);
+                    return Collections.emptyList();
+                default:
+                    return null;
+            }
+        });
+        ProductDao productDao = dao(ProductDao.class, (proxy, method, args) ->
+            method.getName().equals("getProductSync") ? new Product("Phone", "", 100, 1, null, 10) : null);
+        CheckoutDao checkoutDao = dao(CheckoutDao.class, (proxy, method, args) -> {
+            if (method.getName().equals("placeOrder")) {
+                writes.add("order");
+                return 1L;
+            }
+            return null;
+        });
+        OrderRepository orderRepository = new OrderRepository(
+            dao(OrderDao.class, (proxy, method, args) -> null), checkoutDao, executors);
+
+        CartRepository cartRepository = new CartRepository(cartDao, productDao, userManager, executors);
+        CartUseCase cartUseCase = new CartUseCase(cartRepository, null, userManager);
+        CartViewModel viewModel = new CartViewModel(cartUseCase,
+            new CheckoutUseCase(orderRepository, userManager, executors));
+
+        cartUseCase.addToCart(7, 1);
+        assertTrue(adding.await(5, TimeUnit.SECONDS));
+        // Buffered, then flushed by checkout while the add still holds the write thread
+        viewModel.updateQuantity(3, 4);
+        viewModel.checkout();
+        releaseAdd.countDown();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writes.size() < 3 && System.currentTimeMillis() < deadline) {
+            shadowOf(Looper.getMainLooper()).idle();
+            Thread.sleep(10);
+        }
+        assertEquals(Arrays.asList("add", "quantities {3=4}", "order"), writes);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T dao(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+}
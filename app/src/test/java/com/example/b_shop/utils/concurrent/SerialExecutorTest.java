@@ -0,0 +1,123 @@
+package com.example.b_shop.utils.concurrent;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class SerialExecutorTest {
+    private RejectingPool pool;
+
+    @After
+    public void shutDownPool() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void runsTasksInOrder() throws Exception {
+        pool = new RejectingPool();
+        SerialExecutor serial = new SerialExecutor(pool, TaskPriority.DEFAULT);
+        List<Integer> ran = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        for (int i = 0; i < 10; i++) {
+            int task = i;
+            serial.execute(() -> ran.add(task));
+        }
+        serial.execute(done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), ran);
+    }
+
+    @Test
+    public void rejectedTaskDoesNotStrandTheTasksBehindIt() throws Exception {
+        // The second hand-off to the pool is the "rejected" task
+        pool = new RejectingPool(2);
+        SerialExecutor serial = new SerialExecutor(pool, TaskPriority.DEFAULT);
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        serial.execute(() -> {
+            awaitQuietly(release);
+            ran.add("first");
+        });
+        serial.execute(() -> ran.add("rejected"));
+        serial.execute(() -> {
+            ran.add("third");
+            done.countDown();
+        });
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("first", "third"), ran);
+    }
+
+    @Test
+    public void acceptsTasksAgainAfterEverythingQueuedWasRejected() throws Exception {
+        pool = new RejectingPool(2, 3);
+        SerialExecutor serial = new SerialExecutor(pool, TaskPriority.DEFAULT);
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch firstDone = new CountDownLatch(1);
+
+        serial.execute(() -> {
+            awaitQuietly(release);
+            ran.add("first");
+            firstDone.countDown();
+        });
+        serial.execute(() -> ran.add("rejected"));
+        serial.execute(() -> ran.add("rejected too"));
+        release.countDown();
+        assertTrue(firstDone.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch done = new CountDownLatch(1);
+        serial.execute(() -> {
+            ran.add("later");
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("first", "later"), ran);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Rejects the given hand-offs, counted from 1
+    private static class RejectingPool extends PriorityExecutorService {
+        private final Set<Integer> rejected;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        RejectingPool(Integer... rejectedCalls) {
+            super("test", 1, 16, Thread.NORM_PRIORITY);
+            rejected = new HashSet<>(Arrays.asList(rejectedCalls));
+        }
+
+        @Override
+        public void execute(Runnable command, TaskPriority priority) {
+            if (rejected.contains(calls.incrementAndGet())) {
+                throw new RejectedExecutionException("Rejected for the test");
+            }
+            super.execute(command, priority);
+        }
+    }
+}
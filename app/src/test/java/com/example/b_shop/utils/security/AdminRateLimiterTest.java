@@ -0,0 +1,133 @@
+package com.example.b_shop.utils.security;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link AdminRateLimiter}, using a fake clock where timing matters.
+ */
+public class AdminRateLimiterTest {
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final AdminRateLimiter limiter = new AdminRateLimiter(clock::get);
+
+    @Test
+    public void allowsBurstThenRejects() {
+        AdminRateLimiter.Budget budget = limiter.budgetFor("op", 60, 5);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(1, budget));
+        }
+        assertFalse(limiter.tryAcquire(1, budget));
+        assertEquals(0, limiter.getRemainingActions(1, budget));
+        assertEquals(1000, limiter.getTimeUntilReset(1, budget));
+    }
+
+    @Test
+    public void refillsAtSustainedRate() {
+        AdminRateLimiter.Budget budget = limiter.budgetFor("op", 60, 2);
+        assertTrue(limiter.tryAcquire(1, budget));
+        assertTrue(limiter.tryAcquire(1, budget));
+        assertFalse(limiter.tryAcquire(1, budget));
+
+        // 60 per minute is one call per second
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertFalse(limiter.tryAcquire(1, budget));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertTrue(limiter.tryAcquire(1, budget));
+        assertFalse(limiter.tryAcquire(1, budget));
+
+        // A long pause refills up to the burst, not beyond
+        clock.addAndGet(TimeUnit.HOURS.toNanos(1));
+        assertEquals(2, limiter.getRemainingActions(1, budget));
+    }
+
+    @Test
+    public void adminsAndOperationsHaveSeparateBuckets() {
+        AdminRateLimiter.Budget writes = limiter.budgetFor("write", 1, 1);
+        AdminRateLimiter.Budget reads = limiter.budgetFor("read", 1, 1);
+        assertTrue(limiter.tryAcquire(1, writes));
+        assertFalse(limiter.tryAcquire(1, writes));
+        assertTrue(limiter.tryAcquire(2, writes));
+        assertTrue(limiter.tryAcquire(1, reads));
+    }
+
+    @Test
+    public void exportsRejectionCounts() {
+        AdminRateLimiter.Budget budget = limiter.budgetFor("op", 1, 1);
+        limiter.tryAcquire(1, budget);
+        limiter.tryAcquire(1, budget);
+        limiter.tryAcquire(1, budget);
+
+        AdminRateLimiter.BudgetStats stats = limiter.getStats().get(0);
+        assertEquals("op", stats.operation);
+        assertEquals(1, stats.allowed);
+        assertEquals(2, stats.rejected);
+    }
+
+    @Test
+    public void resetRefillsBudgetsAlreadyHandedOut() {
+        AdminRateLimiter.Budget budget = limiter.budgetFor("op", 1, 1);
+        assertTrue(limiter.tryAcquire(1, budget));
+        assertFalse(limiter.tryAcquire(1, budget));
+
+        limiter.reset();
+
+        assertTrue(limiter.tryAcquire(1, budget));
+        assertSame(budget, limiter.budgetFor("op", 1, 1));
+        assertEquals(1, limiter.getStats().get(0).allowed);
+        assertEquals(0, limiter.getStats().get(0).rejected);
+    }
+
+    @Test
+    public void rejectsRatesBelowOneCallPerMinute() {
+        for (int callsPerMinute : new int[] {0, -1}) {
+            try {
+                limiter.budgetFor("op" + callsPerMinute, callsPerMinute, 0);
+                fail("Accepted " + callsPerMinute + " calls per minute");
+            } catch (IllegalArgumentException expected) {
+                assertTrue(expected.getMessage().contains("op" + callsPerMinute));
+            }
+        }
+    }
+
+    @Test
+    public void neverAdmitsMoreThanBurstUnderContention() throws Exception {
+        AdminRateLimiter.Budget budget = limiter.budgetFor("op", 1, 1000);
+        LongAdder admitted = new LongAdder();
+
+        runConcurrently(16, () -> {
+            for (int i = 0; i < 10_000; i++) {
+                if (limiter.tryAcquire(7, budget)) {
+                    admitted.increment();
+                }
+            }
+        });
+
+        // The clock is frozen, so exactly the burst gets through
+        assertEquals(1000, admitted.sum());
+    }
+
+    private static void runConcurrently(int threads, Runnable task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    task.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+    }
+}
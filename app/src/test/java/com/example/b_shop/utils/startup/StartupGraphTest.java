@@ -0,0 +1,135 @@
+package com.example.b_shop.utils.startup;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.b_shop.utils.UserManager;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class StartupGraphTest {
+
+    @Test
+    public void buildsOnFirstUseAfterDependencies() {
+        StartupGraph graph = new StartupGraph();
+        List<String> built = Collections.synchronizedList(new ArrayList<>());
+        StartupGraph.Node<String> database = graph.add("database", g -> record(built, "database"));
+        StartupGraph.Node<String> repository = graph.add("repository",
+            g -> record(built, "repository on " + g.get(database)), database);
+
+        assertTrue(built.isEmpty());
+        assertNull(graph.peek(repository));
+
+        assertEquals("repository on database", graph.get(repository));
+        assertEquals("repository on database", graph.get(repository));
+        assertEquals(List.of("database", "repository on database"), built);
+        assertEquals("database", graph.peek(database));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void dependenciesHaveToBeAddedFirst() {
+        StartupGraph graph = new StartupGraph();
+        StartupGraph.Node<String> elsewhere = new StartupGraph().add("database", g -> "database");
+        graph.add("repository", g -> "repository", elsewhere);
+    }
+
+    @Test
+    public void buildsOnceWhenThreadsRace() throws Exception {
+        StartupGraph graph = new StartupGraph();
+        AtomicInteger builds = new AtomicInteger();
+        StartupGraph.Node<Integer> database = graph.add("database", g -> {
+            Thread.sleep(20);
+            return builds.incrementAndGet();
+        });
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            graph.warmUp(pool, database);
+            CountDownLatch done = new CountDownLatch(8);
+            for (int i = 0; i < 8; i++) {
+                pool.execute(() -> {
+                    graph.get(database);
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    public void warmsUpIndependentComponentsInParallel() throws Exception {
+        StartupGraph graph = new StartupGraph();
+        // Each one only finishes once the other has started
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        StartupGraph.Node<String> users = graph.add("users", g -> awaitOther(bothStarted, "users"));
+        StartupGraph.Node<String> products = graph.add("products", g -> awaitOther(bothStarted, "products"));
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            graph.whenReady("task", pool, () -> ran.add("task"), users, products).get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(List.of("task"), ran);
+
+        List<String> stages = new ArrayList<>();
+        for (StartupTrace.Stage stage : graph.getTrace().getStages()) {
+            stages.add(stage.name);
+        }
+        assertTrue(stages.containsAll(List.of("users", "products", "task")));
+    }
+
+    @Test
+    public void warmsUpUserManagerWithStoredAdminSession() throws Exception {
+        Context context = ApplicationProvider.getApplicationContext();
+        context.getSharedPreferences("user_prefs", Context.MODE_PRIVATE).edit()
+            .putInt("user_id", 1)
+            .putString("user_role", "ADMIN")
+            .putLong("last_activity", System.currentTimeMillis())
+            .commit();
+        StartupGraph graph = new StartupGraph();
+        StartupGraph.Node<UserManager> users = graph.add("UserManager", g -> UserManager.getInstance(context));
+        StartupGraph.Node<String> reviews = graph.add("ReviewRepository",
+            g -> g.get(users) != null ? "reviews" : null, users);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            // Fails if building the manager off the main thread throws
+            graph.warmUp(pool, reviews).get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals("reviews", graph.peek(reviews));
+        assertEquals(Boolean.TRUE, graph.peek(users).getAdminSessionState().getValue());
+    }
+
+    private static String record(List<String> built, String name) {
+        built.add(name);
+        return name;
+    }
+
+    private static String awaitOther(CountDownLatch bothStarted, String name) throws InterruptedException {
+        bothStarted.countDown();
+        if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException(name + " was built alone");
+        }
+        return name;
+    }
+}
@@ -0,0 +1,162 @@
+import groovy.json.JsonSlurper
+
+// JMH benchmarks for the plain Java parts of the app. They run on the desktop JVM,
+// so they show relative costs and regressions, not on-device timings.
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(17))
+    }
+}
+
+// App sources compiled into the benchmarks as they are. Anything added here may only
+// use the Android APIs stubbed in src/androidStubs.
+val appSources by tasks.registering(Sync::class) {
+    from(rootProject.file("app/src/main/java")) {
+        include(
+            "com/example/b_shop/data/local/converters/StringListConverter.java",
+            "com/example/b_shop/data/local/converters/LazyStringList.java",
+            "com/example/b_shop/data/local/converters/DateConverter.java",
+            "com/example/b_shop/data/local/converters/UserRoleConverter.java",
+            "com/example/b_shop/data/local/entities/UserRole.java",
+            "com/example/b_shop/data/local/metrics/LatencyHistogram.java",
+            "com/example/b_shop/data/local/entities/Product.java",
+            "com/example/b_shop/data/local/entities/Category.java",
+            "com/example/b_shop/utils/SecurityUtils.java",
+            "com/example/b_shop/utils/ValidationUtils.java",
+            "com/example/b_shop/utils/security/AdminRateLimiter.java",
+            "com/example/b_shop/utils/startup/StartupGraph.java",
+            "com/example/b_shop/utils/startup/StartupTrace.java",
+            "com/example/b_shop/ui/adapters/ProductDiffCallback.java",
+            "com/example/b_shop/ui/adapters/CategoryDiffCallback.java"
+        )
+    }
+    into(layout.buildDirectory.dir("generated/appSources"))
+}
+
+sourceSets {
+    named("jmh") {
+        java.srcDir(appSources)
+        java.srcDir("src/androidStubs/java")
+    }
+}
+
+dependencies {
+    jmhImplementation(libs.androidx.annotation)
+    jmhImplementation(libs.room.common)
+    jmhImplementation(libs.org.json)
+}
+
+val jmhResults = layout.buildDirectory.file("results/jmh/results.json")
+val jmhBaseline = layout.projectDirectory.file("baseline/jmh-baseline.json")
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    resultFormat.set("JSON")
+    resultsFile.set(jmhResults)
+    // Allocation rate per operation next to every score
+    profilers.add("gc")
+    // Short iterations are plenty for these microsecond operations. Two forks give every score
+    // ten samples and a JIT layout of its own per fork, which keeps scoreError usable for jmhCompare.
+    fork.set(2)
+    warmupIterations.set(3)
+    warmup.set("1s")
+    iterations.set(5)
+    timeOnIteration.set("1s")
+    // e.g. -PjmhInclude=AdminRateLimiter to run a subset
+    providers.gradleProperty("jmhInclude").orNull?.let { includes.add(it) }
+}
+
+tasks.register<Copy>("jmhSaveBaseline") {
+    group = "benchmark"
+    description = "Keeps the last jmh results as the baseline later runs are compared with."
+    from(jmhResults)
+    into(jmhBaseline.asFile.parentFile)
+    rename { jmhBaseline.asFile.name }
+}
+
+tasks.register("jmhCompare") {
+    group = "benchmark"
+    description = "Compares the last jmh results with the baseline, fails on regressions " +
+        "beyond -PjmhTolerance (default 0.10) that are outside the error of both runs, " +
+        "and on results without a baseline entry."
+    val results = jmhResults.get().asFile
+    val baseline = jmhBaseline.asFile
+    val tolerance = providers.gradleProperty("jmhTolerance").map { it.toDouble() }.orElse(0.10)
+    inputs.file(results)
+    inputs.file(baseline)
+    doLast {
+        val current = readScores(results)
+        val previous = readScores(baseline)
+        val limit = tolerance.get()
+        val regressions = mutableListOf<String>()
+        val missing = mutableListOf<String>()
+        for ((key, score) in current.toSortedMap()) {
+            val before = previous[key]
+            if (before == null) {
+                missing.add(key)
+                continue
+            }
+            val delta = if (before.value > 0) (score.value - before.value) / before.value else 0.0
+            val line = String.format("%-100s %14.2f ±%6.1f%% -> %14.2f ±%6.1f%% %-10s %+7.1f%%",
+                key, before.value, before.relativeError(), score.value, score.relativeError(),
+                score.unit, delta * 100)
+            println(line)
+            // Throughput regresses downwards, time and allocation upwards, and only counts when
+            // the 99.9% confidence intervals of the two runs do not overlap.
+            // Code that allocated nothing regresses as soon as it allocates an object.
+            val regressed = if (score.higherIsBetter) -delta > limit && score.upper() < before.lower()
+                            else if (before.value > 0) delta > limit && score.lower() > before.upper()
+                            else score.value >= 16
+            if (regressed) {
+                regressions.add(line)
+            }
+        }
+        val failures = mutableListOf<String>()
+        if (regressions.isNotEmpty()) {
+            failures.add("Regressions beyond ${(limit * 100).toInt()}% and the score error:\n" +
+                regressions.joinToString("\n"))
+        }
+        if (missing.isNotEmpty()) {
+            failures.add("No baseline entry, run jmhSaveBaseline after a full run:\n" + missing.joinToString("\n"))
+        }
+        if (failures.isNotEmpty()) {
+            throw GradleException(failures.joinToString("\n\n"))
+        }
+    }
+}
+
+// error is half the width of the 99.9% confidence interval JMH reports, 0 when it has none
+data class Score(val value: Double, val error: Double, val unit: String, val higherIsBetter: Boolean) {
+    fun lower() = value - error
+    fun upper() = value + error
+    fun relativeError() = if (value > 0) error / value * 100 else 0.0
+}
+
+fun errorOf(metric: Map<*, *>): Double = (metric["scoreError"] as? Number)?.toDouble()?.takeIf { !it.isNaN() } ?: 0.0
+
+// Primary score and normalized allocation of every run, keyed by benchmark, params and metric
+fun readScores(file: File): Map<String, Score> {
+    val scores = mutableMapOf<String, Score>()
+    @Suppress("UNCHECKED_CAST")
+    val runs = JsonSlurper().parse(file) as List<Map<String, Any?>>
+    for (run in runs) {
+        val params = (run["params"] as Map<*, *>?)
+            ?.entries?.joinToString(",", "(", ")") { "${it.key}=${it.value}" } ?: ""
+        val key = "${run["benchmark"]}$params threads=${run["threads"]}"
+        val primary = run["primaryMetric"] as Map<*, *>
+        scores["$key score"] = Score((primary["score"] as Number).toDouble(), errorOf(primary),
+            primary["scoreUnit"] as String, run["mode"] == "thrpt")
+        val secondary = run["secondaryMetrics"] as Map<*, *>? ?: emptyMap<String, Any>()
+        val allocation = (secondary["gc.alloc.rate.norm"] ?: secondary["·gc.alloc.rate.norm"]) as Map<*, *>?
+        if (allocation != null) {
+            scores["$key alloc"] = Score((allocation["score"] as Number).toDouble(), errorOf(allocation),
+                allocation["scoreUnit"] as String, false)
+        }
+    }
+    return scores
+}
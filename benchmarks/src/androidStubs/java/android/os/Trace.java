@@ -0,0 +1,15 @@
+package android.os;
+
+/**
+ * JVM stand-in for android.os.Trace. There is no system trace to write sections to.
+ */
+public final class Trace {
+    private Trace() {
+    }
+
+    public static void beginSection(String sectionName) {
+    }
+
+    public static void endSection() {
+    }
+}
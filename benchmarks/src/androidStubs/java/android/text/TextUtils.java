@@ -0,0 +1,13 @@
+package android.text;
+
+/**
+ * JVM stand-in for the android.text.TextUtils methods the app uses.
+ */
+public final class TextUtils {
+    private TextUtils() {
+    }
+
+    public static boolean isEmpty(CharSequence str) {
+        return str == null || str.length() == 0;
+    }
+}
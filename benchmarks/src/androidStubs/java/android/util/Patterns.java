@@ -0,0 +1,27 @@
+package android.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * JVM stand-in for android.util.Patterns, with the expressions copied from AOSP.
+ */
+public final class Patterns {
+    public static final Pattern EMAIL_ADDRESS = Pattern.compile(
+        "[a-zA-Z0-9\\+\\.\\_\\%\\-\\+]{1,256}" +
+        "\\@" +
+        "[a-zA-Z0-9][a-zA-Z0-9\\-]{0,64}" +
+        "(" +
+            "\\." +
+            "[a-zA-Z0-9][a-zA-Z0-9\\-]{0,25}" +
+        ")+"
+    );
+
+    public static final Pattern PHONE = Pattern.compile(
+        "(\\+[0-9]+[\\- \\.]*)?" +
+        "(\\([0-9]+\\)[\\- \\.]*)?" +
+        "([0-9][0-9\\- \\.]+[0-9])"
+    );
+
+    private Patterns() {
+    }
+}
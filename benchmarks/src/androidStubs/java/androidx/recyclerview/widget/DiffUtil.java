@@ -0,0 +1,19 @@
+package androidx.recyclerview.widget;
+
+/**
+ * JVM stand-in for the part of DiffUtil the list adapters extend.
+ */
+public final class DiffUtil {
+    private DiffUtil() {
+    }
+
+    public abstract static class ItemCallback<T> {
+        public abstract boolean areItemsTheSame(T oldItem, T newItem);
+
+        public abstract boolean areContentsTheSame(T oldItem, T newItem);
+
+        public Object getChangePayload(T oldItem, T newItem) {
+            return null;
+        }
+    }
+}
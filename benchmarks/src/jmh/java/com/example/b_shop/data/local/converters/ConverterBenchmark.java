@@ -0,0 +1,44 @@
+package com.example.b_shop.data.local.converters;
+
+import com.example.b_shop.data.local.entities.UserRole;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The small converters run once per column per row, so their cost scales with every list read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConverterBenchmark {
+    private final Date date = new Date(1700000000000L);
+    private final Long timestamp = 1700000000000L;
+    private final UserRole role = UserRole.ADMIN;
+    private final String roleName = "ADMIN";
+
+    @Benchmark
+    public Long fromDate() {
+        return DateConverter.fromDate(date);
+    }
+
+    @Benchmark
+    public Date toDate() {
+        return DateConverter.toDate(timestamp);
+    }
+
+    @Benchmark
+    public String fromUserRole() {
+        return UserRoleConverter.fromUserRole(role);
+    }
+
+    @Benchmark
+    public UserRole toUserRole() {
+        return UserRoleConverter.toUserRole(roleName);
+    }
+}
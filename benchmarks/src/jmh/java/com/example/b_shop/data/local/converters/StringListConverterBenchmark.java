@@ -0,0 +1,75 @@
+package com.example.b_shop.data.local.converters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The binary image list format against the JSON text it replaced. The JSON side uses
+ * org.json from Maven, which is not the implementation Android ships, so compare the
+ * two formats within one run rather than with device numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StringListConverterBenchmark {
+    // Images per product
+    @Param({"1", "5", "20"})
+    public int size;
+
+    private List<String> list;
+    private byte[] binary;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add("https://cdn.bshop.example/images/products/48213/photo_" + i + ".jpg");
+        }
+        binary = StringListConverter.encode(list);
+        json = new JSONArray(list).toString();
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return StringListConverter.fromStringList(list);
+    }
+
+    @Benchmark
+    public String encodeJson() {
+        return new JSONArray(list).toString();
+    }
+
+    // What Room pays for a row whose images are never looked at
+    @Benchmark
+    public List<String> readBinaryUntouched() {
+        return StringListConverter.toStringList(binary);
+    }
+
+    @Benchmark
+    public String readBinaryAccessed() {
+        List<String> images = StringListConverter.toStringList(binary);
+        return images.get(images.size() - 1);
+    }
+
+    @Benchmark
+    public List<String> readJson() {
+        return StringListConverter.fromJson(json);
+    }
+
+    // A row read and written back without touching the list, e.g. a stock update
+    @Benchmark
+    public byte[] rewriteUntouched() {
+        return StringListConverter.fromStringList(StringListConverter.toStringList(binary));
+    }
+}
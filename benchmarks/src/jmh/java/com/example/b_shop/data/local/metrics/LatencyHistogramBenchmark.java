@@ -0,0 +1,48 @@
+package com.example.b_shop.data.local.metrics;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Cost that QueryMetrics adds to every statement, one histogram record per statement
+ * and DAO, alone and with query threads recording into the same histogram.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LatencyHistogramBenchmark {
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    // Latencies up to 16ms spread over the buckets instead of hitting the same one
+    @State(Scope.Thread)
+    public static class Latencies {
+        private long seed = Thread.currentThread().getId();
+
+        long next() {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            return (seed >>> 40) & 0xFFFFFFL;
+        }
+    }
+
+    @Benchmark
+    public void record(Latencies latencies) {
+        histogram.record(latencies.next());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended(Latencies latencies) {
+        histogram.record(latencies.next());
+    }
+
+    @Benchmark
+    public long snapshotPercentile() {
+        return histogram.snapshot().getPercentileNanos(99);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.b_shop.ui.adapters;
+
+import com.example.b_shop.data.local.entities.Category;
+import com.example.b_shop.data.local.entities.Product;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The item comparisons DiffUtil makes when Room emits a list again: every row is a new
+ * object, a few of them changed. Measures the comparators only, not DiffUtil's search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DiffCallbackBenchmark {
+    @Param({"100", "1000"})
+    public int size;
+
+    private final ProductDiffCallback productCallback = new ProductDiffCallback();
+    private final CategoryDiffCallback categoryCallback = new CategoryDiffCallback();
+    private List<Product> oldProducts;
+    private List<Product> newProducts;
+    private List<Category> oldCategories;
+    private List<Category> newCategories;
+
+    @Setup
+    public void setUp() {
+        oldProducts = products(0f);
+        // Every tenth price changed
+        newProducts = products(1f);
+        oldCategories = categories("");
+        newCategories = categories(" ");
+    }
+
+    private List<Product> products(float priceChange) {
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Product product = new Product("Product " + i, "Description of product " + i,
+                19.99f + (i % 10 == 0 ? priceChange : 0f), i % 12 + 1,
+                "https://cdn.bshop.example/images/products/" + i + ".jpg", 10);
+            product.setProductId(i + 1);
+            products.add(product);
+        }
+        return products;
+    }
+
+    private List<Category> categories(String nameChange) {
+        List<Category> categories = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Category category = new Category("Category " + i + (i % 10 == 0 ? nameChange : ""),
+                "Description of category " + i, "https://cdn.bshop.example/images/categories/" + i + ".jpg");
+            category.setCategoryId(i + 1);
+            categories.add(category);
+        }
+        return categories;
+    }
+
+    @Benchmark
+    public int compareProducts() {
+        int changed = 0;
+        for (int i = 0; i < size; i++) {
+            Product oldItem = oldProducts.get(i);
+            Product newItem = newProducts.get(i);
+            if (productCallback.areItemsTheSame(oldItem, newItem)
+                    && !productCallback.areContentsTheSame(oldItem, newItem)) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    @Benchmark
+    public int compareCategories() {
+        int changed = 0;
+        for (int i = 0; i < size; i++) {
+            Category oldItem = oldCategories.get(i);
+            Category newItem = newCategories.get(i);
+            if (categoryCallback.areItemsTheSame(oldItem, newItem)
+                    && !categoryCallback.areContentsTheSame(oldItem, newItem)) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+}
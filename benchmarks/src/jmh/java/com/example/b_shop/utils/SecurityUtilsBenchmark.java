@@ -0,0 +1,80 @@
+package com.example.b_shop.utils;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Password hashing and token generation. The contended variants share the static
+ * SecureRandom between threads, as concurrent logins and admin sessions do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SecurityUtilsBenchmark {
+    private static final String PASSWORD = "correct horse 42";
+
+    private String saltedHash;
+    private String token;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        saltedHash = SecurityUtils.hashPassword(PASSWORD);
+        token = SecurityUtils.generateSessionToken();
+    }
+
+    // DatabaseInitializer.hashPassword and the login check in UserRepository
+    @Benchmark
+    public String sha256Hex() throws NoSuchAlgorithmException {
+        return SecurityUtils.sha256Hex(PASSWORD);
+    }
+
+    @Benchmark
+    public String hashPassword() throws NoSuchAlgorithmException {
+        return SecurityUtils.hashPassword(PASSWORD);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String hashPasswordContended() throws NoSuchAlgorithmException {
+        return SecurityUtils.hashPassword(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean verifyPassword() {
+        return SecurityUtils.verifyPassword(PASSWORD, saltedHash);
+    }
+
+    @Benchmark
+    public String generateSessionToken() {
+        return SecurityUtils.generateSessionToken();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateSessionTokenContended() {
+        return SecurityUtils.generateSessionToken();
+    }
+
+    @Benchmark
+    public String generateSecurePassword() {
+        return SecurityUtils.generateSecurePassword();
+    }
+
+    @Benchmark
+    public boolean isValidTokenFormat() {
+        return SecurityUtils.isValidTokenFormat(token);
+    }
+
+    @Benchmark
+    public String sanitizeInput() {
+        return SecurityUtils.sanitizeInput("Robert'); DROP TABLE users;-- <b>hi</b>");
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.b_shop.utils;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Form validation, run on every keystroke of the login, register and profile screens.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ValidationUtilsBenchmark {
+    @Benchmark
+    public ValidationUtils.ValidationResult validateEmail() {
+        return ValidationUtils.validateEmail("jane.doe+shop@example.co.uk");
+    }
+
+    @Benchmark
+    public ValidationUtils.ValidationResult validateEmailInvalid() {
+        return ValidationUtils.validateEmail("jane.doe@@example");
+    }
+
+    @Benchmark
+    public ValidationUtils.ValidationResult validatePassword() {
+        return ValidationUtils.validatePassword("hunter2hunter2");
+    }
+
+    @Benchmark
+    public ValidationUtils.ValidationResult validateName() {
+        return ValidationUtils.validateName("Jane O'Neil-Smith");
+    }
+
+    @Benchmark
+    public ValidationUtils.ValidationResult validatePhone() {
+        return ValidationUtils.validatePhone("+213 555 12 34 56");
+    }
+
+    @Benchmark
+    public String formatPhoneNumber() {
+        return ValidationUtils.formatPhoneNumber("+213 (555) 12-34-56");
+    }
+}
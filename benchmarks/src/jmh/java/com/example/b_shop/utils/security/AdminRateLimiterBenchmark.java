@@ -0,0 +1,94 @@
+package com.example.b_shop.utils.security;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Rate limit checks, single threaded and with threads racing on one bucket or on many.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AdminRateLimiterBenchmark {
+    // 30 rejects nearly every call once the burst is spent, MAX_VALUE allows every call
+    @Param({"30", "2147483647"})
+    public int callsPerMinute;
+
+    private AdminRateLimiter limiter;
+    private AdminRateLimiter.Budget budget;
+    private final AtomicInteger nextAdminId = new AtomicInteger(1);
+
+    @State(Scope.Thread)
+    public static class Admin {
+        int adminId;
+
+        @Setup
+        public void setUp(AdminRateLimiterBenchmark benchmark) {
+            adminId = benchmark.nextAdminId.getAndIncrement();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        limiter = new AdminRateLimiter();
+        budget = limiter.budgetFor("benchmark", callsPerMinute, 0);
+    }
+
+    @Benchmark
+    public boolean tryAcquire(Admin admin) {
+        return limiter.tryAcquire(admin.adminId, budget);
+    }
+
+    // Every thread on the same admin's bucket, the compare-and-set retries
+    @Benchmark
+    @Threads(4)
+    public boolean tryAcquireSameAdmin() {
+        return limiter.tryAcquire(0, budget);
+    }
+
+    // One admin per thread, only the budget's counters are shared. Swept over 1 to 8 threads,
+    // total throughput should grow with the thread count up to the number of cores
+    @Benchmark
+    @Threads(1)
+    public boolean tryAcquireDistinctAdmins1Thread(Admin admin) {
+        return limiter.tryAcquire(admin.adminId, budget);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public boolean tryAcquireDistinctAdmins2Threads(Admin admin) {
+        return limiter.tryAcquire(admin.adminId, budget);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean tryAcquireDistinctAdmins4Threads(Admin admin) {
+        return limiter.tryAcquire(admin.adminId, budget);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean tryAcquireDistinctAdmins8Threads(Admin admin) {
+        return limiter.tryAcquire(admin.adminId, budget);
+    }
+
+    // Includes the budget lookup by operation name
+    @Benchmark
+    public boolean checkRateLimit(Admin admin) {
+        return limiter.checkRateLimit(admin.adminId);
+    }
+
+    @Benchmark
+    public int getRemainingActions(Admin admin) {
+        return limiter.getRemainingActions(admin.adminId, budget);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.b_shop.utils.startup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Main thread time from Application.onCreate until the first screen has its components,
+ * with the shape of BShopApplication: a database, a session manager and repositories that
+ * need the database. Building a component is simulated with a fixed amount of CPU work.
+ * The first screen needs two repositories, the rest are only declared or warmed up later.
+ * eagerConstruction is the old onCreate that built everything in order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ColdStartBenchmark {
+    private static final long DATABASE_WORK = 100_000;
+    private static final long SESSION_WORK = 20_000;
+    private static final long REPOSITORY_WORK = 10_000;
+    private static final int FIRST_SCREEN_REPOSITORIES = 2;
+
+    @Param({"8", "32", "128"})
+    public int repositories;
+
+    private ExecutorService pool;
+    private CompletableFuture<Void> warmUp;
+
+    @Setup(Level.Trial)
+    public void startPool() {
+        pool = Executors.newFixedThreadPool(3);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopPool() {
+        pool.shutdownNow();
+    }
+
+    // Background work of one start must not overlap the next one
+    @TearDown(Level.Invocation)
+    public void finishWarmUp() {
+        if (warmUp != null) {
+            warmUp.join();
+            warmUp = null;
+        }
+    }
+
+    private static Object build(long work) {
+        Blackhole.consumeCPU(work);
+        return new Object();
+    }
+
+    @Benchmark
+    public void startupGraph(Blackhole blackhole) {
+        StartupGraph graph = new StartupGraph();
+        StartupGraph.Node<Object> database = graph.add("database", g -> build(DATABASE_WORK));
+        StartupGraph.Node<Object> session = graph.add("session", g -> build(SESSION_WORK));
+        List<StartupGraph.Node<Object>> nodes = new ArrayList<>();
+        for (int i = 0; i < repositories; i++) {
+            nodes.add(graph.add("repository" + i, g -> {
+                g.get(database);
+                g.get(session);
+                return build(REPOSITORY_WORK);
+            }, database, session));
+        }
+        warmUp = graph.warmUp(pool, nodes.subList(0, FIRST_SCREEN_REPOSITORIES).toArray(new StartupGraph.Node<?>[0]));
+
+        // First screen
+        for (int i = 0; i < FIRST_SCREEN_REPOSITORIES; i++) {
+            blackhole.consume(graph.get(nodes.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void eagerConstruction(Blackhole blackhole) {
+        Object database = build(DATABASE_WORK);
+        Object session = build(SESSION_WORK);
+        List<Object> built = new ArrayList<>();
+        for (int i = 0; i < repositories; i++) {
+            built.add(build(REPOSITORY_WORK));
+        }
+        blackhole.consume(database);
+        blackhole.consume(session);
+        blackhole.consume(built);
+    }
+}
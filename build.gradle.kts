@@ -2,4 +2,5 @@
 plugins {
     alias(libs.plugins.android.application) apply false
     alias(libs.plugins.navigation.safeargs) apply false
+    alias(libs.plugins.jmh) apply false
 }
\ No newline at end of file